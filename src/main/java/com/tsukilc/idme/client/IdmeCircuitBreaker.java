@@ -0,0 +1,183 @@
+package com.tsukilc.idme.client;
+
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * iDME 调用熔断器（按 实体/操作 分别计数，如 "Department/list"、"Unit/get"）
+ * - 关闭：正常放行；连续 failureThreshold 次失败（网络异常、超时、HTTP 5xx）后打开
+ * - 打开：openMs 内直接拒绝，抛出 IdmeUnavailableException，不再等待上游超时
+ * - 半开：打开期满后只放行一个探测调用，成功则关闭，失败则重新打开
+ * 业务错误（result=FAIL、HTTP 4xx）说明上游可用，按成功处理
+ */
+@Slf4j
+public class IdmeCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final boolean enabled;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public IdmeCircuitBreaker(boolean enabled, int failureThreshold, long openMs) {
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * 放行检查：熔断打开（或半开且已有探测调用在途）时抛出 IdmeUnavailableException
+     *
+     * @return 本次调用的放行凭证，调用结束后必须回报 onSuccess / onFailure / onCancelled 之一
+     */
+    public Permit acquire(String key) {
+        Circuit circuit = circuits.computeIfAbsent(key, Circuit::new);
+        if (!enabled) {
+            // 不熔断：凭证的代次不与任何状态匹配，回报不计数
+            return new Permit(circuit, -1, false);
+        }
+        Permit permit = circuit.tryAcquire();
+        if (permit == null) {
+            rejected.increment();
+            throw new IdmeUnavailableException("iDME " + key + " 熔断中（连续失败），请稍后重试");
+        }
+        return permit;
+    }
+
+    /**
+     * 当前打开或半开的键
+     */
+    public List<String> getOpenCircuits() {
+        return circuits.values().stream()
+                .filter(circuit -> circuit.state != State.CLOSED)
+                .map(circuit -> circuit.key)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * 单个 实体/操作 的熔断状态
+     * 每次状态切换 generation 加一：切换前放行的调用晚到的结果不再影响新状态，
+     * 半开状态只认探测调用的结果
+     */
+    private final class Circuit {
+        private final String key;
+        private volatile State state = State.CLOSED;
+        private long generation;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probing;
+
+        private Circuit(String key) {
+            this.key = key;
+        }
+
+        private synchronized Permit tryAcquire() {
+            if (state == State.CLOSED) {
+                return new Permit(this, generation, false);
+            }
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && !probing) {
+                probing = true;
+                return new Permit(this, generation, true);
+            }
+            return null;
+        }
+
+        private synchronized void onSuccess(Permit permit) {
+            if (permit.generation != generation) {
+                return;
+            }
+            if (permit.probe) {
+                log.info("iDME {} 恢复，熔断关闭", key);
+                transition(State.CLOSED);
+            } else if (state == State.CLOSED) {
+                consecutiveFailures = 0;
+            }
+        }
+
+        private synchronized void onFailure(Permit permit) {
+            if (permit.generation != generation) {
+                return;
+            }
+            if (permit.probe) {
+                log.warn("iDME {} 探测调用失败，熔断重新打开 {} ms", key, TimeUnit.NANOSECONDS.toMillis(openNanos));
+                transition(State.OPEN);
+            } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+                log.warn("iDME {} 连续失败 {} 次，熔断打开 {} ms", key, consecutiveFailures,
+                        TimeUnit.NANOSECONDS.toMillis(openNanos));
+                transition(State.OPEN);
+            }
+        }
+
+        private synchronized void onCancelled(Permit permit) {
+            if (permit.probe && permit.generation == generation) {
+                probing = false;
+            }
+        }
+
+        private void transition(State next) {
+            state = next;
+            generation++;
+            consecutiveFailures = 0;
+            probing = false;
+            if (next == State.OPEN) {
+                openedAt = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 一次调用的放行凭证：记录放行时的状态代次及是否为半开探测，重复回报无效果
+     */
+    public final class Permit {
+        private final Circuit circuit;
+        private final long generation;
+        private final boolean probe;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        private Permit(Circuit circuit, long generation, boolean probe) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        public void onSuccess() {
+            if (reported.compareAndSet(false, true)) {
+                circuit.onSuccess(this);
+            }
+        }
+
+        public void onFailure() {
+            if (reported.compareAndSet(false, true)) {
+                circuit.onFailure(this);
+            }
+        }
+
+        /**
+         * 调用未发出或被取消：不计成败，只归还探测名额
+         */
+        public void onCancelled() {
+            if (reported.compareAndSet(false, true)) {
+                circuit.onCancelled(this);
+            }
+        }
+    }
+}
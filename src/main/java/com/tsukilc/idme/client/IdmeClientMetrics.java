@@ -0,0 +1,111 @@
+package com.tsukilc.idme.client;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * iDME HTTP 客户端运行指标（OkHttp 事件监听，所有调用共享一个实例）
+ *
+ * 新建连接数远小于连接获取次数说明连接复用良好；
+ * 排队入队次数持续增长说明 Dispatcher 并发上限已饱和，需调大 max-requests-per-host。
+ */
+public class IdmeClientMetrics extends EventListener {
+
+    private final LongAdder totalCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final AtomicInteger inFlightCalls = new AtomicInteger();
+    private final LongAccumulator peakInFlightCalls = new LongAccumulator(Math::max, 0);
+    private final LongAdder newConnections = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder connectionAcquisitions = new LongAdder();
+    private final LongAdder queuedEnqueues = new LongAdder();
+    private final LongAccumulator peakQueuedCalls = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void callStart(Call call) {
+        totalCalls.increment();
+        peakInFlightCalls.accumulate(inFlightCalls.incrementAndGet());
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        inFlightCalls.decrementAndGet();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        failedCalls.increment();
+        inFlightCalls.decrementAndGet();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        newConnections.increment();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                              Protocol protocol, IOException ioe) {
+        connectFailures.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionAcquisitions.increment();
+    }
+
+    /**
+     * 记录异步调用入队后的 Dispatcher 排队长度
+     */
+    void recordEnqueue(int queuedCalls) {
+        if (queuedCalls > 0) {
+            queuedEnqueues.increment();
+        }
+        peakQueuedCalls.accumulate(queuedCalls);
+    }
+
+    public long getTotalCalls() {
+        return totalCalls.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    public int getInFlightCalls() {
+        return inFlightCalls.get();
+    }
+
+    public long getPeakInFlightCalls() {
+        return peakInFlightCalls.get();
+    }
+
+    public long getNewConnections() {
+        return newConnections.sum();
+    }
+
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    public long getConnectionAcquisitions() {
+        return connectionAcquisitions.sum();
+    }
+
+    public long getQueuedEnqueues() {
+        return queuedEnqueues.sum();
+    }
+
+    public long getPeakQueuedCalls() {
+        return peakQueuedCalls.get();
+    }
+}
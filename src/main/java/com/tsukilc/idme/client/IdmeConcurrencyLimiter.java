@@ -0,0 +1,175 @@
+package com.tsukilc.idme.client;
+
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * iDME 调用并发限制器（舱壁 + AIMD 自适应上限）
+ * 读、写各一个实例，互不占用名额：
+ * - 未完成调用数达到当前上限时立即拒绝，不排队等待，调用线程不会被堵在上游
+ * - 响应在延迟阈值内返回、且并发已用到上限一半以上时，上限 +1（加性增，不超过 maxLimit）
+ * - 网络异常/超时，或响应慢于延迟阈值时，上限乘以 backoffRatio（乘性减，不低于 minLimit）
+ * 上游变慢时上限迅速收缩，多出的请求快速失败；上游恢复后上限逐步放开
+ */
+@Slf4j
+public class IdmeConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final boolean adaptive;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 只在 adjust 中修改（synchronized），读取不加锁
+    private volatile double limit;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    /**
+     * @param name               日志与错误信息中的名称（"读"/"写"）
+     * @param minLimit           上限下界
+     * @param maxLimit           上限上界（舱壁大小），初始上限取该值
+     * @param latencyThresholdMs 慢于该值的响应视为上游过载
+     * @param backoffRatio       过载时上限的收缩比例（0~1）
+     */
+    public IdmeConcurrencyLimiter(String name, int minLimit, int maxLimit,
+                                  long latencyThresholdMs, double backoffRatio) {
+        this(name, minLimit, maxLimit, latencyThresholdMs, backoffRatio, true);
+    }
+
+    private IdmeConcurrencyLimiter(String name, int minLimit, int maxLimit,
+                                   long latencyThresholdMs, double backoffRatio, boolean adaptive) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.adaptive = adaptive;
+        this.limit = this.maxLimit;
+    }
+
+    /**
+     * 不限制并发（idme.sdk.limiter-enabled=false）：只计数，不拒绝、不调整上限
+     */
+    public static IdmeConcurrencyLimiter unlimited(String name) {
+        return new IdmeConcurrencyLimiter(name, Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE / 2, 1.0, false);
+    }
+
+    /**
+     * 获取调用名额，当前上限已用满时抛出 IdmeUnavailableException
+     */
+    public Permit acquire() {
+        while (true) {
+            int current = inFlight.get();
+            int currentLimit = getLimit();
+            if (current >= currentLimit) {
+                rejected.increment();
+                throw new IdmeUnavailableException("iDME " + name + "请求并发已达上限（" + currentLimit
+                        + "），上游响应缓慢，请稍后重试");
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getDecreases() {
+        return decreases.sum();
+    }
+
+    private synchronized void adjust(boolean overloaded, int inFlightAtStart) {
+        if (!adaptive) {
+            return;
+        }
+        if (overloaded) {
+            double reduced = Math.max(minLimit, limit * backoffRatio);
+            if (reduced < limit) {
+                decreases.increment();
+                if ((int) reduced < (int) limit) {
+                    log.warn("iDME {}请求上游过载，并发上限 {} -> {}", name, (int) limit, (int) reduced);
+                }
+            }
+            limit = reduced;
+        } else if (inFlightAtStart * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    /**
+     * 一次调用占用的名额；收到响应或失败时释放并反馈给上限调整，重复释放无效果
+     */
+    public final class Permit {
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 收到上游响应：按延迟判断是否过载
+         */
+        public void onResponse() {
+            if (release()) {
+                adjust(System.nanoTime() - startNanos > latencyThresholdNanos, inFlightAtStart);
+            }
+        }
+
+        /**
+         * 网络异常或超时：视为过载
+         */
+        public void onDropped() {
+            if (release()) {
+                dropped.increment();
+                adjust(true, inFlightAtStart);
+            }
+        }
+
+        /**
+         * 释放名额，不影响上限（调用被取消或未发出）
+         */
+        public boolean release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.tsukilc.idme.client;
+
+import com.tsukilc.idme.exception.IdmeException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+/**
+ * 分页结果的逐行迭代器
+ *
+ * 按页自动翻页：取到第 n 页后立即异步预取第 n+1 页，消费当前页期间下一页已在传输；
+ * 任一时刻最多持有当前页和预取页两页数据，全量扫描内存占用与总行数无关。
+ * 返回行数少于页大小即视为最后一页。提前结束遍历时应调用 close() 取消预取。
+ *
+ * @param <T> 行类型
+ */
+public class IdmePageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final IntFunction<CompletableFuture<List<T>>> pageFetcher;
+    private final int pageSize;
+
+    private List<T> currentPage = List.of();
+    private int position;
+    private int nextPageNum = 1;
+    private CompletableFuture<List<T>> prefetch;
+    private boolean lastPage;
+    private boolean closed;
+
+    /**
+     * @param pageFetcher 页码（从1开始）-> 该页数据
+     * @param pageSize    页大小，须与 pageFetcher 使用的一致
+     */
+    public IdmePageIterator(IntFunction<CompletableFuture<List<T>>> pageFetcher, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize 必须大于0: " + pageSize);
+        }
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+        this.prefetch = fetch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (position >= currentPage.size()) {
+            if (closed || prefetch == null) {
+                return false;
+            }
+            currentPage = await(prefetch);
+            position = 0;
+            lastPage = currentPage.size() < pageSize;
+            prefetch = lastPage ? null : fetch();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.get(position++);
+    }
+
+    /**
+     * 停止遍历并取消尚未完成的预取请求
+     */
+    @Override
+    public void close() {
+        closed = true;
+        currentPage = List.of();
+        if (prefetch != null) {
+            prefetch.cancel(true);
+            prefetch = null;
+        }
+    }
+
+    private CompletableFuture<List<T>> fetch() {
+        return pageFetcher.apply(nextPageNum++);
+    }
+
+    private List<T> await(CompletableFuture<List<T>> page) {
+        try {
+            List<T> rows = page.join();
+            return rows != null ? rows : List.of();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IdmeException("分页查询失败: " + e.getMessage(), e);
+        } catch (CancellationException e) {
+            throw new IdmeException("分页查询已取消", e);
+        }
+    }
+}
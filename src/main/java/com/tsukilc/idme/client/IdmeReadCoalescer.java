@@ -0,0 +1,171 @@
+package com.tsukilc.idme.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同读请求合并（single-flight）
+ *
+ * 同一时刻键相同的读请求只发出一次上游调用，后到的调用方直接等待在途调用并共享解析结果；
+ * 调用完成即移出在途表，不做结果缓存。共享结果在并发调用方之间是同一对象，调用方不应修改。
+ * 异步调用方各自拿到独立的 future：取消只退出等待，全部调用方都取消时才取消底层 HTTP 调用。
+ */
+public class IdmeReadCoalescer {
+
+    private final ConcurrentHashMap<String, Flight<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 同步读：在途时等待共享结果，否则由当前线程发起调用
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R execute(String key, Supplier<R> call) {
+        Flight<R> created = new Flight<>(key);
+        Flight<R> flight = (Flight<R>) join(key, created);
+        if (flight != created) {
+            return await(flight.result);
+        }
+        try {
+            R result = call.get();
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 异步读：在途时订阅共享结果，否则发起调用
+     */
+    @SuppressWarnings("unchecked")
+    public <R> CompletableFuture<R> executeAsync(String key, Supplier<CompletableFuture<R>> call) {
+        Flight<R> created = new Flight<>(key);
+        Flight<R> flight = (Flight<R>) join(key, created);
+        CompletableFuture<R> subscriber = flight.subscribe();
+        if (flight == created) {
+            CompletableFuture<R> upstream;
+            try {
+                upstream = call.get();
+            } catch (RuntimeException e) {
+                inFlight.remove(key, flight);
+                flight.result.completeExceptionally(e);
+                return subscriber;
+            }
+            flight.start(upstream);
+            upstream.whenComplete((result, error) -> {
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.result.completeExceptionally(unwrap(error));
+                } else {
+                    flight.result.complete(result);
+                }
+            });
+        }
+        return subscriber;
+    }
+
+    /**
+     * 移除键以 prefix 开头的在途记录（写操作完成后调用），之后的读请求重新发起，不会拿到写之前的结果
+     */
+    public void invalidate(String prefix) {
+        inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 被合并（未实际发出）的读请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Flight<?> join(String key, Flight<?> created) {
+        Flight<?> flight = inFlight.compute(key, (k, existing) ->
+                existing != null && existing.tryJoin() ? existing : created);
+        if (flight != created) {
+            coalesced.increment();
+        }
+        return flight;
+    }
+
+    private static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 一次在途调用及其调用方
+     */
+    private final class Flight<R> {
+        final String key;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        private CompletableFuture<R> upstream;
+        private int subscribers = 1;
+        private boolean cancelled;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean tryJoin() {
+            if (cancelled) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        synchronized void start(CompletableFuture<R> upstream) {
+            this.upstream = upstream;
+            if (cancelled) {
+                upstream.cancel(true);
+            }
+        }
+
+        CompletableFuture<R> subscribe() {
+            CompletableFuture<R> subscriber = new CompletableFuture<>();
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    subscriber.completeExceptionally(unwrap(error));
+                } else {
+                    subscriber.complete(value);
+                }
+            });
+            subscriber.whenComplete((value, error) -> {
+                if (error instanceof CancellationException && subscriber.isCancelled()) {
+                    leave();
+                }
+            });
+            return subscriber;
+        }
+
+        private synchronized void leave() {
+            if (--subscribers > 0 || result.isDone()) {
+                return;
+            }
+            cancelled = true;
+            inFlight.remove(key, this);
+            if (upstream != null) {
+                upstream.cancel(true);
+            }
+            result.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.tsukilc.idme.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * iDME 调用重试策略（指数退避 + 全抖动 + 重试预算）
+ * - 只用于瞬时故障（网络异常、连接被重置、超时、HTTP 5xx），是否可重试由调用方按操作判断
+ * - 第 n 次尝试失败后等待 [0, min(maxDelayMs, baseDelayMs * 2^(n-1))] 内的随机时长，多个调用方不会同时重试
+ * - 重试预算：每次调用存入 budgetRatio 个令牌（最多攒 budgetBurst 个），每次重试消耗一个；
+ *   上游持续故障时重试量不超过调用量的 budgetRatio，不会把故障放大成重试风暴
+ */
+public class IdmeRetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double budgetRatio;
+    private final double budgetBurst;
+
+    // 只在 synchronized 方法中读写
+    private double tokens;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * @param maxAttempts  每次调用最多尝试次数（含首次），1 表示不重试
+     * @param baseDelayMs  首次重试的退避上限
+     * @param maxDelayMs   退避上限的最大值
+     * @param budgetRatio  每次调用存入的重试令牌数（0~1）
+     * @param budgetBurst  令牌上限，也是初始令牌数
+     */
+    public IdmeRetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs,
+                           double budgetRatio, int budgetBurst) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(0, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.budgetRatio = Math.max(0, budgetRatio);
+        this.budgetBurst = Math.max(0, budgetBurst);
+        this.tokens = this.budgetBurst;
+    }
+
+    /**
+     * 不重试（idme.sdk.retry-enabled=false）
+     */
+    public static IdmeRetryPolicy disabled() {
+        return new IdmeRetryPolicy(1, 0, 0, 0, 0);
+    }
+
+    /**
+     * 发起一次调用（不含重试），向预算存入令牌
+     */
+    public synchronized void onCall() {
+        tokens = Math.min(budgetBurst, tokens + budgetRatio);
+    }
+
+    /**
+     * 第 attempt 次尝试因瞬时故障失败后，下一次尝试前的等待时长
+     *
+     * @return 等待毫秒数；已达最大尝试次数或预算用尽时返回 -1，表示不再重试
+     */
+    public long backoffMs(int attempt) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        if (!withdraw()) {
+            budgetExhausted.increment();
+            return -1;
+        }
+        retries.increment();
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+}
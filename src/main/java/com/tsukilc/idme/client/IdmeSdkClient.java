@@ -1,23 +1,45 @@
 package com.tsukilc.idme.client;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.tsukilc.idme.client.dto.QueryRequest;
 import com.tsukilc.idme.client.dto.RdmRequest;
-import com.tsukilc.idme.client.dto.RdmResponse;
 import com.tsukilc.idme.config.IdmeConfig;
+import com.tsukilc.idme.config.IdmeExecutorConfig;
 import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import com.tsukilc.idme.vo.IdmeClientStatsVO;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * iDME SDK HTTP 客户端封装
@@ -25,30 +47,189 @@ import java.util.concurrent.TimeUnit;
  */
 @Component
 @Slf4j
-public class IdmeSdkClient {
+public class IdmeSdkClient implements AutoCloseable {
     
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final IdmeConfig idmeConfig;
+    private final ExecutorService ioExecutor;
+    // 执行器由本客户端创建（非Spring注入）时，close 时一并关闭
+    private final boolean ownsIoExecutor;
+    private final Dispatcher dispatcher;
+    private final ConnectionPool connectionPool;
+    private final IdmeClientMetrics metrics;
+    private final IdmeReadCoalescer readCoalescer = new IdmeReadCoalescer();
+    // 读写分开的舱壁：上游变慢时读请求占满名额也不影响写请求
+    private final IdmeConcurrencyLimiter readLimiter;
+    private final IdmeConcurrencyLimiter writeLimiter;
+    private final IdmeCircuitBreaker circuitBreaker;
+    private final IdmeRetryPolicy retryPolicy;
+    // 生成合并键用：Map按键排序，参数顺序不同的相同请求得到相同的键
+    private final ObjectMapper canonicalMapper;
     
     // SDK 要求的固定用户身份（用于避免 modifier 字段不一致问题）
     private static final String SDK_USER = "sysadmin 1";
     
-    @Autowired
+    /**
+     * 自带I/O执行器（测试、独立使用），用完需调用 close 释放
+     */
     public IdmeSdkClient(IdmeConfig idmeConfig, ObjectMapper objectMapper) {
+        this(idmeConfig, objectMapper,
+                IdmeExecutorConfig.newIoExecutor(Boolean.TRUE.equals(idmeConfig.getVirtualThreads())), true);
+    }
+
+    @Autowired
+    public IdmeSdkClient(IdmeConfig idmeConfig, ObjectMapper objectMapper,
+                         @Qualifier("idmeIoExecutor") ExecutorService ioExecutor) {
+        this(idmeConfig, objectMapper, ioExecutor, false);
+    }
+
+    private IdmeSdkClient(IdmeConfig idmeConfig, ObjectMapper objectMapper, ExecutorService ioExecutor,
+                          boolean ownsIoExecutor) {
         this.idmeConfig = idmeConfig;
         this.objectMapper = objectMapper;
-        
+        this.ioExecutor = ioExecutor;
+        this.ownsIoExecutor = ownsIoExecutor;
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+        // 异步调用（enqueue）由 Dispatcher 调度，默认每个host只允许5个并发请求，需放开；
+        // 虚拟线程模式下每个调用一个虚拟线程，不再需要用并发上限保护线程资源
+        boolean virtual = Boolean.TRUE.equals(idmeConfig.getVirtualThreads())
+                && IdmeExecutorConfig.isVirtualThreadSupported();
+        int maxRequests = virtual ? Integer.MAX_VALUE : idmeConfig.getMaxRequests();
+        int maxRequestsPerHost = idmeConfig.getMaxRequestsPerHost() != null
+                ? idmeConfig.getMaxRequestsPerHost() : maxRequests;
+        this.dispatcher = new Dispatcher(ioExecutor);
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        // 所有请求都发往同一个iDME host，默认5个空闲连接不够复用
+        this.connectionPool = new ConnectionPool(idmeConfig.getMaxIdleConnections(),
+                idmeConfig.getKeepAliveMs(), TimeUnit.MILLISECONDS);
+        this.metrics = new IdmeClientMetrics();
+        this.readLimiter = newLimiter("读", idmeConfig.getLimiterMaxReads());
+        this.writeLimiter = newLimiter("写", idmeConfig.getLimiterMaxWrites());
+        this.circuitBreaker = new IdmeCircuitBreaker(Boolean.TRUE.equals(idmeConfig.getCircuitBreakerEnabled()),
+                idmeConfig.getCircuitFailureThreshold(), idmeConfig.getCircuitOpenMs());
+        this.retryPolicy = Boolean.TRUE.equals(idmeConfig.getRetryEnabled())
+                ? new IdmeRetryPolicy(idmeConfig.getRetryMaxAttempts(), idmeConfig.getRetryBaseDelayMs(),
+                        idmeConfig.getRetryMaxDelayMs(), idmeConfig.getRetryBudgetRatio(),
+                        idmeConfig.getRetryBudgetBurst())
+                : IdmeRetryPolicy.disabled();
+
         // 初始化 OkHttp 客户端
         this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(idmeConfig.getTimeout(), TimeUnit.MILLISECONDS)
-            .readTimeout(idmeConfig.getTimeout(), TimeUnit.MILLISECONDS)
-            .writeTimeout(idmeConfig.getTimeout(), TimeUnit.MILLISECONDS)
+            .dispatcher(dispatcher)
+            .connectionPool(connectionPool)
+            .protocols(protocolsOf(idmeConfig.getProtocol()))
+            .eventListener(metrics)
+            // 保留 OkHttp 对失效的复用连接（服务端已关闭的 keep-alive 连接）的自动重发，所有操作都需要；
+            // retryPolicy 只处理 OkHttp 未能恢复的网络异常、超时和 HTTP 5xx
+            .retryOnConnectionFailure(true)
+            .connectTimeout(timeoutOf(idmeConfig.getConnectTimeout()), TimeUnit.MILLISECONDS)
+            .readTimeout(timeoutOf(idmeConfig.getReadTimeout()), TimeUnit.MILLISECONDS)
+            .writeTimeout(timeoutOf(idmeConfig.getWriteTimeout()), TimeUnit.MILLISECONDS)
             .build();
-        
-        log.info("IdmeSdkClient 初始化完成，baseUrl: {}, SDK_USER: {}", idmeConfig.getBaseUrl(), SDK_USER);
+
+        log.info("IdmeSdkClient 初始化完成，baseUrl: {}, SDK_USER: {}, protocols: {}, maxRequestsPerHost: {}, maxIdleConnections: {}",
+                idmeConfig.getBaseUrl(), SDK_USER, httpClient.protocols(), maxRequestsPerHost,
+                idmeConfig.getMaxIdleConnections());
+    }
+
+    private IdmeConcurrencyLimiter newLimiter(String name, int maxLimit) {
+        if (!Boolean.TRUE.equals(idmeConfig.getLimiterEnabled())) {
+            return IdmeConcurrencyLimiter.unlimited(name);
+        }
+        return new IdmeConcurrencyLimiter(name, idmeConfig.getLimiterMinLimit(), maxLimit,
+                idmeConfig.getLimiterLatencyThresholdMs(), idmeConfig.getLimiterBackoffRatio());
+    }
+
+    private int timeoutOf(Integer specific) {
+        return specific != null ? specific : idmeConfig.getTimeout();
+    }
+
+    /**
+     * 协议模式 -> OkHttp 协议列表
+     * auto 下 HTTPS 通过 ALPN 协商 HTTP/2（单连接多路复用），明文 HTTP 仍走 HTTP/1.1
+     */
+    private static List<Protocol> protocolsOf(String protocol) {
+        if (protocol == null || "auto".equalsIgnoreCase(protocol)) {
+            return List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        }
+        if ("http1".equalsIgnoreCase(protocol)) {
+            return List.of(Protocol.HTTP_1_1);
+        }
+        if ("h2c".equalsIgnoreCase(protocol)) {
+            return List.of(Protocol.H2_PRIOR_KNOWLEDGE);
+        }
+        throw new IllegalArgumentException("不支持的 idme.sdk.protocol: " + protocol + "（可选 auto / http1 / h2c）");
+    }
+
+    /**
+     * 释放空闲连接；执行器由本客户端创建时一并关闭（不再接受新调用，已发出的异步调用继续完成）
+     * 注入的 idmeIoExecutor 由Spring容器关闭
+     */
+    @Override
+    public void close() {
+        connectionPool.evictAll();
+        if (ownsIoExecutor) {
+            ioExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 连接池与并发统计快照
+     */
+    public IdmeClientStatsVO getStats() {
+        IdmeClientStatsVO vo = new IdmeClientStatsVO();
+        vo.setProtocol(idmeConfig.getProtocol());
+        vo.setMaxRequests(dispatcher.getMaxRequests());
+        vo.setMaxRequestsPerHost(dispatcher.getMaxRequestsPerHost());
+        vo.setMaxIdleConnections(idmeConfig.getMaxIdleConnections());
+        vo.setKeepAliveMs(idmeConfig.getKeepAliveMs());
+
+        int running = dispatcher.runningCallsCount();
+        vo.setRunningCalls(running);
+        vo.setQueuedCalls(dispatcher.queuedCallsCount());
+        vo.setConnectionCount(connectionPool.connectionCount());
+        vo.setIdleConnectionCount(connectionPool.idleConnectionCount());
+        vo.setInFlightCalls(metrics.getInFlightCalls());
+        int perHost = dispatcher.getMaxRequestsPerHost();
+        vo.setDispatcherUtilization(perHost == Integer.MAX_VALUE ? 0.0 : (double) running / perHost);
+
+        vo.setTotalCalls(metrics.getTotalCalls());
+        vo.setFailedCalls(metrics.getFailedCalls());
+        vo.setPeakInFlightCalls(metrics.getPeakInFlightCalls());
+        vo.setNewConnections(metrics.getNewConnections());
+        vo.setConnectFailures(metrics.getConnectFailures());
+        vo.setConnectionAcquisitions(metrics.getConnectionAcquisitions());
+        vo.setQueuedEnqueues(metrics.getQueuedEnqueues());
+        vo.setPeakQueuedCalls(metrics.getPeakQueuedCalls());
+        vo.setCoalescedReads(readCoalescer.getCoalescedCount());
+        vo.setInFlightReads(readCoalescer.getInFlightCount());
+
+        vo.setReadLimit(readLimiter.getLimit());
+        vo.setReadInFlight(readLimiter.getInFlight());
+        vo.setRejectedReads(readLimiter.getRejected());
+        vo.setWriteLimit(writeLimiter.getLimit());
+        vo.setWriteInFlight(writeLimiter.getInFlight());
+        vo.setRejectedWrites(writeLimiter.getRejected());
+        vo.setLimitDecreases(readLimiter.getDecreases() + writeLimiter.getDecreases());
+        vo.setOpenCircuits(circuitBreaker.getOpenCircuits());
+        vo.setCircuitRejections(circuitBreaker.getRejected());
+        vo.setRetries(retryPolicy.getRetries());
+        vo.setRetryBudgetExhausted(retryPolicy.getBudgetExhausted());
+        return vo;
     }
     
+    /**
+     * 在I/O执行器上运行阻塞的SDK调用（服务层并发扇出用）
+     * 虚拟线程模式下每个任务一个虚拟线程，可直接调用同步API而不占用平台线程
+     */
+    public <R> CompletableFuture<R> supplyAsync(Supplier<R> task) {
+        return CompletableFuture.supplyAsync(task, ioExecutor);
+    }
+
     /**
      * 创建实体
      * @param entityName 实体名称（如 "Employee"）
@@ -56,13 +237,41 @@ public class IdmeSdkClient {
      * @return 创建后的实体数据
      */
     public <T> T create(String entityName, Object params, Class<T> responseType) {
-        String url = buildUrl(entityName, "create");
+        return create(entityName, params, responseType, null);
+    }
+
+    /**
+     * 创建实体（携带幂等键）
+     * 幂等键随 Idempotency-Key 请求头发出，同一次创建的所有重试使用相同的键；
+     * 只有携带幂等键的创建才会在瞬时故障时重试，不带键的创建失败即返回，避免重复创建
+     * @param idempotencyKey 幂等键（调用方为每次业务创建生成，如前端提交的请求ID），null 表示不重试
+     */
+    public <T> T create(String entityName, Object params, Class<T> responseType, String idempotencyKey) {
+        // SDK的create接口返回的data是数组，需要特殊处理
+        return executeRequestForCreate(buildUrl(entityName, "create"), createRequest(params), responseType,
+                idempotencyKey);
+    }
+
+    /**
+     * 创建实体（异步）
+     */
+    public <T> CompletableFuture<T> createAsync(String entityName, Object params, Class<T> responseType) {
+        return createAsync(entityName, params, responseType, null);
+    }
+
+    /**
+     * 创建实体（异步，携带幂等键）
+     */
+    public <T> CompletableFuture<T> createAsync(String entityName, Object params, Class<T> responseType,
+                                                String idempotencyKey) {
+        return executeRequestForCreateAsync(buildUrl(entityName, "create"), createRequest(params), responseType,
+                idempotencyKey);
+    }
+
+    private RdmRequest<?> createRequest(Object params) {
         // 自动添加 creator 和 modifier 字段
         Map<String, Object> enrichedParams = enrichWithUserFields(params);
-        RdmRequest<?> request = RdmRequest.of(enrichedParams);
-        
-        // SDK的create接口返回的data是数组，需要特殊处理
-        return executeRequestForCreate(url, request, responseType);
+        return RdmRequest.of(enrichedParams);
     }
     
     /**
@@ -72,14 +281,22 @@ public class IdmeSdkClient {
      * @return 更新后的实体数据
      */
     public <T> T update(String entityName, Object params, Class<T> responseType) {
-        String url = buildUrl(entityName, "update");
-        
+        // SDK的update接口返回的data也是数组
+        return executeRequestForCreate(buildUrl(entityName, "update"), updateRequest(params), responseType);
+    }
+
+    /**
+     * 更新实体（异步）
+     */
+    public <T> CompletableFuture<T> updateAsync(String entityName, Object params, Class<T> responseType) {
+        return executeRequestForCreateAsync(buildUrl(entityName, "update"), updateRequest(params), responseType);
+    }
+
+    private RdmRequest<?> updateRequest(Object params) {
         // 将params转为Map，过滤掉系统字段（SDK update接口不接受这些字段），并注入 creator/modifier
         Map<String, Object> filteredParams = filterSystemFields(params);
         Map<String, Object> enrichedParams = enrichWithUserFields(filteredParams);
-        RdmRequest<?> request = RdmRequest.of(enrichedParams);
-        // SDK的update接口返回的data也是数组
-        return executeRequestForCreate(url, request, responseType);
+        return RdmRequest.of(enrichedParams);
     }
     
     /**
@@ -115,28 +332,48 @@ public class IdmeSdkClient {
      * @param id 实体ID
      */
     public void delete(String entityName, String id) {
-        String url = buildUrl(entityName, "delete");
-        Map<String, Object> params = new HashMap<>();
-        params.put("id", id);
-        Map<String, Object> enrichedParams = enrichWithUserFields(params);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        executeRequest(url, request, Void.class);
+        executeRequest(buildUrl(entityName, "delete"), idRequest(id), Void.class);
+    }
+
+    /**
+     * 删除实体（异步）
+     */
+    public CompletableFuture<Void> deleteAsync(String entityName, String id) {
+        return executeRequestAsync(buildUrl(entityName, "delete"), idRequest(id), Void.class);
     }
     
     /**
      * 根据ID查询单个实体
+     * 相同的并发请求合并为一次上游调用，返回的实例可能与并发调用方共享，需修改后回写时使用 getForUpdate
      * @param entityName 实体名称
      * @param id 实体ID
      * @return 实体数据
      */
     public <T> T get(String entityName, String id, Class<T> responseType) {
-        String url = buildUrl(entityName, "get");
+        // SDK的get接口返回的data也是数组
+        return executeRequestForGet(buildUrl(entityName, "get"), idRequest(id), responseType);
+    }
+
+    /**
+     * 根据ID查询单个实体用于读-改-写：不参与读请求合并，返回调用方独占的实例
+     */
+    public <T> T getForUpdate(String entityName, String id, Class<T> responseType) {
+        return execute(buildUrl(entityName, "get"), idRequest(id), "查询", "SDK 调用失败",
+                body -> parseFirst(body, responseType));
+    }
+
+    /**
+     * 根据ID查询单个实体（异步）
+     */
+    public <T> CompletableFuture<T> getAsync(String entityName, String id, Class<T> responseType) {
+        return executeRequestForGetAsync(buildUrl(entityName, "get"), idRequest(id), responseType);
+    }
+
+    private RdmRequest<Map<String, Object>> idRequest(String id) {
         Map<String, Object> params = new HashMap<>();
         params.put("id", id);
         Map<String, Object> enrichedParams = enrichWithUserFields(params);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        // SDK的get接口返回的data也是数组
-        return executeRequestForCreate(url, request, responseType);
+        return RdmRequest.of(enrichedParams);
     }
     
     /**
@@ -147,13 +384,25 @@ public class IdmeSdkClient {
      * @return 检出后的工作副本对象
      */
     public <T> T checkout(String entityName, String masterId, String workCopyType, Class<T> responseType) {
-        String url = buildUrl(entityName, "checkout");
+        return executeRequestForCreate(buildUrl(entityName, "checkout"),
+                checkoutRequest(masterId, workCopyType), responseType);
+    }
+
+    /**
+     * 版本对象检出（异步）
+     */
+    public <T> CompletableFuture<T> checkoutAsync(String entityName, String masterId, String workCopyType,
+                                                  Class<T> responseType) {
+        return executeRequestForCreateAsync(buildUrl(entityName, "checkout"),
+                checkoutRequest(masterId, workCopyType), responseType);
+    }
+
+    private RdmRequest<Map<String, Object>> checkoutRequest(String masterId, String workCopyType) {
         Map<String, Object> params = new HashMap<>();
         params.put("masterId", masterId);
         params.put("workCopyType", workCopyType != null ? workCopyType : "BOTH");
         Map<String, Object> enrichedParams = enrichWithUserFields(params);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForCreate(url, request, responseType);
+        return RdmRequest.of(enrichedParams);
     }
 
     /**
@@ -164,13 +413,24 @@ public class IdmeSdkClient {
      * @return 检入后的版本对象
      */
     public <T> T checkin(String entityName, String masterId, String viewNo, Class<T> responseType) {
-        String url = buildUrl(entityName, "checkin");
+        return executeRequestForCreate(buildUrl(entityName, "checkin"), checkinRequest(masterId, viewNo), responseType);
+    }
+
+    /**
+     * 版本对象检入（异步）
+     */
+    public <T> CompletableFuture<T> checkinAsync(String entityName, String masterId, String viewNo,
+                                                 Class<T> responseType) {
+        return executeRequestForCreateAsync(buildUrl(entityName, "checkin"),
+                checkinRequest(masterId, viewNo), responseType);
+    }
+
+    private RdmRequest<Map<String, Object>> checkinRequest(String masterId, String viewNo) {
         Map<String, Object> params = new HashMap<>();
         params.put("masterId", masterId);
         params.put("viewNo", viewNo != null ? viewNo : "");
         Map<String, Object> enrichedParams = enrichWithUserFields(params);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForCreate(url, request, responseType);
+        return RdmRequest.of(enrichedParams);
     }
 
     /**
@@ -180,15 +440,29 @@ public class IdmeSdkClient {
      * @return 历史版本列表
      */
     public <T> List<T> getVersionHistory(String entityName, String masterId, Class<T> elementType) {
+        return executeRequestForList(versionHistoryUrl(entityName), versionHistoryRequest(masterId), elementType);
+    }
+
+    /**
+     * 查询版本历史（异步）
+     */
+    public <T> CompletableFuture<List<T>> getVersionHistoryAsync(String entityName, String masterId,
+                                                                 Class<T> elementType) {
+        return executeRequestForListAsync(versionHistoryUrl(entityName), versionHistoryRequest(masterId), elementType);
+    }
+
+    private String versionHistoryUrl(String entityName) {
         // SDK通过list接口查询，condition指定master.id
-        String url = buildUrl(entityName, "list") + "?curPage=1&pageSize=1000";
+        return buildUrl(entityName, "list") + "?curPage=1&pageSize=1000";
+    }
+
+    private RdmRequest<Map<String, Object>> versionHistoryRequest(String masterId) {
         QueryRequest queryRequest = new QueryRequest();
         Map<String, Object> condition = new HashMap<>();
         condition.put("master.id", masterId);
         queryRequest.setCondition(condition);
         Map<String, Object> enrichedParams = enrichWithUserFields(queryRequest);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForList(url, request, elementType);
+        return RdmRequest.of(enrichedParams);
     }
 
     /**
@@ -203,9 +477,110 @@ public class IdmeSdkClient {
      */
     public <T> List<T> list(String entityName, QueryRequest queryRequest,
                             int curPage, int pageSize, Class<T> elementType) {
-        String url = buildUrl(entityName, "list")
-            + "?curPage=" + curPage + "&pageSize=" + pageSize;
+        return executeRequestForList(pageUrl(entityName, "list", curPage, pageSize),
+                queryRequest(queryRequest), elementType);
+    }
 
+    /**
+     * 分页查询（异步）
+     */
+    public <T> CompletableFuture<List<T>> listAsync(String entityName, QueryRequest queryRequest,
+                                                    int curPage, int pageSize, Class<T> elementType) {
+        return executeRequestForListAsync(pageUrl(entityName, "list", curPage, pageSize),
+                queryRequest(queryRequest), elementType);
+    }
+
+    /**
+     * 全量流式查询：自动翻页并预取下一页，逐行消费，内存占用与总行数无关
+     * 返回的 Stream 提前结束时应关闭（try-with-resources），以取消尚未完成的预取
+     *
+     * @param pageSize 每页大小，null 时使用 idme.sdk.stream-page-size
+     */
+    public <T> Stream<T> listStream(String entityName, QueryRequest queryRequest,
+                                    Integer pageSize, Class<T> elementType) {
+        int size = pageSize != null ? pageSize : idmeConfig.getStreamPageSize();
+        IdmePageIterator<T> iterator = new IdmePageIterator<>(
+                page -> listAsync(entityName, queryRequest, page, size, elementType), size);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 全量并行扫描：先取总数，再以有限并发（idme.sdk.scan-parallelism）同时拉取各页，按页序拼接
+     * 总数查询与第1页同时发出，N页的扫描耗时约为 N / 并发数 个往返；
+     * 扫描期间有新增导致最后一页仍是满页时，继续顺序翻页直到取完
+     *
+     * @param findFilter 与 queryRequest 条件等价的 find 过滤条件（用于统计总数），null表示全部
+     */
+    public <T> List<T> listAllParallel(String entityName, QueryRequest queryRequest,
+                                       Map<String, Object> findFilter, Class<T> elementType) {
+        int pageSize = idmeConfig.getStreamPageSize();
+        int parallelism = Math.max(1, idmeConfig.getScanParallelism());
+
+        CompletableFuture<Long> total = countAsync(entityName, findFilter);
+        CompletableFuture<List<T>> firstPage = listAsync(entityName, queryRequest, 1, pageSize, elementType);
+        long totalRows;
+        try {
+            totalRows = total.join();
+        } catch (CompletionException e) {
+            firstPage.cancel(true);
+            throw unwrap(e);
+        }
+        if (totalRows < 0) {
+            firstPage.cancel(true);
+            log.warn("{} 总数查询未返回分页信息，回退为顺序翻页", entityName);
+            try (Stream<T> rows = listStream(entityName, queryRequest, pageSize, elementType)) {
+                return rows.collect(Collectors.toList());
+            }
+        }
+
+        // 第 i 页在第 i-parallelism 页完成后才发出，同时在途的请求不超过 parallelism 个
+        int pageCount = (int) Math.max(1, (totalRows + pageSize - 1) / pageSize);
+        List<CompletableFuture<List<T>>> pages = new ArrayList<>(pageCount);
+        pages.add(firstPage);
+        for (int i = 1; i < pageCount; i++) {
+            int pageNum = i + 1;
+            pages.add(i < parallelism
+                    ? listAsync(entityName, queryRequest, pageNum, pageSize, elementType)
+                    : pages.get(i - parallelism).handle((rows, error) -> null)
+                        .thenCompose(ignored -> listAsync(entityName, queryRequest, pageNum, pageSize, elementType)));
+        }
+
+        List<T> result = new ArrayList<>((int) Math.min(totalRows, Integer.MAX_VALUE - 8));
+        List<T> lastPage = null;
+        try {
+            for (CompletableFuture<List<T>> page : pages) {
+                lastPage = page.join();
+                if (lastPage != null) {
+                    result.addAll(lastPage);
+                }
+            }
+        } catch (CompletionException e) {
+            pages.forEach(page -> page.cancel(true));
+            throw unwrap(e);
+        }
+        for (int pageNum = pageCount + 1; lastPage != null && lastPage.size() == pageSize; pageNum++) {
+            lastPage = list(entityName, queryRequest, pageNum, pageSize, elementType);
+            if (lastPage != null) {
+                result.addAll(lastPage);
+            }
+        }
+        log.info("{} 并行扫描完成，共 {} 页 {} 条", entityName, pageCount, result.size());
+        return result;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new IdmeException("SDK 调用失败: " + e.getMessage(), e);
+    }
+
+    private String pageUrl(String entityName, String operation, int curPage, int pageSize) {
+        return buildUrl(entityName, operation) + "?curPage=" + curPage + "&pageSize=" + pageSize;
+    }
+
+    private RdmRequest<Map<String, Object>> queryRequest(QueryRequest queryRequest) {
         // 如果没有查询条件，创建空条件
         if (queryRequest == null) {
             queryRequest = new QueryRequest();
@@ -213,8 +588,7 @@ public class IdmeSdkClient {
         }
 
         Map<String, Object> enrichedParams = enrichWithUserFields(queryRequest);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForList(url, request, elementType);
+        return RdmRequest.of(enrichedParams);
     }
 
     /**
@@ -234,8 +608,171 @@ public class IdmeSdkClient {
                             int curPage,
                             int pageSize,
                             Class<T> elementType) {
-        String url = buildUrl(entityName, "find") + "/" + pageSize + "/" + curPage;
+        return executeRequestForList(findUrl(entityName, curPage, pageSize), findRequest(filter, sorts), elementType);
+    }
+
+    /**
+     * 使用find接口查询（异步）
+     */
+    public <T> CompletableFuture<List<T>> findAsync(String entityName,
+                                                    Map<String, Object> filter,
+                                                    List<Map<String, String>> sorts,
+                                                    int curPage,
+                                                    int pageSize,
+                                                    Class<T> elementType) {
+        return executeRequestForListAsync(findUrl(entityName, curPage, pageSize),
+                findRequest(filter, sorts), elementType);
+    }
+
+    /**
+     * 统计匹配条件的实体总数（find接口 isNeedTotal，只取1行）
+     *
+     * @param filter find接口格式的过滤条件，null表示全部
+     * @return 总行数；上游未返回分页信息时为 -1
+     */
+    public long count(String entityName, Map<String, Object> filter) {
+        String url = findUrl(entityName, 1, 1);
+        RdmRequest<Map<String, Object>> request = findRequest(filter, null);
+        return coalesce(url, request, Long.class,
+                () -> execute(url, request, "查询", "SDK 查询失败", this::parseTotal));
+    }
 
+    /**
+     * 统计总数（异步）
+     */
+    public CompletableFuture<Long> countAsync(String entityName, Map<String, Object> filter) {
+        String url = findUrl(entityName, 1, 1);
+        RdmRequest<Map<String, Object>> request = findRequest(filter, null);
+        return coalesceAsync(url, request, Long.class,
+                () -> executeAsync(url, request, "查询", "SDK 查询失败", this::parseTotal));
+    }
+
+    /**
+     * 按ID批量查询（find接口 in 条件）
+     * ID去重后按 batch-get-size 分块，各块并发发出，结果按ID合并
+     *
+     * @param idOf 从结果实体取ID
+     * @return ID -> 实体；不存在的ID不出现在结果中
+     */
+    public <T> Map<String, T> getByIds(String entityName, Collection<String> ids,
+                                       Class<T> elementType, Function<T, String> idOf) {
+        try {
+            return getByIdsAsync(entityName, ids, elementType, idOf).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 按ID批量查询（异步）
+     */
+    public <T> CompletableFuture<Map<String, T>> getByIdsAsync(String entityName, Collection<String> ids,
+                                                              Class<T> elementType, Function<T, String> idOf) {
+        Set<String> requested = new HashSet<>(distinctValues(ids));
+        return findAllInAsync(entityName, "id", requested, elementType)
+                .thenApply(rows -> {
+                    Map<String, T> result = new HashMap<>(requested.size() * 2);
+                    for (T row : rows) {
+                        String id = idOf.apply(row);
+                        if (id != null && requested.contains(id)) {
+                            result.put(id, row);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 按字段取值集合查询全部匹配实体（find接口 in 条件）
+     * 取值去重后按 batch-get-size 分块，各块并发发出；一块匹配的行数超过一页时按 stream-page-size 继续翻页
+     *
+     * @param field find接口的条件字段（引用字段用 "xxx.id"）
+     * @return 全部匹配实体，块间顺序不保证
+     */
+    public <T> List<T> findAllIn(String entityName, String field, Collection<String> values, Class<T> elementType) {
+        try {
+            return findAllInAsync(entityName, field, values, elementType).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 按字段取值集合查询全部匹配实体（异步）
+     */
+    public <T> CompletableFuture<List<T>> findAllInAsync(String entityName, String field,
+                                                         Collection<String> values, Class<T> elementType) {
+        List<String> distinct = distinctValues(values);
+        if (distinct.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        int chunkSize = Math.max(1, idmeConfig.getBatchGetSize());
+        int pageSize = Math.max(1, idmeConfig.getStreamPageSize());
+        List<CompletableFuture<List<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            chunks.add(findPagesAsync(entityName, inFilter(field, chunk), 1, pageSize, elementType,
+                    new ArrayList<>()));
+        }
+        log.debug("{} 按 {} 批量查询 {} 个取值，分 {} 块", entityName, field, distinct.size(), chunks.size());
+
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture<?>[]::new))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        chunks.forEach(chunk -> chunk.cancel(true));
+                    }
+                })
+                .thenApply(ignored -> {
+                    List<T> result = new ArrayList<>();
+                    chunks.forEach(chunk -> result.addAll(chunk.join()));
+                    return result;
+                });
+    }
+
+    /**
+     * 从 curPage 开始逐页拉取，直到某页不满
+     */
+    private <T> CompletableFuture<List<T>> findPagesAsync(String entityName, Map<String, Object> filter,
+                                                          int curPage, int pageSize, Class<T> elementType,
+                                                          List<T> collected) {
+        return findAsync(entityName, filter, null, curPage, pageSize, elementType)
+                .thenCompose(rows -> {
+                    if (rows != null) {
+                        collected.addAll(rows);
+                    }
+                    if (rows == null || rows.size() < pageSize) {
+                        return CompletableFuture.completedFuture(collected);
+                    }
+                    return findPagesAsync(entityName, filter, curPage + 1, pageSize, elementType, collected);
+                });
+    }
+
+    private static List<String> distinctValues(Collection<String> values) {
+        return values.stream()
+                .filter(Objects::nonNull)
+                .filter(value -> !value.isBlank())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> inFilter(String field, List<String> values) {
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("conditionName", field);
+        condition.put("operator", "in");
+        condition.put("conditionValues", new ArrayList<>(values));
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("joiner", "and");
+        filter.put("conditions", List.of(condition));
+        return filter;
+    }
+
+    private String findUrl(String entityName, int curPage, int pageSize) {
+        return buildUrl(entityName, "find") + "/" + pageSize + "/" + curPage;
+    }
+
+    private RdmRequest<Map<String, Object>> findRequest(Map<String, Object> filter,
+                                                        List<Map<String, String>> sorts) {
         // 构建params
         Map<String, Object> params = new HashMap<>();
         if (filter != null) {
@@ -251,8 +788,7 @@ public class IdmeSdkClient {
         requestBody.put("params", params);
 
         Map<String, Object> enrichedParams = enrichWithUserFields(requestBody);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForList(url, request, elementType);
+        return RdmRequest.of(enrichedParams);
     }
     
     /**
@@ -263,18 +799,8 @@ public class IdmeSdkClient {
     @Deprecated
     public <T> List<T> query(String entityName, QueryRequest queryRequest, 
                              int curPage, int pageSize, Class<T> elementType) {
-        String url = buildUrl(entityName, "query") 
-            + "?curPage=" + curPage + "&pageSize=" + pageSize;
-        
-        // 如果没有查询条件，创建空条件
-        if (queryRequest == null) {
-            queryRequest = new QueryRequest();
-            queryRequest.setCondition(new HashMap<>());
-        }
-        
-        Map<String, Object> enrichedParams = enrichWithUserFields(queryRequest);
-        RdmRequest<Map<String, Object>> request = RdmRequest.of(enrichedParams);
-        return executeRequestForList(url, request, elementType);
+        return executeRequestForList(pageUrl(entityName, "query", curPage, pageSize),
+                queryRequest(queryRequest), elementType);
     }
     
     /**
@@ -352,191 +878,602 @@ public class IdmeSdkClient {
      */
     private <T> T executeRequest(String url, RdmRequest<?> request, Class<T> responseType) {
         try {
-            String jsonBody = objectMapper.writeValueAsString(request);
-            
-            Request httpRequest = new Request.Builder()
-                .url(url)
-                .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
-                .addHeader("Content-Type", "application/json")
-                .addHeader("X-Auth-Token", "idme-api-token")
-                .build();
-            
-            log.debug("发送请求: {} - {}", url, jsonBody);
-            
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
-                log.debug("收到响应: {} - {}", response.code(), responseBody);
-                
-                // #region agent log
-                try{java.nio.file.Files.write(java.nio.file.Paths.get("/Users/zbj/IdeaProjects/idme/.cursor/debug.log"),("{\"id\":\"log_"+System.currentTimeMillis()+"_1\",\"timestamp\":"+System.currentTimeMillis()+",\"location\":\"IdmeSdkClient.java:152\",\"message\":\"SDK响应状态码\",\"data\":{\"httpCode\":"+response.code()+",\"isSuccessful\":"+response.isSuccessful()+"},\"hypothesisId\":\"A\"}"+System.lineSeparator()).getBytes(),java.nio.file.StandardOpenOption.CREATE,java.nio.file.StandardOpenOption.APPEND);}catch(Exception e){}
-                // #endregion
-                
-                if (!response.isSuccessful()) {
-                    throw new IdmeException("HTTP 请求失败: " + response.code() + " - " + responseBody);
-                }
-                
-                log.info("SDK 原始响应: {}", responseBody);
-                
-                // #region agent log
-                try{java.nio.file.Files.write(java.nio.file.Paths.get("/Users/zbj/IdeaProjects/idme/.cursor/debug.log"),("{\"id\":\"log_"+System.currentTimeMillis()+"_2\",\"timestamp\":"+System.currentTimeMillis()+",\"location\":\"IdmeSdkClient.java:162\",\"message\":\"SDK原始响应内容\",\"data\":{\"responseLength\":"+responseBody.length()+",\"responsePreview\":\""+responseBody.substring(0,Math.min(200,responseBody.length())).replace("\"","\\\"").replace("\n","\\\\n")+"\"},\"hypothesisId\":\"A,B\",\"runId\":\"post-fix\"}"+System.lineSeparator()).getBytes(),java.nio.file.StandardOpenOption.CREATE,java.nio.file.StandardOpenOption.APPEND);}catch(Exception e){}
-                // #endregion
-                
-                // 解析响应
-                if (responseType == Void.class || responseType == void.class) {
-                    return null;
-                }
-                
-                // 首先检查是否是错误响应
-                RdmResponse<T> rdmResponse = objectMapper.readValue(responseBody, 
-                    objectMapper.getTypeFactory().constructParametricType(RdmResponse.class, responseType));
-                
-                // #region agent log
-                try{java.nio.file.Files.write(java.nio.file.Paths.get("/Users/zbj/IdeaProjects/idme/.cursor/debug.log"),("{\"id\":\"log_"+System.currentTimeMillis()+"_3\",\"timestamp\":"+System.currentTimeMillis()+",\"location\":\"IdmeSdkClient.java:172\",\"message\":\"解析RdmResponse\",\"data\":{\"result\":\""+rdmResponse.getResult()+"\",\"dataIsNull\":"+(rdmResponse.getData()==null)+",\"hasErrors\":"+(rdmResponse.getErrors()!=null&&!rdmResponse.getErrors().isEmpty())+"},\"hypothesisId\":\"A,E\",\"runId\":\"post-fix\"}"+System.lineSeparator()).getBytes(),java.nio.file.StandardOpenOption.CREATE,java.nio.file.StandardOpenOption.APPEND);}catch(Exception e){}
-                // #endregion
-                
-                if (!"SUCCESS".equals(rdmResponse.getResult())) {
-                    String errorMsg = "SDK 调用失败";
-                    if (rdmResponse.getErrors() != null && !rdmResponse.getErrors().isEmpty()) {
-                        errorMsg += ": " + String.join(", ", rdmResponse.getErrors());
-                    }
-                    // 尝试从响应中提取error_msg字段
-                    try {
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = objectMapper.readTree(responseBody);
-                        if (jsonNode.has("error_msg")) {
-                            errorMsg += " - " + jsonNode.get("error_msg").asText();
-                        }
-                    } catch (Exception ignored) {}
-                    
-                    throw new IdmeException(errorMsg);
-                }
-                
-                // #region agent log
-                try{java.nio.file.Files.write(java.nio.file.Paths.get("/Users/zbj/IdeaProjects/idme/.cursor/debug.log"),("{\"id\":\"log_"+System.currentTimeMillis()+"_4\",\"timestamp\":"+System.currentTimeMillis()+",\"location\":\"IdmeSdkClient.java:195\",\"message\":\"返回成功数据\",\"data\":{\"dataIsNull\":"+(rdmResponse.getData()==null)+"},\"hypothesisId\":\"A,B\",\"runId\":\"post-fix\"}"+System.lineSeparator()).getBytes(),java.nio.file.StandardOpenOption.CREATE,java.nio.file.StandardOpenOption.APPEND);}catch(Exception e){}
-                // #endregion
-                
-                return rdmResponse.getData();
-                
-            }
-        } catch (IOException e) {
-            log.error("请求失败: {} - {}", url, e.getMessage(), e);
-            throw new IdmeException("SDK 调用失败: " + e.getMessage(), e);
+            return execute(url, request, "", "SDK 调用失败", body -> parseData(body, responseType));
+        } finally {
+            invalidateReads(url);
         }
     }
-    
+
+    private <T> CompletableFuture<T> executeRequestAsync(String url, RdmRequest<?> request, Class<T> responseType) {
+        return invalidateReadsOnComplete(url,
+                executeAsync(url, request, "", "SDK 调用失败", body -> parseData(body, responseType)));
+    }
+
     /**
      * 执行 HTTP 请求（专门处理create接口返回数组的情况）
      */
     private <T> T executeRequestForCreate(String url, RdmRequest<?> request, Class<T> responseType) {
+        return executeRequestForCreate(url, request, responseType, null);
+    }
+
+    private <T> T executeRequestForCreate(String url, RdmRequest<?> request, Class<T> responseType,
+                                          String idempotencyKey) {
         try {
-            String jsonBody = objectMapper.writeValueAsString(request);
-            
-            Request httpRequest = new Request.Builder()
-                .url(url)
-                .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
-                .addHeader("Content-Type", "application/json")
-                .addHeader("X-Auth-Token", "idme-api-token")
-                .build();
-            
-            log.debug("发送创建请求: {} - {}", url, jsonBody);
-            
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
-                log.debug("收到创建响应: {} - {}", response.code(), responseBody);
-                
-                if (!response.isSuccessful()) {
-                    throw new IdmeException("HTTP 请求失败: " + response.code() + " - " + responseBody);
-                }
-                
-                log.info("SDK 创建原始响应: {}", responseBody);
-                
-                // create接口返回的data是数组，需要解析为List
-                JavaType listType = objectMapper.getTypeFactory()
-                    .constructParametricType(List.class, responseType);
-                JavaType wrapperType = objectMapper.getTypeFactory()
-                    .constructParametricType(RdmResponse.class, listType);
-                
-                RdmResponse<List<T>> rdmResponse = objectMapper.readValue(responseBody, wrapperType);
-                
-                if (!"SUCCESS".equals(rdmResponse.getResult())) {
-                    String errorMsg = "SDK 调用失败";
-                    if (rdmResponse.getErrors() != null && !rdmResponse.getErrors().isEmpty()) {
-                        errorMsg += ": " + String.join(", ", rdmResponse.getErrors());
-                    }
-                    // 尝试从响应中提取error_msg字段
-                    try {
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = objectMapper.readTree(responseBody);
-                        if (jsonNode.has("error_msg")) {
-                            errorMsg += " - " + jsonNode.get("error_msg").asText();
-                        }
-                        if (jsonNode.has("error_code")) {
-                            errorMsg += " (错误码: " + jsonNode.get("error_code").asText() + ")";
-                        }
-                    } catch (Exception ignored) {}
-                    throw new IdmeException(errorMsg);
+            return execute(url, request, "创建", idempotencyKey, "SDK 调用失败",
+                    body -> parseFirst(body, responseType));
+        } finally {
+            invalidateReads(url);
+        }
+    }
+
+    private <T> CompletableFuture<T> executeRequestForCreateAsync(String url, RdmRequest<?> request,
+                                                                  Class<T> responseType) {
+        return executeRequestForCreateAsync(url, request, responseType, null);
+    }
+
+    private <T> CompletableFuture<T> executeRequestForCreateAsync(String url, RdmRequest<?> request,
+                                                                  Class<T> responseType, String idempotencyKey) {
+        return invalidateReadsOnComplete(url, executeAsync(url, request, "创建", idempotencyKey, "SDK 调用失败",
+                body -> parseFirst(body, responseType)));
+    }
+
+    /**
+     * 执行 get 请求（data 为数组取第一个元素；相同的并发请求合并）
+     */
+    private <T> T executeRequestForGet(String url, RdmRequest<?> request, Class<T> responseType) {
+        return coalesce(url, request, responseType,
+                () -> execute(url, request, "查询", "SDK 调用失败", body -> parseFirst(body, responseType)));
+    }
+
+    private <T> CompletableFuture<T> executeRequestForGetAsync(String url, RdmRequest<?> request,
+                                                               Class<T> responseType) {
+        return coalesceAsync(url, request, responseType,
+                () -> executeAsync(url, request, "查询", "SDK 调用失败", body -> parseFirst(body, responseType)));
+    }
+
+    /**
+     * 执行 HTTP 请求（返回列表；相同的并发请求合并）
+     */
+    private <T> List<T> executeRequestForList(String url, RdmRequest<?> request, Class<T> elementType) {
+        return coalesce(url, request, elementType,
+                () -> execute(url, request, "查询", "SDK 查询失败", body -> parseList(body, elementType)));
+    }
+
+    private <T> CompletableFuture<List<T>> executeRequestForListAsync(String url, RdmRequest<?> request,
+                                                                      Class<T> elementType) {
+        return coalesceAsync(url, request, elementType,
+                () -> executeAsync(url, request, "查询", "SDK 查询失败", body -> parseList(body, elementType)));
+    }
+
+    // ========== 读请求合并（single-flight） ==========
+
+    private <R> R coalesce(String url, RdmRequest<?> request, Class<?> resultType, Supplier<R> call) {
+        String key = coalesceKey(url, request, resultType);
+        return key != null ? readCoalescer.execute(key, call) : call.get();
+    }
+
+    private <R> CompletableFuture<R> coalesceAsync(String url, RdmRequest<?> request, Class<?> resultType,
+                                                   Supplier<CompletableFuture<R>> call) {
+        String key = coalesceKey(url, request, resultType);
+        return key != null ? readCoalescer.executeAsync(key, call) : call.get();
+    }
+
+    /**
+     * 合并键：URL + 结果类型 + 按键排序后的请求体；未开启合并时返回 null
+     */
+    private String coalesceKey(String url, RdmRequest<?> request, Class<?> resultType) {
+        if (!Boolean.TRUE.equals(idmeConfig.getCoalesceReads())) {
+            return null;
+        }
+        try {
+            return url + "\n" + resultType.getName() + "\n" + canonicalMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 写操作完成后，同一实体的在途读请求不再被新请求合并，避免读到写之前的结果
+     */
+    private void invalidateReads(String url) {
+        int api = url.indexOf("/dynamic/api/");
+        int end = api >= 0 ? url.indexOf('/', api + "/dynamic/api/".length()) : -1;
+        if (end > 0) {
+            readCoalescer.invalidate(url.substring(0, end + 1));
+        }
+    }
+
+    private <R> CompletableFuture<R> invalidateReadsOnComplete(String url, CompletableFuture<R> future) {
+        // 返回原 future，保留取消即取消底层调用的语义
+        future.whenComplete((result, error) -> invalidateReads(url));
+        return future;
+    }
+
+    private <R> R execute(String url, RdmRequest<?> request, String action, String failure,
+                          ResponseParser<R> parser) {
+        return execute(url, request, action, null, failure, parser);
+    }
+
+    /**
+     * 同步执行：阻塞当前线程直到响应返回，可重试的操作遇到瞬时故障时退避后重试
+     *
+     * @param action         日志中的操作名（""/"创建"/"查询"）
+     * @param idempotencyKey 幂等键（仅创建使用），null 表示不携带
+     * @param failure        网络异常时的错误信息前缀
+     */
+    private <R> R execute(String url, RdmRequest<?> request, String action, String idempotencyKey,
+                          String failure, ResponseParser<R> parser) {
+        Request httpRequest;
+        try {
+            httpRequest = buildHttpRequest(url, request, action, idempotencyKey);
+        } catch (IOException e) {
+            throw new IdmeException(failure + ": " + e.getMessage(), e);
+        }
+
+        retryPolicy.onCall();
+        boolean retryable = isRetryable(action, idempotencyKey);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeOnce(url, httpRequest, action, failure, parser);
+            } catch (TransientIdmeException e) {
+                long delayMs = retryable ? retryPolicy.backoffMs(attempt) : -1;
+                if (delayMs < 0) {
+                    throw e;
                 }
-                
-                List<T> resultList = rdmResponse.getData();
-                if (resultList == null || resultList.isEmpty()) {
-                    throw new IdmeException("创建实体失败，SDK返回空数据");
+                log.warn("{}请求失败，{} ms 后第 {} 次重试: {} - {}", action, delayMs, attempt, url, e.getMessage());
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
                 }
-                
-                return resultList.get(0);  // 返回数组的第一个元素
-                
             }
+        }
+    }
+
+    private <R> R executeOnce(String url, Request httpRequest, String action, String failure,
+                              ResponseParser<R> parser) {
+        // 熔断中或名额用满时在这里直接抛出，不发请求、不等待
+        IdmeCircuitBreaker.Permit circuit = circuitBreaker.acquire(circuitKeyOf(url));
+        IdmeConcurrencyLimiter.Permit permit;
+        try {
+            permit = limiterOf(action).acquire();
+        } catch (IdmeUnavailableException e) {
+            circuit.onCancelled();
+            throw e;
+        }
+        boolean recorded = false;
+        try (Response response = httpClient.newCall(httpRequest).execute()) {
+            // 延迟按收到响应头计算，响应体解析耗时不计入
+            permit.onResponse();
+            recordOutcome(circuit, response);
+            recorded = true;
+            return handleResponse(response, action, parser);
         } catch (IOException e) {
-            log.error("创建请求失败: {} - {}", url, e.getMessage(), e);
-            throw new IdmeException("SDK 调用失败: " + e.getMessage(), e);
+            permit.onDropped();
+            if (!recorded) {
+                circuit.onFailure();
+                recorded = true;
+            }
+            log.error("{}请求失败: {} - {}", action, url, e.getMessage(), e);
+            throw ioFailure(failure, e);
+        } finally {
+            permit.release();
+            if (!recorded) {
+                circuit.onCancelled();
+            }
         }
     }
-    
+
     /**
-     * 执行 HTTP 请求（返回列表）
+     * 读操作（action 为"查询"）天然幂等；创建只有携带幂等键时才可重试；更新、删除、检出、检入不重试
      */
-    private <T> List<T> executeRequestForList(String url, RdmRequest<?> request, Class<T> elementType) {
+    private static boolean isRetryable(String action, String idempotencyKey) {
+        return "查询".equals(action) || idempotencyKey != null;
+    }
+
+    /**
+     * 网络异常（连接失败/被重置、超时）是瞬时故障；响应体不是合法JSON说明上游返回了错误内容，重试无益
+     */
+    private static IdmeException ioFailure(String failure, IOException e) {
+        String message = failure + ": " + e.getMessage();
+        return e instanceof JsonProcessingException
+                ? new IdmeException(message, e) : new TransientIdmeException(message, e);
+    }
+
+    /**
+     * 瞬时故障（网络异常、HTTP 5xx），可重试的操作据此退避重试
+     */
+    private static final class TransientIdmeException extends IdmeException {
+        private static final long serialVersionUID = 1L;
+
+        TransientIdmeException(String message) {
+            super(message);
+        }
+
+        TransientIdmeException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * HTTP 5xx 说明上游故障，计入熔断失败；其他状态码（含业务错误）说明上游可用
+     */
+    private static void recordOutcome(IdmeCircuitBreaker.Permit circuit, Response response) {
+        if (response.code() >= 500) {
+            circuit.onFailure();
+        } else {
+            circuit.onSuccess();
+        }
+    }
+
+    /**
+     * 熔断键：实体/操作，如 .../dynamic/api/Unit/find/500/1?x=y -> Unit/find
+     */
+    static String circuitKeyOf(String url) {
+        int api = url.indexOf("/dynamic/api/");
+        String path = api >= 0 ? url.substring(api + "/dynamic/api/".length()) : url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        String[] segments = path.split("/");
+        return segments.length >= 2 ? segments[0] + "/" + segments[1] : path;
+    }
+
+    /**
+     * 读请求（action 为"查询"：get/list/find/query/count）与写请求分属不同舱壁
+     */
+    private IdmeConcurrencyLimiter limiterOf(String action) {
+        return "查询".equals(action) ? readLimiter : writeLimiter;
+    }
+
+    private <R> CompletableFuture<R> executeAsync(String url, RdmRequest<?> request, String action, String failure,
+                                                  ResponseParser<R> parser) {
+        return executeAsync(url, request, action, null, failure, parser);
+    }
+
+    /**
+     * 异步执行：通过 OkHttp enqueue 发送，不占用调用线程
+     * 回调在 OkHttp Dispatcher 线程上完成 future，后续 thenApply 等轻量处理也在该线程执行；
+     * 可重试的操作遇到瞬时故障时在I/O执行器上延迟发起下一次尝试；取消 future 会同时取消当前的底层 HTTP 调用
+     */
+    private <R> CompletableFuture<R> executeAsync(String url, RdmRequest<?> request, String action,
+                                                  String idempotencyKey, String failure, ResponseParser<R> parser) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Request httpRequest;
         try {
-            String jsonBody = objectMapper.writeValueAsString(request);
-            
-            Request httpRequest = new Request.Builder()
-                .url(url)
-                .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
-                .addHeader("Content-Type", "application/json")
-                .addHeader("X-Auth-Token", "idme-api-token")
-                .build();
-            
-            log.debug("发送查询请求: {} - {}", url, jsonBody);
-            
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "";
-                log.debug("收到查询响应: {} - {}", response.code(), responseBody);
-                
-                if (!response.isSuccessful()) {
-                    throw new IdmeException("HTTP 请求失败: " + response.code() + " - " + responseBody);
+            httpRequest = buildHttpRequest(url, request, action, idempotencyKey);
+        } catch (IOException e) {
+            future.completeExceptionally(new IdmeException(failure + ": " + e.getMessage(), e));
+            return future;
+        }
+        retryPolicy.onCall();
+        attemptAsync(future, 1, isRetryable(action, idempotencyKey), url, httpRequest, action, failure, parser);
+        return future;
+    }
+
+    private <R> void attemptAsync(CompletableFuture<R> future, int attempt, boolean retryable, String url,
+                                  Request httpRequest, String action, String failure, ResponseParser<R> parser) {
+        if (future.isDone()) {
+            return;
+        }
+        CompletableFuture<R> current = executeOnceAsync(url, httpRequest, action, failure, parser);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                current.cancel(false);
+            }
+        });
+        current.whenComplete((result, error) -> {
+            if (error == null) {
+                future.complete(result);
+                return;
+            }
+            long delayMs = retryable && error instanceof TransientIdmeException ? retryPolicy.backoffMs(attempt) : -1;
+            if (delayMs < 0) {
+                future.completeExceptionally(error);
+                return;
+            }
+            log.warn("{}请求失败，{} ms 后第 {} 次重试: {} - {}", action, delayMs, attempt, url, error.getMessage());
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, ioExecutor).execute(() ->
+                    attemptAsync(future, attempt + 1, true, url, httpRequest, action, failure, parser));
+        });
+    }
+
+    private <R> CompletableFuture<R> executeOnceAsync(String url, Request httpRequest, String action,
+                                                      String failure, ResponseParser<R> parser) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Call call = httpClient.newCall(httpRequest);
+        IdmeCircuitBreaker.Permit circuit;
+        IdmeConcurrencyLimiter.Permit permit;
+        try {
+            circuit = circuitBreaker.acquire(circuitKeyOf(url));
+        } catch (IdmeUnavailableException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            permit = limiterOf(action).acquire();
+        } catch (IdmeUnavailableException e) {
+            circuit.onCancelled();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // 主动取消不说明上游过载，只归还名额
+                if (call.isCanceled()) {
+                    permit.release();
+                    circuit.onCancelled();
+                } else {
+                    permit.onDropped();
+                    circuit.onFailure();
+                }
+                log.error("{}请求失败: {} - {}", action, url, e.getMessage(), e);
+                future.completeExceptionally(ioFailure(failure, e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                permit.onResponse();
+                recordOutcome(circuit, response);
+                try (response) {
+                    future.complete(handleResponse(response, action, parser));
+                } catch (IOException e) {
+                    log.error("{}请求失败: {} - {}", action, url, e.getMessage(), e);
+                    future.completeExceptionally(ioFailure(failure, e));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
                 }
-                
-                log.info("SDK 查询原始响应: {}", responseBody);
-                
-                // 查询接口返回的data是数组，需要解析为 RdmResponse<List<T>>
-                JavaType listType = objectMapper.getTypeFactory()
-                    .constructParametricType(List.class, elementType);
-                JavaType wrapperType = objectMapper.getTypeFactory()
-                    .constructParametricType(RdmResponse.class, listType);
-                
-                RdmResponse<List<T>> rdmResponse = objectMapper.readValue(responseBody, wrapperType);
-                
-                if (!"SUCCESS".equals(rdmResponse.getResult())) {
-                    String errorMsg = "SDK 查询失败";
-                    if (rdmResponse.getErrors() != null && !rdmResponse.getErrors().isEmpty()) {
-                        errorMsg += ": " + String.join(", ", rdmResponse.getErrors());
+            }
+        });
+        metrics.recordEnqueue(dispatcher.queuedCallsCount());
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private Request buildHttpRequest(String url, RdmRequest<?> request, String action,
+                                     String idempotencyKey) throws IOException {
+        String jsonBody = objectMapper.writeValueAsString(request);
+
+        log.debug("发送{}请求: {} - {}", action, url, jsonBody);
+
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
+            .addHeader("Content-Type", "application/json")
+            .addHeader("X-Auth-Token", "idme-api-token");
+        if (idempotencyKey != null) {
+            builder.addHeader("Idempotency-Key", idempotencyKey);
+        }
+        return builder.build();
+    }
+
+    private <R> R handleResponse(Response response, String action, ResponseParser<R> parser) throws IOException {
+        ResponseBody body = response.body();
+        if (!response.isSuccessful()) {
+            String responseBody = body != null ? body.string() : "";
+            log.debug("收到{}响应: {} - {}", action, response.code(), responseBody);
+            String message = "HTTP 请求失败: " + response.code() + " - " + responseBody;
+            throw response.code() >= 500 ? new TransientIdmeException(message) : new IdmeException(message);
+        }
+        if (body == null) {
+            throw new IdmeException("SDK 响应为空");
+        }
+
+        // 调试时才物化完整响应体用于日志，否则直接从字节流解析
+        if (log.isDebugEnabled()) {
+            String responseBody = body.string();
+            log.debug("收到{}响应: {} - {}", action, response.code(), responseBody);
+            try (JsonParser jsonParser = objectMapper.createParser(responseBody)) {
+                return parser.parse(jsonParser);
+            }
+        }
+        try (JsonParser jsonParser = objectMapper.createParser(body.byteStream())) {
+            return parser.parse(jsonParser);
+        }
+    }
+
+    /**
+     * 解析响应体
+     */
+    @FunctionalInterface
+    private interface ResponseParser<R> {
+        R parse(JsonParser jsonParser) throws IOException;
+    }
+
+    /**
+     * 解析 data 字段
+     */
+    @FunctionalInterface
+    private interface DataReader<R> {
+        R read(JsonParser jsonParser) throws IOException;
+    }
+
+    /**
+     * 解析 RdmResponse<T>，返回 data
+     */
+    private <T> T parseData(JsonParser jsonParser, Class<T> responseType) throws IOException {
+        // 解析响应
+        if (responseType == Void.class || responseType == void.class) {
+            return null;
+        }
+        JavaType dataType = objectMapper.constructType(responseType);
+        return readEnvelope(jsonParser, "SDK 调用失败", p -> objectMapper.readValue(p, dataType));
+    }
+
+    /**
+     * 解析 data 为数组的响应（create/update/get/checkout/checkin），返回第一个元素
+     */
+    private <T> T parseFirst(JsonParser jsonParser, Class<T> responseType) throws IOException {
+        // create接口返回的data是数组，只反序列化第一个元素，其余跳过
+        JavaType elementType = objectMapper.constructType(responseType);
+        List<T> resultList = readEnvelope(jsonParser, "SDK 调用失败", p -> readArray(p, elementType, 1));
+        if (resultList == null || resultList.isEmpty()) {
+            throw new IdmeException("创建实体失败，SDK返回空数据");
+        }
+
+        return resultList.get(0);  // 返回数组的第一个元素
+    }
+
+    /**
+     * 解析列表响应（list/find/query）
+     */
+    private <T> List<T> parseList(JsonParser jsonParser, Class<T> elementType) throws IOException {
+        JavaType type = objectMapper.constructType(elementType);
+        return readEnvelope(jsonParser, "SDK 查询失败", p -> readArray(p, type, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 解析 find 响应中的总行数，data 直接跳过
+     */
+    private Long parseTotal(JsonParser jsonParser) throws IOException {
+        PageInfo pageInfo = new PageInfo();
+        readEnvelope(jsonParser, "SDK 查询失败", p -> {
+            p.skipChildren();
+            return null;
+        }, pageInfo);
+        return pageInfo.totalRows;
+    }
+
+    /**
+     * 单遍流式解析 RdmResponse 外层：{result, data, errors, error_msg, error_code}
+     * data 交给 dataReader 直接从流中反序列化，错误信息在同一遍中收集，不再二次解析
+     *
+     * @param failure 失败时的错误信息前缀
+     */
+    private <R> R readEnvelope(JsonParser jsonParser, String failure, DataReader<R> dataReader) throws IOException {
+        return readEnvelope(jsonParser, failure, dataReader, null);
+    }
+
+    /**
+     * @param pageInfo 非空时同时读取 pageInfo.totalRows（find 接口 isNeedTotal=true 时返回）
+     */
+    private <R> R readEnvelope(JsonParser jsonParser, String failure, DataReader<R> dataReader,
+                               PageInfo pageInfo) throws IOException {
+        if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IdmeException(failure + ": 响应不是JSON对象");
+        }
+        String result = null;
+        R data = null;
+        List<String> errors = new ArrayList<>();
+        String errorMsg = null;
+        String errorCode = null;
+        // data 形状不符（如 FAIL 响应的 data 为对象）先记下，result 不是 SUCCESS 时以错误详情为准
+        IdmeException dataError = null;
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = jsonParser.getCurrentName();
+            JsonToken token = jsonParser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "result" -> result = jsonParser.getValueAsString();
+                case "data" -> {
+                    if (result != null && !"SUCCESS".equals(result)) {
+                        jsonParser.skipChildren();
+                    } else {
+                        try {
+                            data = dataReader.read(jsonParser);
+                        } catch (IdmeException e) {
+                            // readArray 在消费任何记号前抛出，解析器仍停在 data 的起始记号
+                            dataError = e;
+                            jsonParser.skipChildren();
+                        }
                     }
-                    throw new IdmeException(errorMsg);
                 }
-                
-                return rdmResponse.getData();
-                
+                case "errors" -> readErrors(jsonParser, errors);
+                case "error_msg" -> errorMsg = readText(jsonParser);
+                case "error_code" -> errorCode = readText(jsonParser);
+                case "pageInfo" -> readPageInfo(jsonParser, pageInfo);
+                default -> jsonParser.skipChildren();
             }
-        } catch (IOException e) {
-            log.error("查询请求失败: {} - {}", url, e.getMessage(), e);
-            throw new IdmeException("SDK 查询失败: " + e.getMessage(), e);
         }
+
+        if (!"SUCCESS".equals(result)) {
+            String message = failure;
+            if (!errors.isEmpty()) {
+                message += ": " + String.join(", ", errors);
+            }
+            if (errorMsg != null) {
+                message += " - " + errorMsg;
+            }
+            if (errorCode != null) {
+                message += " (错误码: " + errorCode + ")";
+            }
+            throw new IdmeException(message);
+        }
+        if (dataError != null) {
+            throw dataError;
+        }
+        return data;
+    }
+
+    /**
+     * 逐个反序列化数组元素，最多读取 limit 个，其余元素直接跳过不构造对象
+     */
+    private <T> List<T> readArray(JsonParser jsonParser, JavaType elementType, int limit) throws IOException {
+        if (jsonParser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IdmeException("SDK 响应 data 不是数组: " + jsonParser.currentToken());
+        }
+        List<T> result = new ArrayList<>();
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+            if (result.size() < limit) {
+                result.add(objectMapper.readValue(jsonParser, elementType));
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void readPageInfo(JsonParser jsonParser, PageInfo pageInfo) throws IOException {
+        if (pageInfo == null || jsonParser.currentToken() != JsonToken.START_OBJECT) {
+            jsonParser.skipChildren();
+            return;
+        }
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            if ("totalRows".equals(field) && jsonParser.currentToken().isNumeric()) {
+                pageInfo.totalRows = jsonParser.getLongValue();
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * find 响应中的分页信息
+     */
+    private static final class PageInfo {
+        long totalRows = -1;
+    }
+
+    private static void readErrors(JsonParser jsonParser, List<String> errors) throws IOException {
+        if (jsonParser.currentToken() != JsonToken.START_ARRAY) {
+            errors.add(readText(jsonParser));
+            return;
+        }
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+            errors.add(readText(jsonParser));
+        }
+    }
+
+    /**
+     * 标量取文本；对象/数组保留原始JSON文本
+     */
+    private static String readText(JsonParser jsonParser) throws IOException {
+        if (jsonParser.currentToken().isScalarValue()) {
+            return jsonParser.getValueAsString();
+        }
+        return jsonParser.readValueAsTree().toString();
     }
 }
@@ -1,5 +1,6 @@
 package com.tsukilc.idme.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,14 @@ public class ApiResponse<T> {
     private String result;  // SUCCESS/FAIL
     private T data;
     private List<String> errors;
+
+    // iDME不可用时返回的是最近一次成功读取的结果（可能已过期）；正常响应不输出该字段
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stale;
+
+    public ApiResponse(String result, T data, List<String> errors) {
+        this(result, data, errors, null);
+    }
     
     public static <T> ApiResponse<T> success(T data) {
         return new ApiResponse<>("SUCCESS", data, Collections.emptyList());
@@ -0,0 +1,46 @@
+package com.tsukilc.idme.common;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 过期数据标记：DAO 在 iDME 不可用、改用最近一次成功的读取结果时标记当前HTTP请求，
+ * 由 StaleDataAdvice 在响应中设置 ApiResponse.stale=true
+ */
+public final class StaleData {
+
+    private static final String ATTRIBUTE = StaleData.class.getName();
+
+    private StaleData() {
+    }
+
+    /**
+     * 标记当前请求（非HTTP请求线程上调用时无效果）
+     */
+    public static void mark() {
+        marker().run();
+    }
+
+    /**
+     * 在调用线程上取得当前请求的标记动作，供异步回调在其他线程上执行
+     */
+    public static Runnable marker() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return () -> { };
+        }
+        return () -> {
+            try {
+                attributes.setAttribute(ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            } catch (IllegalStateException e) {
+                // 请求已结束，无需标记
+            }
+        };
+    }
+
+    public static boolean isMarked() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && Boolean.TRUE.equals(attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+}
@@ -10,6 +10,34 @@ public class IdmeConfig {
     private String username;
     private String password;
     private Integer timeout = 30000;
+    private Integer connectTimeout;         // 连接超时（毫秒），未配置时使用 timeout
+    private Integer readTimeout;            // 读超时（毫秒），未配置时使用 timeout
+    private Integer writeTimeout;           // 写超时（毫秒），未配置时使用 timeout
+    private Integer maxRequests = 64;       // 异步调用的最大并发请求数（虚拟线程模式下不限制）
+    private Integer maxRequestsPerHost;     // 单host最大并发请求数，未配置时与 maxRequests 一致
+    private Integer maxIdleConnections = 32; // 连接池保留的最大空闲连接数
+    private Integer keepAliveMs = 300000;   // 空闲连接保活时间（毫秒）
+    private String protocol = "auto";       // auto: HTTPS下协商HTTP/2；http1: 强制HTTP/1.1；h2c: 明文HTTP/2（需服务端支持）
+    private Boolean virtualThreads = false; // 是否使用虚拟线程执行iDME调用（需JDK 21+）
+    private Integer streamPageSize = 500;   // 全量扫描（streamAll/scanAll）每页行数
+    private Integer scanParallelism = 4;    // 并行全量扫描（scanAll）同时拉取的页数
+    private Boolean coalesceReads = true;   // 相同的并发读请求（get/list/find/query）合并为一次上游调用
+    private Integer batchGetSize = 100;     // 按ID批量查询（getByIds）每次find请求携带的ID数
+    private Boolean limiterEnabled = true;  // 是否启用上游并发限制（读写舱壁 + 自适应上限）
+    private Integer limiterMaxReads = 48;   // 读请求（get/list/find/query）并发上限的上界
+    private Integer limiterMaxWrites = 16;  // 写请求（create/update/delete/checkout/checkin）并发上限的上界
+    private Integer limiterMinLimit = 2;    // 自适应收缩后的最小并发上限
+    private Integer limiterLatencyThresholdMs = 3000; // 慢于该值的响应视为上游过载，收缩并发上限
+    private Double limiterBackoffRatio = 0.9; // 过载时并发上限的收缩比例
+    private Boolean circuitBreakerEnabled = true; // 是否按 实体/操作 熔断
+    private Integer circuitFailureThreshold = 5;  // 连续失败多少次后熔断
+    private Integer circuitOpenMs = 30000;  // 熔断持续时间（毫秒），期满后放行一个探测调用
+    private Boolean retryEnabled = true;    // 是否重试瞬时故障（只重试幂等操作和携带幂等键的创建）
+    private Integer retryMaxAttempts = 3;   // 每次调用最多尝试次数（含首次）
+    private Integer retryBaseDelayMs = 100; // 首次重试的退避上限（毫秒），之后逐次翻倍，实际等待取其内随机值
+    private Integer retryMaxDelayMs = 2000; // 退避上限的最大值（毫秒）
+    private Double retryBudgetRatio = 0.1;  // 重试预算：重试量不超过调用量的该比例
+    private Integer retryBudgetBurst = 10;  // 重试预算可累积的令牌数（低流量时允许的突发重试数）
     
     // Getters and Setters
     public String getBaseUrl() {
@@ -43,4 +71,228 @@ public class IdmeConfig {
     public void setTimeout(Integer timeout) {
         this.timeout = timeout;
     }
+
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Integer readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public Integer getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(Integer writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    public Integer getMaxRequests() {
+        return maxRequests;
+    }
+
+    public void setMaxRequests(Integer maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    public Integer getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public void setMaxRequestsPerHost(Integer maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public Integer getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public void setMaxIdleConnections(Integer maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    public Integer getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    public void setKeepAliveMs(Integer keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public Boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(Boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public Integer getStreamPageSize() {
+        return streamPageSize;
+    }
+
+    public void setStreamPageSize(Integer streamPageSize) {
+        this.streamPageSize = streamPageSize;
+    }
+
+    public Integer getScanParallelism() {
+        return scanParallelism;
+    }
+
+    public void setScanParallelism(Integer scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+
+    public Integer getBatchGetSize() {
+        return batchGetSize;
+    }
+
+    public void setBatchGetSize(Integer batchGetSize) {
+        this.batchGetSize = batchGetSize;
+    }
+
+    public Boolean getCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public void setCoalesceReads(Boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    public Boolean getLimiterEnabled() {
+        return limiterEnabled;
+    }
+
+    public void setLimiterEnabled(Boolean limiterEnabled) {
+        this.limiterEnabled = limiterEnabled;
+    }
+
+    public Integer getLimiterMaxReads() {
+        return limiterMaxReads;
+    }
+
+    public void setLimiterMaxReads(Integer limiterMaxReads) {
+        this.limiterMaxReads = limiterMaxReads;
+    }
+
+    public Integer getLimiterMaxWrites() {
+        return limiterMaxWrites;
+    }
+
+    public void setLimiterMaxWrites(Integer limiterMaxWrites) {
+        this.limiterMaxWrites = limiterMaxWrites;
+    }
+
+    public Integer getLimiterMinLimit() {
+        return limiterMinLimit;
+    }
+
+    public void setLimiterMinLimit(Integer limiterMinLimit) {
+        this.limiterMinLimit = limiterMinLimit;
+    }
+
+    public Integer getLimiterLatencyThresholdMs() {
+        return limiterLatencyThresholdMs;
+    }
+
+    public void setLimiterLatencyThresholdMs(Integer limiterLatencyThresholdMs) {
+        this.limiterLatencyThresholdMs = limiterLatencyThresholdMs;
+    }
+
+    public Double getLimiterBackoffRatio() {
+        return limiterBackoffRatio;
+    }
+
+    public void setLimiterBackoffRatio(Double limiterBackoffRatio) {
+        this.limiterBackoffRatio = limiterBackoffRatio;
+    }
+
+    public Boolean getCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public void setCircuitBreakerEnabled(Boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    public Integer getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+
+    public void setCircuitFailureThreshold(Integer circuitFailureThreshold) {
+        this.circuitFailureThreshold = circuitFailureThreshold;
+    }
+
+    public Integer getCircuitOpenMs() {
+        return circuitOpenMs;
+    }
+
+    public void setCircuitOpenMs(Integer circuitOpenMs) {
+        this.circuitOpenMs = circuitOpenMs;
+    }
+
+    public Boolean getRetryEnabled() {
+        return retryEnabled;
+    }
+
+    public void setRetryEnabled(Boolean retryEnabled) {
+        this.retryEnabled = retryEnabled;
+    }
+
+    public Integer getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(Integer retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public Integer getRetryBaseDelayMs() {
+        return retryBaseDelayMs;
+    }
+
+    public void setRetryBaseDelayMs(Integer retryBaseDelayMs) {
+        this.retryBaseDelayMs = retryBaseDelayMs;
+    }
+
+    public Integer getRetryMaxDelayMs() {
+        return retryMaxDelayMs;
+    }
+
+    public void setRetryMaxDelayMs(Integer retryMaxDelayMs) {
+        this.retryMaxDelayMs = retryMaxDelayMs;
+    }
+
+    public Double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(Double retryBudgetRatio) {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public Integer getRetryBudgetBurst() {
+        return retryBudgetBurst;
+    }
+
+    public void setRetryBudgetBurst(Integer retryBudgetBurst) {
+        this.retryBudgetBurst = retryBudgetBurst;
+    }
 }
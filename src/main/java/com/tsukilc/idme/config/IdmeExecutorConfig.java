@@ -0,0 +1,64 @@
+package com.tsukilc.idme.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * iDME 调用执行器配置
+ *
+ * idmeIoExecutor 同时作为 OkHttp Dispatcher 的执行器（异步调用）和服务层并发扇出的执行器。
+ * 开启 idme.sdk.virtual-threads（默认跟随 spring.threads.virtual.enabled）且运行在 JDK 21+ 时
+ * 使用"每任务一个虚拟线程"，否则使用与 OkHttp 默认一致的按需扩展平台线程池。
+ * 项目编译目标为 JDK 17，虚拟线程API通过反射获取，在 JDK 17 上自动回退。
+ */
+@Configuration
+@Slf4j
+public class IdmeExecutorConfig {
+
+    @Bean(name = "idmeIoExecutor", destroyMethod = "shutdown")
+    public ExecutorService idmeIoExecutor(IdmeConfig idmeConfig) {
+        return newIoExecutor(Boolean.TRUE.equals(idmeConfig.getVirtualThreads()));
+    }
+
+    /**
+     * 创建I/O执行器
+     *
+     * @param virtualThreads 是否优先使用虚拟线程
+     */
+    public static ExecutorService newIoExecutor(boolean virtualThreads) {
+        if (virtualThreads) {
+            if (isVirtualThreadSupported()) {
+                try {
+                    Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                    log.info("iDME调用使用虚拟线程执行");
+                    return (ExecutorService) factory.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    log.warn("创建虚拟线程执行器失败，回退到平台线程池: {}", e.getMessage());
+                }
+            } else {
+                log.warn("当前JDK {} 不支持虚拟线程（需要JDK 21+），回退到平台线程池", Runtime.version());
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "idme-io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 运行时JDK是否支持虚拟线程（JDK 21 起正式提供）
+     */
+    public static boolean isVirtualThreadSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+}
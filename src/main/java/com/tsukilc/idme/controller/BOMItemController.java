@@ -5,7 +5,10 @@ import com.tsukilc.idme.common.PageResult;
 import com.tsukilc.idme.dto.BOMItemBatchCreateDTO;
 import com.tsukilc.idme.dto.BOMItemCreateDTO;
 import com.tsukilc.idme.service.BOMItemService;
+import com.tsukilc.idme.vo.BOMDiffVO;
+import com.tsukilc.idme.vo.BOMExplosionVO;
 import com.tsukilc.idme.vo.BOMItemVO;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -64,13 +68,44 @@ public class BOMItemController {
 
     /**
      * 根据父项物料ID查询BOM树（树形查询，竞赛要求）
+     * asOf 指定时只展开该日期有效的BOM行
      */
     @GetMapping("/tree/{parentPartId}")
-    public ApiResponse<List<BOMItemVO>> getTree(@PathVariable String parentPartId) {
-        List<BOMItemVO> tree = bomItemService.getTreeByParent(parentPartId);
+    public ApiResponse<List<BOMItemVO>> getTree(@PathVariable String parentPartId,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        List<BOMItemVO> tree = bomItemService.getTreeByParent(parentPartId, asOf);
         return ApiResponse.success(tree);
     }
 
+    /**
+     * 多层BOM展开：汇总顶层装配下每个物料的总用量
+     */
+    @GetMapping("/explosion/{parentPartId}")
+    public ApiResponse<List<BOMExplosionVO>> explode(@PathVariable String parentPartId,
+                                                     @RequestParam(defaultValue = "false") boolean leafOnly,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        List<BOMExplosionVO> rows = bomItemService.explode(parentPartId, leafOnly, asOf);
+        return ApiResponse.success(rows);
+    }
+
+    /**
+     * BOM比较：返回各层新增、删除和用量变化的行
+     * 比较两个装配时传 leftPartId/rightPartId；比较同一装配的两个日期时只传 leftPartId 和两个日期
+     */
+    @GetMapping("/diff")
+    public ApiResponse<List<BOMDiffVO>> diff(@RequestParam String leftPartId,
+                                             @RequestParam(required = false) String rightPartId,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate leftAsOf,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate rightAsOf) {
+        List<BOMDiffVO> rows = bomItemService.diff(leftPartId, leftAsOf,
+                rightPartId != null ? rightPartId : leftPartId, rightAsOf);
+        return ApiResponse.success(rows);
+    }
+
     /**
      * 查询BOM项详情
      */
@@ -100,10 +135,17 @@ public class BOMItemController {
 
     /**
      * BOM反向查询（某子件被哪些父件使用）- where-used查询
+     * toTop=true 时逐层向上展开到顶层产品（children表示上一层使用关系）
+     * asOf 指定时只返回该日期有效的使用关系
      */
     @GetMapping("/where-used/{partId}")
-    public ApiResponse<List<BOMItemVO>> getWhereUsed(@PathVariable String partId) {
-        List<BOMItemVO> items = bomItemService.getWhereUsed(partId);
+    public ApiResponse<List<BOMItemVO>> getWhereUsed(@PathVariable String partId,
+                                                     @RequestParam(defaultValue = "false") boolean toTop,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        List<BOMItemVO> items = toTop
+                ? bomItemService.getWhereUsedToTop(partId, asOf)
+                : bomItemService.getWhereUsed(partId, asOf);
         return ApiResponse.success(items);
     }
 }
@@ -0,0 +1,51 @@
+package com.tsukilc.idme.controller;
+
+import com.tsukilc.idme.client.IdmeSdkClient;
+import com.tsukilc.idme.common.ApiResponse;
+import com.tsukilc.idme.dao.AbstractIdmeDao;
+import com.tsukilc.idme.vo.EntityCacheStatsVO;
+import com.tsukilc.idme.vo.IdmeClientStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 系统运行状态 Controller
+ */
+@RestController
+@RequestMapping("/api/system")
+@Slf4j
+public class SystemController {
+
+    @Autowired
+    private IdmeSdkClient idmeSdkClient;
+
+    @Autowired
+    private List<AbstractIdmeDao<?, ?>> daos;
+
+    /**
+     * iDME客户端连接池与并发统计
+     */
+    @GetMapping("/idme-client")
+    public ApiResponse<IdmeClientStatsVO> idmeClientStats() {
+        return ApiResponse.success(idmeSdkClient.getStats());
+    }
+
+    /**
+     * 各实体本地缓存统计（仅列出启用了缓存的实体）
+     */
+    @GetMapping("/entity-caches")
+    public ApiResponse<List<EntityCacheStatsVO>> entityCacheStats() {
+        List<EntityCacheStatsVO> stats = daos.stream()
+            .map(AbstractIdmeDao::getCacheStats)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return ApiResponse.success(stats);
+    }
+}
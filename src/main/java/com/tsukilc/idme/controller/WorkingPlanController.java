@@ -5,6 +5,7 @@ import com.tsukilc.idme.common.PageResult;
 import com.tsukilc.idme.dto.PlanProcedureItem;
 import com.tsukilc.idme.dto.WorkingPlanCreateDTO;
 import com.tsukilc.idme.service.WorkingPlanService;
+import com.tsukilc.idme.vo.WorkingPlanRoutingVO;
 import com.tsukilc.idme.vo.WorkingPlanVO;
 
 import java.util.List;
@@ -92,11 +93,22 @@ public class WorkingPlanController {
 
     /**
      * 查询工艺对应所有工序
-     * GET /api/working-plan/{id}/procedures
+     * GET /api/working-plan/{id}/procedures?orderBySequence=true
      */
     @GetMapping("/{id}/procedures")
-    public ApiResponse<List<PlanProcedureItem>> getProcedures(@PathVariable String id) {
-        List<PlanProcedureItem> procedures = workingPlanService.getProcedures(id);
+    public ApiResponse<List<PlanProcedureItem>> getProcedures(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "false") boolean orderBySequence) {
+        List<PlanProcedureItem> procedures = workingPlanService.getProcedures(id, orderBySequence);
         return ApiResponse.success(procedures);
     }
+
+    /**
+     * 查询工艺完整路线（工艺 → 工序 → 设备/物料，设备与物料去重后放在引用表中）
+     * GET /api/working-plan/{id}/routing
+     */
+    @GetMapping("/{id}/routing")
+    public ApiResponse<WorkingPlanRoutingVO> getRouting(@PathVariable String id) {
+        return ApiResponse.success(workingPlanService.getRouting(id));
+    }
 }
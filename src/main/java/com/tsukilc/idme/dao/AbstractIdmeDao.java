@@ -3,12 +3,31 @@ package com.tsukilc.idme.dao;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.tsukilc.idme.client.IdmeSdkClient;
 import com.tsukilc.idme.client.dto.QueryRequest;
+import com.tsukilc.idme.common.StaleData;
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import com.tsukilc.idme.vo.EntityCacheStatsVO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * iDME DAO 抽象实现类
@@ -34,6 +53,95 @@ public abstract class AbstractIdmeDao<T, ID> implements BaseIdmeDao<T, ID> {
      * 子类必须实现
      */
     protected abstract Class<T> getEntityClass();
+
+    /** 实体本地缓存，首次使用时通过 createCache() 创建；null 表示未启用 */
+    private volatile EntityCache<ID, T> cache;
+    /** 列表查询最近一次成功的结果，仅在iDME不可用时兜底（getStale），随实体缓存一起启用 */
+    private volatile EntityCache<String, List<T>> lastGoodLists;
+    private volatile boolean cacheResolved;
+    private volatile Method idGetter;
+
+    /**
+     * 创建 findById 读穿透缓存，默认不启用
+     * 读多写少、且不经 checkout/checkin 产生新版本的实体，子类可覆盖此方法返回带容量与TTL的缓存；
+     * 仅经本DAO的 update/delete 会使缓存失效，其他途径的修改在TTL到期后才可见
+     */
+    protected EntityCache<ID, T> createCache() {
+        return null;
+    }
+
+    protected final EntityCache<ID, T> cache() {
+        if (!cacheResolved) {
+            synchronized (this) {
+                if (!cacheResolved) {
+                    cache = createCache();
+                    if (cache != null) {
+                        // 只经 getStale 读取，TTL 不起作用
+                        lastGoodLists = new EntityCache<>(getEntityName() + "#list", 64, Duration.ofMinutes(1));
+                    }
+                    cacheResolved = true;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 缓存统计，未启用缓存时返回 null
+     */
+    public EntityCacheStatsVO getCacheStats() {
+        EntityCache<ID, T> entityCache = cache();
+        return entityCache != null ? entityCache.getStats() : null;
+    }
+
+    /**
+     * 清空本实体的缓存（如经 checkout/checkin 等非本DAO途径修改后调用）
+     */
+    public void invalidateCache() {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache != null) {
+            entityCache.invalidateAll();
+            lastGoodLists.invalidateAll();
+        }
+    }
+
+    /**
+     * 获取实体ID，用于 update 后使对应缓存失效
+     * 默认读取实体的 id 属性，子类主键属性不同时覆盖
+     */
+    @SuppressWarnings("unchecked")
+    protected ID getEntityId(T entity) {
+        try {
+            if (idGetter == null) {
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(getEntityClass(), "id");
+                idGetter = descriptor != null ? descriptor.getReadMethod() : null;
+            }
+            return idGetter != null ? (ID) idGetter.invoke(entity) : null;
+        } catch (ReflectiveOperationException e) {
+            log.warn("读取 {} 实体ID失败: {}", getEntityName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void evict(T entity) {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache == null) {
+            return;
+        }
+        ID id = entity != null ? getEntityId(entity) : null;
+        if (id != null) {
+            entityCache.invalidate(id);
+        } else {
+            entityCache.invalidateAll();
+        }
+    }
+
+    private void evictId(ID id) {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache != null) {
+            entityCache.invalidate(id);
+        }
+    }
     
     @Override
     public T create(T entity) {
@@ -42,37 +150,263 @@ public abstract class AbstractIdmeDao<T, ID> implements BaseIdmeDao<T, ID> {
         log.info("创建成功: {}", result);
         return result;
     }
+
+    /**
+     * 携带幂等键创建：上游瞬时故障时SDK客户端会用同一个键重试，不会重复创建
+     */
+    public T create(T entity, String idempotencyKey) {
+        log.info("创建 {} 实体（幂等键 {}）: {}", getEntityName(), idempotencyKey, entity);
+        T result = sdkClient.create(getEntityName(), entity, getEntityClass(), idempotencyKey);
+        log.info("创建成功: {}", result);
+        return result;
+    }
     
     @Override
     public T update(T entity) {
         log.info("更新 {} 实体: {}", getEntityName(), entity);
-        T result = sdkClient.update(getEntityName(), entity, getEntityClass());
-        log.info("更新成功: {}", result);
-        return result;
+        // 调用前后各失效一次：调用期间不再返回旧值，调用期间发出的读取也不会把旧值回填；失败时结果未知，同样失效
+        evict(entity);
+        try {
+            T result = sdkClient.update(getEntityName(), entity, getEntityClass());
+            log.info("更新成功: {}", result);
+            return result;
+        } finally {
+            evict(entity);
+        }
     }
     
     @Override
     public void delete(ID id) {
         log.info("删除 {} 实体，ID: {}", getEntityName(), id);
-        sdkClient.delete(getEntityName(), id.toString());
-        log.info("删除成功");
+        evictId(id);
+        try {
+            sdkClient.delete(getEntityName(), id.toString());
+            log.info("删除成功");
+        } finally {
+            evictId(id);
+        }
     }
     
     @Override
     public T findById(ID id) {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache == null) {
+            log.info("查询 {} 实体，ID: {}", getEntityName(), id);
+            T result = sdkClient.get(getEntityName(), id.toString(), getEntityClass());
+            log.info("查询成功: {}", result);
+            return result;
+        }
+        T cached = entityCache.get(id);
+        if (cached != null) {
+            log.debug("查询 {} 实体命中缓存，ID: {}", getEntityName(), id);
+            return cached;
+        }
         log.info("查询 {} 实体，ID: {}", getEntityName(), id);
-        T result = sdkClient.get(getEntityName(), id.toString(), getEntityClass());
+        long stamp = entityCache.stamp();
+        T result = readOrStale("ID " + id, () -> {
+            T fetched = sdkClient.get(getEntityName(), id.toString(), getEntityClass());
+            entityCache.putIfNotInvalidated(id, fetched, stamp);
+            return fetched;
+        }, () -> entityCache.getStale(id));
         log.info("查询成功: {}", result);
         return result;
     }
     
+    /**
+     * 查询实体用于修改后回写（读-改-写）
+     * 不参与读请求合并、不经过缓存，返回调用方独占的实例；findById 的结果可能与并发调用方或缓存共享，不应修改
+     */
+    public T findByIdForUpdate(ID id) {
+        log.info("查询 {} 实体（用于更新），ID: {}", getEntityName(), id);
+        return sdkClient.getForUpdate(getEntityName(), id.toString(), getEntityClass());
+    }
+
+    /**
+     * 按ID批量查询：启用缓存时先取缓存命中的部分，其余ID经find接口in条件分块并发查询
+     *
+     * @return ID -> 实体；不存在的ID不出现在结果中
+     */
+    public Map<ID, T> findByIds(Collection<ID> ids) {
+        Map<ID, T> result = new HashMap<>();
+        Map<String, ID> misses = takeCached(ids, result);
+        if (misses.isEmpty()) {
+            return result;
+        }
+        log.info("批量查询 {} 实体，共 {} 个ID", getEntityName(), misses.size());
+        long stamp = cacheStamp();
+        Map<String, T> fetched = readOrStale(misses.size() + " 个ID",
+                () -> sdkClient.getByIds(getEntityName(), misses.keySet(), getEntityClass(), this::idString),
+                () -> staleOf(misses));
+        mergeFetched(fetched, misses, stamp, result);
+        log.info("批量查询成功，命中 {} 条", result.size());
+        return result;
+    }
+
+    /**
+     * 按ID批量查询（异步）
+     */
+    public CompletableFuture<Map<ID, T>> findByIdsAsync(Collection<ID> ids) {
+        Map<ID, T> result = new HashMap<>();
+        Map<String, ID> misses = takeCached(ids, result);
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        log.info("异步批量查询 {} 实体，共 {} 个ID", getEntityName(), misses.size());
+        long stamp = cacheStamp();
+        return readOrStaleAsync(misses.size() + " 个ID",
+                () -> sdkClient.getByIdsAsync(getEntityName(), misses.keySet(), getEntityClass(), this::idString),
+                () -> staleOf(misses))
+            .thenApply(fetched -> {
+                mergeFetched(fetched, misses, stamp, result);
+                return result;
+            });
+    }
+
+    /**
+     * 缓存命中的放入 result，返回未命中的 ID字符串 -> ID
+     */
+    private Map<String, ID> takeCached(Collection<ID> ids, Map<ID, T> result) {
+        EntityCache<ID, T> entityCache = cache();
+        Map<String, ID> misses = new LinkedHashMap<>();
+        for (ID id : ids) {
+            if (id == null || result.containsKey(id)) {
+                continue;
+            }
+            T cached = entityCache != null ? entityCache.get(id) : null;
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                misses.put(id.toString(), id);
+            }
+        }
+        return misses;
+    }
+
+    private void mergeFetched(Map<String, T> fetched, Map<String, ID> requested, long stamp, Map<ID, T> result) {
+        EntityCache<ID, T> entityCache = cache();
+        fetched.forEach((key, entity) -> {
+            ID id = requested.get(key);
+            if (id == null) {
+                return;
+            }
+            result.put(id, entity);
+            if (entityCache != null) {
+                entityCache.putIfNotInvalidated(id, entity, stamp);
+            }
+        });
+    }
+
+    /**
+     * 全部ID都有最近一次成功的结果时返回 ID字符串 -> 实体，否则返回 null（部分缺失会被当作不存在，不能兜底）
+     */
+    private Map<String, T> staleOf(Map<String, ID> ids) {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache == null) {
+            return null;
+        }
+        Map<String, T> stale = new HashMap<>();
+        for (Map.Entry<String, ID> entry : ids.entrySet()) {
+            T value = entityCache.getStale(entry.getValue());
+            if (value == null) {
+                return null;
+            }
+            stale.put(entry.getKey(), value);
+        }
+        return stale;
+    }
+
+    // ========== iDME不可用时的过期数据兜底（仅启用缓存的DAO） ==========
+
+    /**
+     * 执行读取；iDME不可用（熔断中/并发名额用满）时改用 fallback 提供的最近一次成功结果，并标记当前响应为过期数据
+     * fallback 返回 null（从未成功读取过）时原样抛出
+     */
+    private <R> R readOrStale(String what, Supplier<R> read, Supplier<R> fallback) {
+        try {
+            return read.get();
+        } catch (IdmeUnavailableException e) {
+            R stale = fallback.get();
+            if (stale == null) {
+                throw e;
+            }
+            log.warn("{} 查询 {} 改用最近一次成功的结果: {}", getEntityName(), what, e.getMessage());
+            StaleData.mark();
+            return stale;
+        }
+    }
+
+    private <R> CompletableFuture<R> readOrStaleAsync(String what, Supplier<CompletableFuture<R>> read,
+                                                      Supplier<R> fallback) {
+        // 在调用线程上取得请求上下文，回调可能在其他线程执行
+        Runnable markStale = StaleData.marker();
+        return read.get().exceptionallyCompose(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof IdmeUnavailableException) {
+                R stale = fallback.get();
+                if (stale != null) {
+                    log.warn("{} 查询 {} 改用最近一次成功的结果: {}", getEntityName(), what, cause.getMessage());
+                    markStale.run();
+                    return CompletableFuture.completedFuture(stale);
+                }
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    /**
+     * 列表查询：成功时记录结果，iDME不可用时返回同一查询最近一次成功的结果
+     */
+    private List<T> listOrStale(String key, Supplier<List<T>> read) {
+        cache();
+        EntityCache<String, List<T>> lists = lastGoodLists;
+        if (lists == null) {
+            return read.get();
+        }
+        long stamp = lists.stamp();
+        return readOrStale(key, () -> {
+            List<T> rows = read.get();
+            lists.putIfNotInvalidated(key, rows, stamp);
+            return rows;
+        }, () -> lists.getStale(key));
+    }
+
+    private CompletableFuture<List<T>> listOrStaleAsync(String key, Supplier<CompletableFuture<List<T>>> read) {
+        cache();
+        EntityCache<String, List<T>> lists = lastGoodLists;
+        if (lists == null) {
+            return read.get();
+        }
+        long stamp = lists.stamp();
+        return readOrStaleAsync(key, () -> read.get().thenApply(rows -> {
+            lists.putIfNotInvalidated(key, rows, stamp);
+            return rows;
+        }), () -> lists.getStale(key));
+    }
+
+    private static String listKey(String operation, Map<String, Object> condition, Object... paging) {
+        // 按键排序，相同条件得到相同的键
+        return operation + new TreeMap<>(condition != null ? condition : Map.of()) + Arrays.toString(paging);
+    }
+
+    private long cacheStamp() {
+        EntityCache<ID, T> entityCache = cache();
+        return entityCache != null ? entityCache.stamp() : 0L;
+    }
+
+    private String idString(T entity) {
+        ID id = getEntityId(entity);
+        return id != null ? id.toString() : null;
+    }
+
     @Override
     public List<T> findAll(int pageNum, int pageSize) {
         log.info("分页查询 {} 列表，pageNum: {}, pageSize: {}", getEntityName(), pageNum, pageSize);
         QueryRequest queryRequest = new QueryRequest();
         queryRequest.setCondition(new HashMap<>());
         // 使用list接口，返回完整的基础属性（不需要手动指定字段）
-        List<T> results = sdkClient.list(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass());
+        List<T> results = listOrStale(listKey("findAll", null, pageNum, pageSize),
+                () -> sdkClient.list(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass()));
         log.info("查询成功，共 {} 条", results != null ? results.size() : 0);
         return results;
     }
@@ -84,8 +418,177 @@ public abstract class AbstractIdmeDao<T, ID> implements BaseIdmeDao<T, ID> {
         QueryRequest queryRequest = new QueryRequest();
         queryRequest.setCondition(condition);
         // 使用list接口，返回完整的基础属性
-        List<T> results = sdkClient.list(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass());
+        List<T> results = listOrStale(listKey("findByCondition", condition, pageNum, pageSize),
+                () -> sdkClient.list(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass()));
         log.info("查询成功，共 {} 条", results != null ? results.size() : 0);
         return results;
     }
+
+    // ========== 流式全量扫描：自动翻页、预取下一页，无行数上限 ==========
+
+    /**
+     * 流式遍历全部实体（提前结束时需关闭 Stream）
+     */
+    public Stream<T> streamAll() {
+        return streamAll(new HashMap<>());
+    }
+
+    /**
+     * 按条件流式遍历全部匹配实体（提前结束时需关闭 Stream）
+     */
+    public Stream<T> streamAll(Map<String, Object> condition) {
+        log.info("流式查询 {}，条件: {}", getEntityName(), condition);
+        QueryRequest queryRequest = new QueryRequest();
+        queryRequest.setCondition(condition);
+        return sdkClient.listStream(getEntityName(), queryRequest, null, getEntityClass());
+    }
+
+    /**
+     * 查询全部实体（逐页拉取，不设行数上限）
+     */
+    public List<T> listAll() {
+        return listAll(new HashMap<>());
+    }
+
+    /**
+     * 按条件查询全部匹配实体（逐页拉取，不设行数上限）
+     */
+    public List<T> listAll(Map<String, Object> condition) {
+        List<T> results = listOrStale(listKey("listAll", condition), () -> {
+            try (Stream<T> stream = streamAll(condition)) {
+                return stream.collect(Collectors.toList());
+            }
+        });
+        log.info("查询成功，共 {} 条", results.size());
+        return results;
+    }
+
+    /**
+     * 并行全量扫描：先取总数，再有限并发地同时拉取各页（适合树构建、缓存重建等一次性取全部数据的场景）
+     */
+    public List<T> scanAll() {
+        return scanAll(new HashMap<>());
+    }
+
+    /**
+     * 按条件并行全量扫描
+     */
+    public List<T> scanAll(Map<String, Object> condition) {
+        log.info("并行扫描 {}，条件: {}", getEntityName(), condition);
+        QueryRequest queryRequest = new QueryRequest();
+        queryRequest.setCondition(condition);
+        return listOrStale(listKey("scanAll", condition), () ->
+                sdkClient.listAllParallel(getEntityName(), queryRequest, toFindFilter(condition), getEntityClass()));
+    }
+
+    /**
+     * 按字段取值集合查询全部匹配实体（find接口 in 条件，取值分块并发、块内自动翻页）
+     * 用于"一批父对象的全部子对象/关联"这类查询，代替逐个父对象调用 listAll
+     *
+     * @param field find接口的条件字段，引用字段用 "xxx.id"
+     */
+    public List<T> findAllIn(String field, Collection<String> values) {
+        log.info("批量查询 {}，{} in {} 个取值", getEntityName(), field, values.size());
+        return listOrStale(inKey(field, values),
+                () -> sdkClient.findAllIn(getEntityName(), field, values, getEntityClass()));
+    }
+
+    /**
+     * list接口的等值条件 -> find接口的filter（and连接）
+     */
+    protected static Map<String, Object> toFindFilter(Map<String, Object> condition) {
+        if (condition == null || condition.isEmpty()) {
+            return null;
+        }
+        List<Map<String, Object>> conditions = new ArrayList<>();
+        condition.forEach((name, value) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("conditionName", name);
+            item.put("operator", "=");
+            item.put("conditionValues", List.of(String.valueOf(value)));
+            conditions.add(item);
+        });
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("joiner", "and");
+        filter.put("conditions", conditions);
+        return filter;
+    }
+
+    // ========== 异步版本：不占用调用线程，便于服务层并发发起相互独立的查询 ==========
+
+    public CompletableFuture<T> createAsync(T entity) {
+        log.info("异步创建 {} 实体: {}", getEntityName(), entity);
+        return sdkClient.createAsync(getEntityName(), entity, getEntityClass());
+    }
+
+    public CompletableFuture<T> createAsync(T entity, String idempotencyKey) {
+        log.info("异步创建 {} 实体（幂等键 {}）: {}", getEntityName(), idempotencyKey, entity);
+        return sdkClient.createAsync(getEntityName(), entity, getEntityClass(), idempotencyKey);
+    }
+
+    public CompletableFuture<T> updateAsync(T entity) {
+        log.info("异步更新 {} 实体: {}", getEntityName(), entity);
+        evict(entity);
+        CompletableFuture<T> future = sdkClient.updateAsync(getEntityName(), entity, getEntityClass());
+        future.whenComplete((result, error) -> evict(entity));
+        return future;
+    }
+
+    public CompletableFuture<Void> deleteAsync(ID id) {
+        log.info("异步删除 {} 实体，ID: {}", getEntityName(), id);
+        evictId(id);
+        CompletableFuture<Void> future = sdkClient.deleteAsync(getEntityName(), id.toString());
+        future.whenComplete((result, error) -> evictId(id));
+        return future;
+    }
+
+    public CompletableFuture<T> findByIdAsync(ID id) {
+        EntityCache<ID, T> entityCache = cache();
+        if (entityCache == null) {
+            log.info("异步查询 {} 实体，ID: {}", getEntityName(), id);
+            return sdkClient.getAsync(getEntityName(), id.toString(), getEntityClass());
+        }
+        T cached = entityCache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        log.info("异步查询 {} 实体，ID: {}", getEntityName(), id);
+        long stamp = entityCache.stamp();
+        return readOrStaleAsync("ID " + id,
+                () -> sdkClient.getAsync(getEntityName(), id.toString(), getEntityClass())
+                    .thenApply(result -> {
+                        entityCache.putIfNotInvalidated(id, result, stamp);
+                        return result;
+                    }),
+                () -> entityCache.getStale(id));
+    }
+
+    public CompletableFuture<List<T>> findAllAsync(int pageNum, int pageSize) {
+        log.info("异步分页查询 {} 列表，pageNum: {}, pageSize: {}", getEntityName(), pageNum, pageSize);
+        QueryRequest queryRequest = new QueryRequest();
+        queryRequest.setCondition(new HashMap<>());
+        return listOrStaleAsync(listKey("findAll", null, pageNum, pageSize),
+                () -> sdkClient.listAsync(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass()));
+    }
+
+    public CompletableFuture<List<T>> findByConditionAsync(Map<String, Object> condition, int pageNum, int pageSize) {
+        log.info("异步条件查询 {}，条件: {}, pageNum: {}, pageSize: {}",
+            getEntityName(), condition, pageNum, pageSize);
+        QueryRequest queryRequest = new QueryRequest();
+        queryRequest.setCondition(condition);
+        return listOrStaleAsync(listKey("findByCondition", condition, pageNum, pageSize),
+                () -> sdkClient.listAsync(getEntityName(), queryRequest, pageNum, pageSize, getEntityClass()));
+    }
+
+    public CompletableFuture<List<T>> findAllInAsync(String field, Collection<String> values) {
+        log.info("异步批量查询 {}，{} in {} 个取值", getEntityName(), field, values.size());
+        return listOrStaleAsync(inKey(field, values),
+                () -> sdkClient.findAllInAsync(getEntityName(), field, values, getEntityClass()));
+    }
+
+    private static String inKey(String field, Collection<String> values) {
+        // 取值去重排序，顺序不同的相同取值集合得到相同的键
+        return listKey("findAllIn", null, field,
+                values.stream().filter(Objects::nonNull).distinct().sorted().collect(Collectors.toList()));
+    }
 }
@@ -3,6 +3,8 @@ package com.tsukilc.idme.dao;
 import com.tsukilc.idme.entity.Department;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 /**
  * 部门 DAO
  */
@@ -18,4 +20,9 @@ public class DepartmentDao extends AbstractIdmeDao<Department, String> {
     protected Class<Department> getEntityClass() {
         return Department.class;
     }
+
+    @Override
+    protected EntityCache<String, Department> createCache() {
+        return new EntityCache<>(getEntityName(), 500, Duration.ofMinutes(10));
+    }
 }
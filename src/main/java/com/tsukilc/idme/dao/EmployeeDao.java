@@ -4,6 +4,7 @@ import com.tsukilc.idme.entity.Employee;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,11 @@ public class EmployeeDao extends AbstractIdmeDao<Employee, String> {
     protected Class<Employee> getEntityClass() {
         return Employee.class;
     }
+
+    @Override
+    protected EntityCache<String, Employee> createCache() {
+        return new EntityCache<>(getEntityName(), 2000, Duration.ofMinutes(10));
+    }
     
     /**
      * 按部门查询员工（使用旧的findByCondition接口）
@@ -0,0 +1,159 @@
+package com.tsukilc.idme.dao;
+
+import com.tsukilc.idme.vo.EntityCacheStatsVO;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 实体本地缓存（按ID，读穿透）
+ * 容量满时淘汰最久未访问的条目，写入超过TTL的条目在读取时视为未命中；
+ * 过期条目保留到被淘汰或失效为止，iDME不可用时作为最近一次成功的结果兜底（getStale）；
+ * 由 AbstractIdmeDao 持有，子类通过 createCache() 决定是否启用及容量/TTL
+ *
+ * @param <K> 主键类型
+ * @param <V> 实体类型
+ */
+public class EntityCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    /** accessOrder=true：按访问顺序排列，表头即最久未访问条目 */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 每次失效递增；读穿透回填前比对，避免失效前发出的远程读取把旧值写回缓存 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+
+    public EntityCache(String name, int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0: " + maxSize);
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("缓存TTL必须大于0: " + ttl);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * 查询缓存，未命中或已过期返回 null
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.writtenAt < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 最近一次成功的结果（不论是否过期），没有则返回 null；只用于上游不可用时的兜底
+     */
+    public V getStale(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            staleServed.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * 当前失效版本，读穿透在发起远程读取前获取，回填时交给 putIfNotInvalidated
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * 回填远程读取结果；若读取期间发生过失效则放弃回填
+     */
+    public void putIfNotInvalidated(K key, V value, long stamp) {
+        if (key == null || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (invalidations.get() != stamp) {
+                return;
+            }
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 使单个条目失效
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public EntityCacheStatsVO getStats() {
+        EntityCacheStatsVO stats = new EntityCacheStatsVO();
+        stats.setEntity(name);
+        stats.setSize(size());
+        stats.setMaxSize(maxSize);
+        stats.setTtlSeconds(Duration.ofNanos(ttlNanos).getSeconds());
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setEvictions(evictions.sum());
+        stats.setStaleServed(staleServed.sum());
+        long total = hitCount + missCount;
+        stats.setHitRate(total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long writtenAt;
+
+        private Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
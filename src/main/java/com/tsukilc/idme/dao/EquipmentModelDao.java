@@ -3,6 +3,8 @@ package com.tsukilc.idme.dao;
 import com.tsukilc.idme.entity.EquipmentModel;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 /**
  * 设备机型 DAO
  */
@@ -18,4 +20,9 @@ public class EquipmentModelDao extends AbstractIdmeDao<EquipmentModel, String> {
     protected Class<EquipmentModel> getEntityClass() {
         return EquipmentModel.class;
     }
+
+    @Override
+    protected EntityCache<String, EquipmentModel> createCache() {
+        return new EntityCache<>(getEntityName(), 1000, Duration.ofMinutes(10));
+    }
 }
@@ -3,6 +3,8 @@ package com.tsukilc.idme.dao;
 import com.tsukilc.idme.entity.Location;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 /**
  * 位置 DAO
  * 支持树形结构查询
@@ -19,4 +21,9 @@ public class LocationDao extends AbstractIdmeDao<Location, String> {
     protected Class<Location> getEntityClass() {
         return Location.class;
     }
+
+    @Override
+    protected EntityCache<String, Location> createCache() {
+        return new EntityCache<>(getEntityName(), 500, Duration.ofMinutes(10));
+    }
 }
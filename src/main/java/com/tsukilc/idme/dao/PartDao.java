@@ -38,4 +38,13 @@ public class PartDao extends AbstractIdmeDao<Part, String> {
         condition.put("latest", true);
         return findByCondition(condition, pageNum, pageSize);
     }
+
+    /**
+     * 流式遍历所有最新版本（提前结束时需关闭 Stream）
+     */
+    public java.util.stream.Stream<Part> streamLatest() {
+        java.util.Map<String, Object> condition = new java.util.HashMap<>();
+        condition.put("latest", true);
+        return streamAll(condition);
+    }
 }
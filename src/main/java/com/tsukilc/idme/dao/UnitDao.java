@@ -3,6 +3,8 @@ package com.tsukilc.idme.dao;
 import com.tsukilc.idme.entity.Unit;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 /**
  * 计量单位 DAO
  */
@@ -18,4 +20,10 @@ public class UnitDao extends AbstractIdmeDao<Unit, String> {
     protected Class<Unit> getEntityClass() {
         return Unit.class;
     }
+
+    // 计量单位几乎不变，按ID查询走本地缓存
+    @Override
+    protected EntityCache<String, Unit> createCache() {
+        return new EntityCache<>(getEntityName(), 500, Duration.ofMinutes(30));
+    }
 }
@@ -3,6 +3,8 @@ package com.tsukilc.idme.dao;
 import com.tsukilc.idme.entity.WorkingProcedure;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 /**
  * 工序 DAO
  */
@@ -18,4 +20,10 @@ public class WorkingProcedureDao extends AbstractIdmeDao<WorkingProcedure, Strin
     protected Class<WorkingProcedure> getEntityClass() {
         return WorkingProcedure.class;
     }
+
+    // 工序被工艺路线反复引用，按ID查询走本地缓存
+    @Override
+    protected EntityCache<String, WorkingProcedure> createCache() {
+        return new EntityCache<>(getEntityName(), 2000, Duration.ofMinutes(5));
+    }
 }
@@ -18,6 +18,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GlobalExceptionHandler {
     
+    /**
+     * iDME 暂不可用（熔断/限流快速失败）：高峰时大量出现，不打印堆栈
+     */
+    @ExceptionHandler(IdmeUnavailableException.class)
+    public ApiResponse<Void> handleIdmeUnavailableException(IdmeUnavailableException e) {
+        log.warn("iDME 暂不可用: {}", e.getMessage());
+        return ApiResponse.fail(e.getMessage());
+    }
+
     /**
      * 业务异常
      */
@@ -0,0 +1,14 @@
+package com.tsukilc.idme.exception;
+
+/**
+ * iDME 暂不可用（熔断中或并发名额用满），请求未发往上游
+ * 读操作可据此改用最近一次成功的结果，写操作直接失败
+ */
+public class IdmeUnavailableException extends IdmeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdmeUnavailableException(String message) {
+        super(message);
+    }
+}
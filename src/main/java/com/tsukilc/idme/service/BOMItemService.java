@@ -7,12 +7,23 @@ import com.tsukilc.idme.dto.BOMItemCreateDTO;
 import com.tsukilc.idme.entity.BOMItem;
 import com.tsukilc.idme.entity.ObjectReference;
 import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.service.bom.BomBatchValidator;
+import com.tsukilc.idme.service.bom.BomComponentLocks;
+import com.tsukilc.idme.service.bom.BomDiff;
+import com.tsukilc.idme.service.bom.BomExplosion;
+import com.tsukilc.idme.service.bom.BomGraph;
+import com.tsukilc.idme.vo.BOMDiffVO;
+import com.tsukilc.idme.vo.BOMExplosionVO;
 import com.tsukilc.idme.vo.BOMItemVO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,159 +35,198 @@ import java.util.stream.Collectors;
 public class BOMItemService {
 
     private final BOMItemDao bomItemDao;
+    private final ReferenceDataService referenceDataService;
 
-    // BOM图缓存：parentPartId -> List<childPartId>
-    private Map<String, List<String>> bomGraph = new HashMap<>();
+    // BOM图缓存：不可变快照，写操作生成新快照后原子发布，读操作无锁
+    private final AtomicReference<BomGraph> graphRef = new AtomicReference<>(BomGraph.empty());
     private volatile boolean cacheInitialized = false;
 
+    // 写操作按涉及物料所在的连通分量串行化
+    private final BomComponentLocks componentLocks = new BomComponentLocks();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
     // 树查询最大深度限制（防止死循环）
     private static final int MAX_TREE_DEPTH = 100;
 
-    public BOMItemService(BOMItemDao bomItemDao) {
+    public BOMItemService(BOMItemDao bomItemDao, ReferenceDataService referenceDataService) {
         this.bomItemDao = bomItemDao;
+        this.referenceDataService = referenceDataService;
     }
 
     /**
-     * 初始化/刷新BOM图缓存
-     * 用于循环检测和性能优化
+     * 初始化/刷新BOM图缓存（全量重建）
+     * 仅用于首次初始化和后台定时对账，写操作只应用增量
+     * 使用显式锁而非synchronized：持锁期间有上游I/O，虚拟线程在synchronized中阻塞会占住载体线程
      */
-    private synchronized void refreshCache() {
-        log.info("刷新BOM图缓存...");
-        Map<String, List<String>> newGraph = new HashMap<>();
-
-        List<BOMItem> allItems = bomItemDao.findAll(1, 10000);
-        for (BOMItem item : allItems) {
-            // 提取 parentPartId
-            String parentId = null;
-            if (item.getTarget() != null) {
-                parentId = item.getTarget().getId();
-            } else if (item.getParentPart() != null) {
-                parentId = item.getParentPart().getId();
-            }
+    private void refreshCache() {
+        refreshLock.lock();
+        try {
+            doRefreshCache();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
-            // 提取 childPartId
-            String childId = null;
-            if (item.getSource() != null) {
-                childId = item.getSource().getId();
-            } else if (item.getChildPart() != null) {
-                childId = item.getChildPart().getId();
+    @SuppressWarnings("try")
+    private void doRefreshCache() {
+        log.info("刷新BOM图缓存...");
+        BomGraph newGraph;
+
+        // 拉取期间暂停所有写操作（读不受影响），避免拉取后发布前的写入丢失
+        try (BomComponentLocks.Guard ignored = componentLocks.acquireAll()) {
+            List<BOMItem> allItems = bomItemDao.scanAll();
+            newGraph = BomGraph.of(allItems);
+            componentLocks.reset(allItems);
+
+            BomGraph oldGraph = graphRef.getAndSet(newGraph);
+            if (cacheInitialized && oldGraph.edgeCount() != newGraph.edgeCount()) {
+                log.warn("BOM图缓存对账发现偏差：缓存 {} 条边，上游 {} 条边",
+                        oldGraph.edgeCount(), newGraph.edgeCount());
             }
+        }
+        this.cacheInitialized = true;
+        log.info("BOM图缓存刷新完成，共 {} 个物料，{} 条边", newGraph.partCount(), newGraph.edgeCount());
+    }
 
-            if (parentId != null && childId != null) {
-                newGraph.computeIfAbsent(parentId, k -> new ArrayList<>()).add(childId);
-            }
+    /**
+     * 确保缓存已初始化（首次写操作时懒加载）
+     */
+    private void ensureCacheInitialized() {
+        if (!cacheInitialized) {
+            refreshCache();
         }
+    }
 
-        this.bomGraph = newGraph;
-        this.cacheInitialized = true;
-        log.info("BOM图缓存刷新完成，共 {} 个父项，{} 条边", newGraph.size(),
-                newGraph.values().stream().mapToInt(List::size).sum());
+    /**
+     * 后台定时对账：全量重建缓存，修正增量维护可能产生的偏差
+     * （如其他实例或直接调用SDK的写操作）
+     */
+    @Scheduled(initialDelayString = "${idme.bom.reconcile-interval-ms:600000}",
+            fixedDelayString = "${idme.bom.reconcile-interval-ms:600000}")
+    public void reconcileCache() {
+        if (!cacheInitialized) {
+            return;  // 尚未使用过，无需对账
+        }
+        try {
+            refreshCache();
+        } catch (Exception e) {
+            log.error("BOM图缓存对账失败: {}", e.getMessage(), e);
+        }
     }
 
     /**
      * 创建BOM项（带循环检测）
      */
+    @SuppressWarnings("try")
     public BOMItemVO create(BOMItemCreateDTO dto) {
+        referenceDataService.units().requireExists(dto.getUom());
+
         // 确保缓存已初始化
-        if (!cacheInitialized) {
-            refreshCache();
-        }
+        ensureCacheInitialized();
 
         // 循环检测：检测添加边(parent -> child)是否会形成环
         String parentPartId = dto.getParentPart();
         String childPartId = dto.getChildPart();
 
-        if (wouldCreateCycle(parentPartId, childPartId)) {
-            throw new IdmeException("不允许创建循环引用：将" + childPartId +
-                    "添加为" + parentPartId + "的子件会形成环");
-        }
+        try (BomComponentLocks.Guard ignored = componentLocks.acquire(List.of(parentPartId, childPartId))) {
+            if (wouldCreateCycle(parentPartId, childPartId)) {
+                throw new IdmeException("不允许创建循环引用：将" + childPartId +
+                        "添加为" + parentPartId + "的子件会形成环");
+            }
 
-        BOMItem entity = convertToEntity(dto);
-        BOMItem created = bomItemDao.create(entity);
+            BOMItem entity = convertToEntity(dto);
+            BOMItem created = bomItemDao.create(entity);
 
-        // 创建后刷新缓存
-        refreshCache();
+            // 创建后增量加边
+            BOMItem line = withEdge(created, entity);
+            graphRef.updateAndGet(graph -> graph.withLine(line));
 
-        return convertToVO(created);
+            return convertToVO(created);
+        }
     }
 
     /**
      * 检测添加边(parent -> child)是否会形成环
-     * 使用DFS + visited集合
+     * 基于可达性索引（动态拓扑序），无需复制整图
      */
     private boolean wouldCreateCycle(String parentPartId, String childPartId) {
-        // 模拟添加新边后的图
-        Map<String, List<String>> tempGraph = new HashMap<>();
-        for (Map.Entry<String, List<String>> entry : bomGraph.entrySet()) {
-            tempGraph.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
-        tempGraph.computeIfAbsent(parentPartId, k -> new ArrayList<>()).add(childPartId);
-
-        // 从childPartId开始DFS，看能否回到parentPartId
-        Set<String> visited = new HashSet<>();
-        return dfsHasCycle(childPartId, parentPartId, tempGraph, visited);
-    }
-
-    /**
-     * DFS检测环路
-     */
-    private boolean dfsHasCycle(String current, String target,
-                                Map<String, List<String>> graph,
-                                Set<String> visited) {
-        if (current.equals(target)) {
-            return true;  // 找到环
-        }
-        if (visited.contains(current)) {
-            return false;
-        }
-        visited.add(current);
-
-        List<String> children = graph.get(current);
-        if (children != null) {
-            for (String child : children) {
-                if (dfsHasCycle(child, target, graph, visited)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return graphRef.get().wouldCreateCycle(parentPartId, childPartId);
     }
 
     /**
      * 批量创建BOM项（竞赛要求，带循环检测）
+     * 先对整个批次做一次成环校验并汇总报告所有成环的行，校验通过后才提交上游；
+     * 提交中途失败时删除本批次已创建的行，避免上游残留半个BOM
      */
+    @SuppressWarnings("try")
     public List<String> batchCreate(BOMItemBatchCreateDTO dto) {
         log.info("批量创建BOM项，数量: {}", dto.getItems().size());
+        // 提交上游前校验计量单位，避免中途失败后回滚
+        dto.getItems().forEach(item -> referenceDataService.units().requireExists(item.getUom()));
 
         // 确保缓存已初始化
-        if (!cacheInitialized) {
-            refreshCache();
-        }
+        ensureCacheInitialized();
 
-        List<String> ids = new ArrayList<>();
+        List<BOMItem> entities = dto.getItems().stream()
+                .map(this::convertToEntity)
+                .collect(Collectors.toList());
 
+        // 锁定本批次涉及的全部连通分量
+        Set<String> partIds = new HashSet<>();
         for (BOMItemCreateDTO itemDto : dto.getItems()) {
-            // 循环检测
-            String parentPartId = itemDto.getParentPart();
-            String childPartId = itemDto.getChildPart();
+            partIds.add(itemDto.getParentPart());
+            partIds.add(itemDto.getChildPart());
+        }
+        try (BomComponentLocks.Guard ignored = componentLocks.acquire(partIds)) {
+            // 整批成环校验：批次边叠加到BOM图上做一次SCC
+            List<Integer> cyclic = BomBatchValidator.findCyclicLines(graphRef.get(), entities);
+            if (!cyclic.isEmpty()) {
+                String edges = cyclic.stream()
+                        .map(i -> "[" + dto.getItems().get(i).getParentPart() + "->"
+                                + dto.getItems().get(i).getChildPart() + "]")
+                        .collect(Collectors.joining("、"));
+                throw new IdmeException("批量创建失败：以下 " + cyclic.size() + " 个BOM项会形成环：" + edges);
+            }
 
-            if (wouldCreateCycle(parentPartId, childPartId)) {
-                throw new IdmeException("批量创建失败：BOM项[" + parentPartId + "->" + childPartId + "]会形成环");
+            List<BOMItem> createdLines = new ArrayList<>();
+            try {
+                for (BOMItem entity : entities) {
+                    BOMItem created = bomItemDao.create(entity);
+                    createdLines.add(withEdge(created, entity));
+                }
+            } catch (RuntimeException e) {
+                rollbackCreated(createdLines);
+                throw new IdmeException("批量创建失败，已回滚 " + createdLines.size() + " 个已创建的BOM项: "
+                        + e.getMessage(), e);
             }
 
-            BOMItem entity = convertToEntity(itemDto);
-            BOMItem created = bomItemDao.create(entity);
-            ids.add(created.getId());
+            // 全部创建成功后一次性发布增量
+            graphRef.updateAndGet(graph -> {
+                BomGraph next = graph;
+                for (BOMItem line : createdLines) {
+                    next = next.withLine(line);
+                }
+                return next;
+            });
 
-            // 立即更新缓存图（为下一个BOM项的循环检测做准备）
-            bomGraph.computeIfAbsent(parentPartId, k -> new ArrayList<>()).add(childPartId);
+            List<String> ids = createdLines.stream().map(BOMItem::getId).collect(Collectors.toList());
+            log.info("批量创建完成，成功创建 {} 个BOM项", ids.size());
+            return ids;
         }
+    }
 
-        // 批量创建完成后，刷新缓存（确保缓存与数据库一致）
-        refreshCache();
-
-        log.info("批量创建完成，成功创建 {} 个BOM项", ids.size());
-        return ids;
+    /**
+     * 删除本批次已创建的BOM项（补偿）
+     * 删除失败只记录日志，残留数据由后台对账同步进缓存
+     */
+    private void rollbackCreated(List<BOMItem> createdLines) {
+        for (BOMItem line : createdLines) {
+            try {
+                bomItemDao.delete(line.getId());
+            } catch (Exception e) {
+                log.error("回滚BOM项 {} 失败: {}", line.getId(), e.getMessage(), e);
+            }
+        }
     }
 
     /**
@@ -201,58 +251,142 @@ public class BOMItemService {
      * 包含循环引用防护和深度限制
      */
     public List<BOMItemVO> getTreeByParent(String parentPartId) {
-        log.info("查询BOM树，父项物料ID: {}", parentPartId);
-        Set<String> visited = new HashSet<>();
-        return getTreeByParent(parentPartId, visited, 0);
+        return getTreeByParent(parentPartId, null);
     }
 
     /**
-     * 递归查询BOM树（内部方法，带循环防护）
+     * 查询指定日期有效的BOM树：展开时即按有效期过滤，失效行下的子树不会被展开
+     *
+     * @param asOf 有效日期，null表示不过滤
      */
-    private List<BOMItemVO> getTreeByParent(String parentPartId, Set<String> visited, int depth) {
-        // 深度限制
-        if (depth >= MAX_TREE_DEPTH) {
-            log.warn("达到最大树深度 {}, 停止递归", MAX_TREE_DEPTH);
-            return Collections.emptyList();
-        }
-
-        // 循环检测
-        if (visited.contains(parentPartId)) {
-            log.warn("检测到循环引用: {}, 停止递归", parentPartId);
-            return Collections.emptyList();
-        }
-        visited.add(parentPartId);
-
-        // 查询所有BOM项
-        List<BOMItem> allItems = bomItemDao.findAll(1, 1000);
-
-        // 查询指定父项的直接子项
-        List<BOMItem> directChildren = allItems.stream()
-                .filter(item -> {
-                    // 优先使用target字段（父件），fallback到parentPart
-                    ObjectReference parentRef = item.getTarget() != null ? item.getTarget() : item.getParentPart();
-                    return parentRef != null && parentPartId.equals(parentRef.getId());
-                })
-                .collect(Collectors.toList());
+    public List<BOMItemVO> getTreeByParent(String parentPartId, LocalDate asOf) {
+        log.info("查询BOM树，父项物料ID: {}, asOf: {}", parentPartId, asOf);
+        ensureCacheInitialized();
+        BomGraph graph = graphRef.get();
+        return expand(parentPartId, partId -> graph.linesOf(partId, asOf), BomGraph::childIdOf);
+    }
 
-        // 构建树形结构
+    /**
+     * 从起始物料沿指定方向迭代展开（正向：父->子；反向：子->父）
+     * 包含循环引用防护和深度限制
+     *
+     * @param startPartId 起始物料ID
+     * @param nextLines   取某物料在该方向上的相邻BOM行
+     * @param nextPartId  取BOM行在该方向上的下一个物料ID
+     */
+    private List<BOMItemVO> expand(String startPartId,
+                                   Function<String, List<BOMItem>> nextLines,
+                                   Function<BOMItem, String> nextPartId) {
         List<BOMItemVO> tree = new ArrayList<>();
-        for (BOMItem child : directChildren) {
-            BOMItemVO vo = convertToVO(child);
-            // 递归查询子项的子项（传递visited副本，避免兄弟节点互相影响）
-            ObjectReference childRef = child.getSource() != null ? child.getSource() : child.getChildPart();
-            if (childRef != null && childRef.getId() != null) {
-                vo.setChildren(getTreeByParent(
-                        childRef.getId(),
-                        new HashSet<>(visited),  // 传递副本
-                        depth + 1));
+        Set<String> onPath = new HashSet<>();  // 当前路径上的物料（循环防护）
+
+        // 显式栈迭代展开：邻接关系直接取自BOM图缓存，不再逐层调用上游
+        Deque<TreeFrame> stack = new ArrayDeque<>();
+        stack.push(new TreeFrame(startPartId, 0, tree, false));
+        while (!stack.isEmpty()) {
+            TreeFrame frame = stack.pop();
+            if (frame.exit) {
+                onPath.remove(frame.partId);
+                continue;
+            }
+
+            // 深度限制
+            if (frame.depth >= MAX_TREE_DEPTH) {
+                log.warn("达到最大树深度 {}, 停止展开", MAX_TREE_DEPTH);
+                continue;
+            }
+
+            // 循环检测
+            if (onPath.contains(frame.partId)) {
+                log.warn("检测到循环引用: {}, 停止展开", frame.partId);
+                continue;
+            }
+            onPath.add(frame.partId);
+            stack.push(new TreeFrame(frame.partId, frame.depth, null, true));
+
+            // 构建当前层，子项逆序入栈以保持原有顺序
+            List<TreeFrame> childFrames = new ArrayList<>();
+            for (BOMItem line : nextLines.apply(frame.partId)) {
+                BOMItemVO vo = convertToVO(line);
+                String nextId = nextPartId.apply(line);
+                if (nextId != null) {
+                    vo.setChildren(new ArrayList<>());
+                    childFrames.add(new TreeFrame(nextId, frame.depth + 1, vo.getChildren(), false));
+                }
+                frame.target.add(vo);
+            }
+            for (int i = childFrames.size() - 1; i >= 0; i--) {
+                stack.push(childFrames.get(i));
             }
-            tree.add(vo);
         }
 
         return tree;
     }
 
+    /**
+     * 多层BOM展开：汇总顶层装配下每个物料的总用量（每个物料+单位一行）
+     * 基于BOM图缓存按拓扑序传播，共用子装配只计算一次
+     *
+     * @param leafOnly 是否只返回叶子物料
+     * @param asOf     有效日期，null表示不过滤
+     */
+    public List<BOMExplosionVO> explode(String parentPartId, boolean leafOnly, LocalDate asOf) {
+        log.info("多层BOM展开，顶层物料ID: {}, leafOnly: {}, asOf: {}", parentPartId, leafOnly, asOf);
+        ensureCacheInitialized();
+
+        BomGraph graph = graphRef.get();
+        List<BOMExplosionVO> result = BomExplosion.explode(parentPartId, partId -> graph.linesOf(partId, asOf))
+                .stream()
+                .filter(row -> !leafOnly || row.isLeaf())
+                .map(this::convertToExplosionVO)
+                .collect(Collectors.toList());
+
+        log.info("展开完成，共 {} 行", result.size());
+        return result;
+    }
+
+    /**
+     * BOM比较：两个装配（如同一物料的两个版本），或同一装配在两个有效日期的BOM
+     * 两侧基于同一个BOM图快照，按子装配哈希跳过一致的子树
+     *
+     * @param leftPartId  基准侧顶层物料ID
+     * @param leftAsOf    基准侧有效日期，null表示不过滤
+     * @param rightPartId 目标侧顶层物料ID
+     * @param rightAsOf   目标侧有效日期，null表示不过滤
+     */
+    public List<BOMDiffVO> diff(String leftPartId, LocalDate leftAsOf, String rightPartId, LocalDate rightAsOf) {
+        log.info("BOM比较，基准: {}@{}, 目标: {}@{}", leftPartId, leftAsOf, rightPartId, rightAsOf);
+        ensureCacheInitialized();
+
+        BomGraph graph = graphRef.get();
+        List<BOMDiffVO> result = BomDiff.diff(
+                        leftPartId, partId -> graph.linesOf(partId, leftAsOf),
+                        rightPartId, partId -> graph.linesOf(partId, rightAsOf))
+                .stream()
+                .map(this::convertToDiffVO)
+                .collect(Collectors.toList());
+
+        log.info("比较完成，共 {} 处差异", result.size());
+        return result;
+    }
+
+    /**
+     * BOM树展开栈帧：exit=true 表示离开该节点（从当前路径移除）
+     */
+    private static final class TreeFrame {
+        final String partId;
+        final int depth;
+        final List<BOMItemVO> target;
+        final boolean exit;
+
+        TreeFrame(String partId, int depth, List<BOMItemVO> target, boolean exit) {
+            this.partId = partId;
+            this.depth = depth;
+            this.target = target;
+            this.exit = exit;
+        }
+    }
+
     /**
      * 根据ID查询BOM项详情
      */
@@ -263,65 +397,139 @@ public class BOMItemService {
 
     /**
      * 更新BOM项（清空系统字段，刷新缓存）
+     * 更新会把边从旧父子件移到新父子件，新旧父子件所在分量都要锁定：只锁新分量时，
+     * 旧分量上的并发写入或全量刷新会把已移走的旧边发布回图中
      */
+    @SuppressWarnings("try")
     public void update(String id, BOMItemCreateDTO dto) {
+        referenceDataService.units().requireExists(dto.getUom());
+        ensureCacheInitialized();
+
         // 循环检测（与创建时相同）
         String parentPartId = dto.getParentPart();
         String childPartId = dto.getChildPart();
 
-        // 更新前先检查是否会形成环
-        if (wouldCreateCycle(parentPartId, childPartId)) {
-            throw new IdmeException("不允许更新为循环引用：将" + childPartId +
-                    "添加为" + parentPartId + "的子件会形成环");
+        while (true) {
+            List<String> oldPartIds = partIdsOf(lineOf(id));
+            Set<String> partIds = new LinkedHashSet<>(oldPartIds);
+            partIds.add(parentPartId);
+            partIds.add(childPartId);
+            try (BomComponentLocks.Guard ignored = componentLocks.acquire(partIds)) {
+                if (movedSince(id, oldPartIds)) {
+                    // 加锁前被并发更新移到了其他父子件下，按新的父子件重新加锁
+                    continue;
+                }
+
+                // 更新前先检查是否会形成环
+                if (wouldCreateCycle(parentPartId, childPartId)) {
+                    throw new IdmeException("不允许更新为循环引用：将" + childPartId +
+                            "添加为" + parentPartId + "的子件会形成环");
+                }
+
+                BOMItem entity = convertToEntity(dto);
+                entity.setId(id);
+
+                // 清空系统字段
+                entity.setCreator(null);
+                entity.setModifier(null);
+                entity.setCreateTime(null);
+                entity.setLastUpdateTime(null);
+                entity.setRdmDeleteFlag(null);
+                entity.setRdmExtensionType(null);
+                entity.setClassName(null);
+                entity.setRdmVersion(null);
+
+                BOMItem updated = bomItemDao.update(entity);
+
+                // 更新后增量移边：从旧父子移到新父子
+                BOMItem line = withEdge(updated, entity);
+                graphRef.updateAndGet(graph -> graph.withLine(line));
+                return;
+            }
         }
+    }
 
-        BOMItem entity = convertToEntity(dto);
-        entity.setId(id);
+    /**
+     * 删除BOM项（增量删边）
+     * 删边不会成环，但仍需锁定父子件所在分量：否则全量刷新拉取期间的删除会被刷新发布的快照覆盖，
+     * 已删除的边留在图中，直到下次对账前都可能误判成环
+     */
+    @SuppressWarnings("try")
+    public void delete(String id) {
+        ensureCacheInitialized();
+
+        while (true) {
+            List<String> partIds = partIdsOf(lineOf(id));
+            try (BomComponentLocks.Guard ignored = partIds.isEmpty()
+                    ? componentLocks.acquireAll() : componentLocks.acquire(partIds)) {
+                if (movedSince(id, partIds)) {
+                    // 加锁前被并发更新移到了其他父子件下，按新的父子件重新加锁
+                    continue;
+                }
+                BOMItem current = graphRef.get().getLine(id);
 
-        // 清空系统字段
-        entity.setCreator(null);
-        entity.setModifier(null);
-        entity.setCreateTime(null);
-        entity.setLastUpdateTime(null);
-        entity.setRdmDeleteFlag(null);
-        entity.setRdmExtensionType(null);
-        entity.setClassName(null);
-        entity.setRdmVersion(null);
+                bomItemDao.delete(id);
 
-        bomItemDao.update(entity);
+                // 删除后增量删边（缓存中不存在则等待后台对账）
+                if (current == null) {
+                    log.warn("BOM图缓存中不存在BOM项 {}，等待后台对账", id);
+                }
+                graphRef.updateAndGet(graph -> graph.withoutLine(id));
+                return;
+            }
+        }
+    }
 
-        // 更新后刷新缓存
-        refreshCache();
+    /**
+     * 缓存中的BOM行；缓存中不存在（如其他实例刚创建）时从上游读取
+     */
+    private BOMItem lineOf(String id) {
+        BOMItem line = graphRef.get().getLine(id);
+        return line != null ? line : bomItemDao.findById(id);
     }
 
     /**
-     * 删除BOM项（刷新缓存）
+     * 加锁前读到的父子件是否已被并发更新改变（调用方须已持有这些父子件的锁）
      */
-    public void delete(String id) {
-        bomItemDao.delete(id);
+    private boolean movedSince(String id, List<String> lockedPartIds) {
+        BOMItem current = graphRef.get().getLine(id);
+        return current != null && !partIdsOf(current).equals(lockedPartIds);
+    }
 
-        // 删除后刷新缓存
-        refreshCache();
+    private static List<String> partIdsOf(BOMItem line) {
+        if (line == null) {
+            return List.of();
+        }
+        List<String> partIds = new ArrayList<>(2);
+        String parentPartId = BomGraph.parentIdOf(line);
+        String childPartId = BomGraph.childIdOf(line);
+        if (parentPartId != null) {
+            partIds.add(parentPartId);
+        }
+        if (childPartId != null) {
+            partIds.add(childPartId);
+        }
+        return partIds;
     }
 
     /**
      * BOM反向查询（where-used查询）
-     * 查询某子件被哪些父件使用
+     * 查询某子件被哪些父件使用（基于反向索引直接查找）
      */
     public List<BOMItemVO> getWhereUsed(String partId) {
-        log.info("BOM反向查询，子件ID: {}", partId);
-
-        // 查询所有BOM项
-        List<BOMItem> all = bomItemDao.findAll(1, 1000);
-
-        // 筛选出子件ID = partId的BOM项
-        List<BOMItem> whereUsedItems = all.stream()
-                .filter(item -> {
-                    // 优先使用source字段（子件），fallback到childPart
-                    ObjectReference childRef = item.getSource() != null ? item.getSource() : item.getChildPart();
-                    return childRef != null && partId.equals(childRef.getId());
-                })
-                .collect(Collectors.toList());
+        return getWhereUsed(partId, null);
+    }
+
+    /**
+     * 查询指定日期有效的直接使用关系
+     *
+     * @param asOf 有效日期，null表示不过滤
+     */
+    public List<BOMItemVO> getWhereUsed(String partId, LocalDate asOf) {
+        log.info("BOM反向查询，子件ID: {}, asOf: {}", partId, asOf);
+        ensureCacheInitialized();
+
+        List<BOMItem> whereUsedItems = graphRef.get().usagesOf(partId, asOf);
 
         log.info("反向查询完成，找到 {} 个父件使用此子件", whereUsedItems.size());
 
@@ -330,6 +538,39 @@ public class BOMItemService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 多层BOM反向查询（where-used到顶层产品）
+     * 沿反向索引逐层向上展开，返回的children表示"上一层使用关系"，
+     * children为空的节点的parentPart即顶层产品
+     *
+     * @param asOf 有效日期，null表示不过滤；失效的使用关系不会继续向上展开
+     */
+    public List<BOMItemVO> getWhereUsedToTop(String partId, LocalDate asOf) {
+        log.info("多层BOM反向查询，子件ID: {}, asOf: {}", partId, asOf);
+        ensureCacheInitialized();
+        BomGraph graph = graphRef.get();
+        return expand(partId, id -> graph.usagesOf(id, asOf), BomGraph::parentIdOf);
+    }
+
+    /**
+     * 取SDK返回的实体作为缓存行；SDK未回传父子引用时用请求实体补齐
+     */
+    private BOMItem withEdge(BOMItem returned, BOMItem requested) {
+        if (returned == null) {
+            return requested;
+        }
+        if (BomGraph.parentIdOf(returned) == null || BomGraph.childIdOf(returned) == null) {
+            returned.setSource(requested.getSource());
+            returned.setTarget(requested.getTarget());
+            returned.setChildPart(requested.getChildPart());
+            returned.setParentPart(requested.getParentPart());
+        }
+        if (returned.getId() == null) {
+            returned.setId(requested.getId());
+        }
+        return returned;
+    }
+
     /**
      * DTO -> Entity（处理双重字段命名 + quantity特殊格式）
      */
@@ -372,6 +613,37 @@ public class BOMItemService {
         return entity;
     }
 
+    /**
+     * 展开行 -> VO
+     */
+    private BOMExplosionVO convertToExplosionVO(BomExplosion.Row row) {
+        BOMExplosionVO vo = new BOMExplosionVO();
+        vo.setPartId(row.getPartId());
+        vo.setPartName(row.getPartName());
+        vo.setQuantity(row.getQuantity().stripTrailingZeros());
+        vo.setUom(row.getUom());
+        vo.setLevel(row.getLevel());
+        vo.setMaxLevel(row.getMaxLevel());
+        vo.setLeaf(row.isLeaf());
+        return vo;
+    }
+
+    /**
+     * 差异行 -> VO
+     */
+    private BOMDiffVO convertToDiffVO(BomDiff.Row row) {
+        BOMDiffVO vo = new BOMDiffVO();
+        vo.setChangeType(row.getChangeType());
+        vo.setLevel(row.getLevel());
+        vo.setParentPartId(row.getParentPartId());
+        vo.setChildPartId(row.getChildPartId());
+        vo.setChildPartName(row.getChildPartName());
+        vo.setUom(row.getUom());
+        vo.setOldQuantity(row.getOldQuantity() != null ? row.getOldQuantity().stripTrailingZeros() : null);
+        vo.setNewQuantity(row.getNewQuantity() != null ? row.getNewQuantity().stripTrailingZeros() : null);
+        return vo;
+    }
+
     /**
      * Entity -> VO（处理quantity和uom的反向转换）
      */
@@ -400,20 +672,12 @@ public class BOMItemService {
         }
 
         // quantity：SDK返回 {value: "1.000000"}，提取value转为BigDecimal
-        if (entity.getQuantity() != null) {
-            if (entity.getQuantity() instanceof Map) {
-                Object value = ((Map<?, ?>) entity.getQuantity()).get("value");
-                if (value != null) {
-                    vo.setQuantity(new BigDecimal(value.toString()));
-                }
-            } else if (entity.getQuantity() instanceof Number) {
-                vo.setQuantity(new BigDecimal(entity.getQuantity().toString()));
-            }
-        }
+        vo.setQuantity(BomGraph.quantityOf(entity));
 
         // uom：ObjectReference -> String ID
         if (entity.getUom() != null) {
             vo.setUom(entity.getUom().getId());
+            vo.setUomDisplayName(ReferenceDataService.displayNameOf(referenceDataService.units(), entity.getUom()));
         }
 
         vo.setFindNumber(entity.getFindNumber());
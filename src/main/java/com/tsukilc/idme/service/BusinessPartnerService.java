@@ -23,6 +23,9 @@ public class BusinessPartnerService {
     
     @Autowired
     private BusinessPartnerDao businessPartnerDao;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
     
     /**
      * 创建往来单位
@@ -35,6 +38,7 @@ public class BusinessPartnerService {
         
         // 调用 DAO 创建
         BusinessPartner created = businessPartnerDao.create(entity);
+        referenceDataService.businessPartners().markStale();
         
         // Entity -> VO
         return convertToVO(created);
@@ -47,7 +51,7 @@ public class BusinessPartnerService {
         log.info("更新往来单位，ID: {}, DTO: {}", id, dto);
         
         // 查询现有实体
-        BusinessPartner existing = businessPartnerDao.findById(id);
+        BusinessPartner existing = businessPartnerDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("往来单位不存在: " + id);
         }
@@ -67,6 +71,7 @@ public class BusinessPartnerService {
         
         // 调用 DAO 更新
         BusinessPartner updated = businessPartnerDao.update(existing);
+        referenceDataService.businessPartners().markStale();
         
         // 返回 VO
         return convertToVO(updated);
@@ -78,6 +83,7 @@ public class BusinessPartnerService {
     public void delete(String id) {
         log.info("删除往来单位，ID: {}", id);
         businessPartnerDao.delete(id);
+        referenceDataService.businessPartners().markStale();
     }
     
     /**
@@ -110,7 +116,7 @@ public class BusinessPartnerService {
         log.info("按类型查询往来单位，类型: {}", partnerType);
         Map<String, Object> condition = new HashMap<>();
         condition.put("partnerType", partnerType);
-        List<BusinessPartner> entities = businessPartnerDao.findByCondition(condition, 1, 1000);
+        List<BusinessPartner> entities = businessPartnerDao.listAll(condition);
         return entities.stream()
             .map(this::convertToVO)
             .collect(Collectors.toList());
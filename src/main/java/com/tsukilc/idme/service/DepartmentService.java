@@ -49,7 +49,7 @@ public class DepartmentService {
         log.info("更新部门，ID: {}, DTO: {}", id, dto);
         
         // 查询现有实体
-        Department existing = departmentDao.findById(id);
+        Department existing = departmentDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("部门不存在: " + id);
         }
@@ -103,8 +103,8 @@ public class DepartmentService {
     public List<DepartmentTreeVO> getTree() {
         log.info("查询部门树");
 
-        // 查询所有部门（分页大小设置较大，假设部门总数不会超过1000）
-        List<Department> allDepartments = departmentDao.findAll(1, 1000);
+        // 查询所有部门（并行拉取各页，不限总数）
+        List<Department> allDepartments = departmentDao.scanAll();
 
         // 转换为TreeVO
         List<DepartmentTreeVO> allVOs = allDepartments.stream()
@@ -50,7 +50,7 @@ public class EmployeeService {
         log.info("更新员工，ID: {}, 数据: {}", id, dto);
         
         // 查询现有实体
-        Employee existing = employeeDao.findById(id);
+        Employee existing = employeeDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("员工不存在: " + id);
         }
@@ -22,6 +22,9 @@ public class EquipmentClassficationService {
     @Autowired
     private EquipmentClassficationDao equipmentClassficationDao;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     /**
      * 创建设备分类
      */
@@ -30,6 +33,7 @@ public class EquipmentClassficationService {
 
         EquipmentClassfication entity = convertToEntity(dto);
         EquipmentClassfication created = equipmentClassficationDao.create(entity);
+        referenceDataService.equipmentClassfications().markStale();
 
         return convertToVO(created);
     }
@@ -40,7 +44,7 @@ public class EquipmentClassficationService {
     public EquipmentClassficationVO update(String id, EquipmentClassficationCreateDTO dto) {
         log.info("更新设备分类，ID: {}, DTO: {}", id, dto);
 
-        EquipmentClassfication existing = equipmentClassficationDao.findById(id);
+        EquipmentClassfication existing = equipmentClassficationDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("设备分类不存在: " + id);
         }
@@ -58,6 +62,7 @@ public class EquipmentClassficationService {
         existing.setClassName(null);
 
         EquipmentClassfication updated = equipmentClassficationDao.update(existing);
+        referenceDataService.equipmentClassfications().markStale();
 
         return convertToVO(updated);
     }
@@ -68,6 +73,7 @@ public class EquipmentClassficationService {
     public void delete(String id) {
         log.info("删除设备分类，ID: {}", id);
         equipmentClassficationDao.delete(id);
+        referenceDataService.equipmentClassfications().markStale();
     }
 
     /**
@@ -19,17 +19,21 @@ import java.util.stream.Collectors;
 public class EquipmentModelService {
 
     private final EquipmentModelDao equipmentModelDao;
+    private final ReferenceDataService referenceDataService;
 
-    public EquipmentModelService(EquipmentModelDao equipmentModelDao) {
+    public EquipmentModelService(EquipmentModelDao equipmentModelDao, ReferenceDataService referenceDataService) {
         this.equipmentModelDao = equipmentModelDao;
+        this.referenceDataService = referenceDataService;
     }
 
     /**
      * 创建设备机型
      */
     public EquipmentModelVO create(EquipmentModelCreateDTO dto) {
+        validateReferences(dto);
         EquipmentModel entity = convertToEntity(dto);
         EquipmentModel created = equipmentModelDao.create(entity);
+        referenceDataService.equipmentModels().markStale();
         return convertToVO(created);
     }
 
@@ -62,9 +66,11 @@ public class EquipmentModelService {
      * 更新设备机型
      */
     public void update(String id, EquipmentModelCreateDTO dto) {
+        validateReferences(dto);
         EquipmentModel entity = convertToEntity(dto);
         entity.setId(id);
         equipmentModelDao.update(entity);
+        referenceDataService.equipmentModels().markStale();
     }
 
     /**
@@ -72,6 +78,15 @@ public class EquipmentModelService {
      */
     public void delete(String id) {
         equipmentModelDao.delete(id);
+        referenceDataService.equipmentModels().markStale();
+    }
+
+    /**
+     * 校验引用的主数据存在（内存主数据表，不调用上游）
+     */
+    private void validateReferences(EquipmentModelCreateDTO dto) {
+        referenceDataService.businessPartners().requireExists(dto.getManufacturer());
+        referenceDataService.equipmentClassfications().requireExists(dto.getCategory());
     }
 
     /**
@@ -113,6 +128,8 @@ public class EquipmentModelService {
         // 处理 manufacturer 引用（只保存ID）
         if (entity.getManufacturer() != null) {
             vo.setManufacturer(entity.getManufacturer().getId());
+            vo.setManufacturerDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.businessPartners(), entity.getManufacturer()));
         }
 
         vo.setBrand(entity.getBrand());
@@ -121,6 +138,8 @@ public class EquipmentModelService {
         // 处理 category 引用（只保存ID）
         if (entity.getCategory() != null) {
             vo.setCategory(entity.getCategory().getId());
+            vo.setCategoryDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.equipmentClassfications(), entity.getCategory()));
         }
 
         vo.setDefaultTechParams(entity.getDefaultTechParams());
@@ -20,15 +20,18 @@ import java.util.stream.Collectors;
 public class EquipmentService {
 
     private final EquipmentDao equipmentDao;
+    private final ReferenceDataService referenceDataService;
 
-    public EquipmentService(EquipmentDao equipmentDao) {
+    public EquipmentService(EquipmentDao equipmentDao, ReferenceDataService referenceDataService) {
         this.equipmentDao = equipmentDao;
+        this.referenceDataService = referenceDataService;
     }
 
     /**
      * 创建设备
      */
     public EquipmentVO create(EquipmentCreateDTO dto) {
+        validateReferences(dto);
         Equipment entity = convertToEntity(dto);
         Equipment created = equipmentDao.create(entity);
         return convertToVO(created);
@@ -63,6 +66,7 @@ public class EquipmentService {
      * 更新设备
      */
     public void update(String id, EquipmentCreateDTO dto) {
+        validateReferences(dto);
         Equipment entity = convertToEntity(dto);
         entity.setId(id);
         equipmentDao.update(entity);
@@ -119,6 +123,16 @@ public class EquipmentService {
         return equipmentDao.findById(id);
     }
 
+    /**
+     * 校验引用的主数据存在（内存主数据表，不调用上游）
+     */
+    private void validateReferences(EquipmentCreateDTO dto) {
+        referenceDataService.businessPartners().requireExists(dto.getManufacturerName());
+        referenceDataService.businessPartners().requireExists(dto.getSupplierName());
+        referenceDataService.equipmentModels().requireExists(dto.getEquipmentModelRef());
+        referenceDataService.equipmentClassfications().requireExists(dto.getCategory());
+    }
+
     /**
      * DTO -> Entity
      */
@@ -196,6 +210,8 @@ public class EquipmentService {
         // 处理 manufacturerName 引用（只保存ID）
         if (entity.getManufacturerName() != null) {
             vo.setManufacturerName(entity.getManufacturerName().getId());
+            vo.setManufacturerDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.businessPartners(), entity.getManufacturerName()));
         }
 
         vo.setBrand(entity.getBrand());
@@ -204,6 +220,8 @@ public class EquipmentService {
         // 处理 supplierName 引用（只保存ID）
         if (entity.getSupplierName() != null) {
             vo.setSupplierName(entity.getSupplierName().getId());
+            vo.setSupplierDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.businessPartners(), entity.getSupplierName()));
         }
 
         vo.setProductionDate(entity.getProductionDate());
@@ -222,6 +240,8 @@ public class EquipmentService {
         // 处理 category 引用（只保存ID）
         if (entity.getCategory() != null) {
             vo.setCategory(entity.getCategory().getId());
+            vo.setCategoryDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.equipmentClassfications(), entity.getCategory()));
         }
 
         vo.setTechParams(entity.getTechParams());
@@ -39,7 +39,7 @@ public class EquipmentSparePartLinkService {
     public EquipmentSparePartLinkVO update(String id, EquipmentSparePartLinkCreateDTO dto) {
         log.info("更新设备-备件关联，ID: {}, DTO: {}", id, dto);
 
-        EquipmentSparePartLink existing = dao.findById(id);
+        EquipmentSparePartLink existing = dao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("设备备件关联不存在: " + id);
         }
@@ -90,7 +90,7 @@ public class EquipmentSparePartLinkService {
         log.info("按设备查询备件关联，equipmentId: {}", equipmentId);
         Map<String, Object> condition = new HashMap<>();
         condition.put("equipment", equipmentId);
-        List<EquipmentSparePartLink> entities = dao.findByCondition(condition, 1, 1000);
+        List<EquipmentSparePartLink> entities = dao.listAll(condition);
         return entities.stream()
             .map(this::convertToVO)
             .collect(Collectors.toList());
@@ -103,7 +103,7 @@ public class EquipmentSparePartLinkService {
         log.info("查询备件使用情况，物料ID: {}", partId);
         Map<String, Object> condition = new HashMap<>();
         condition.put("sparePart", partId);
-        List<EquipmentSparePartLink> entities = dao.findByCondition(condition, 1, 1000);
+        List<EquipmentSparePartLink> entities = dao.listAll(condition);
         return entities.stream()
             .map(this::convertToVO)
             .collect(Collectors.toList());
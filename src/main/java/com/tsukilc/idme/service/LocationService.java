@@ -51,7 +51,7 @@ public class LocationService {
         log.info("更新位置，ID: {}, DTO: {}", id, dto);
         
         // 查询现有实体
-        Location existing = locationDao.findById(id);
+        Location existing = locationDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("位置不存在: " + id);
         }
@@ -120,8 +120,8 @@ public class LocationService {
     public List<LocationTreeVO> getTree() {
         log.info("查询位置树");
         
-        // 查询所有位置（分页大小设置较大，假设位置总数不会超过1000）
-        List<Location> allLocations = locationDao.findAll(1, 1000);
+        // 查询所有位置（并行拉取各页，不限总数）
+        List<Location> allLocations = locationDao.scanAll();
         
         // 转换为VO
         List<LocationTreeVO> allVOs = allLocations.stream()
@@ -22,6 +22,9 @@ public class PartClassficationService {
     @Autowired
     private PartClassficationDao partClassficationDao;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     /**
      * 创建物料分类
      */
@@ -32,6 +35,7 @@ public class PartClassficationService {
         entity.setPartClassName(dto.getPartClassName());
 
         PartClassfication created = partClassficationDao.create(entity);
+        referenceDataService.partClassfications().markStale();
         return convertToVO(created);
     }
 
@@ -41,7 +45,7 @@ public class PartClassficationService {
     public PartClassficationVO update(String id, PartClassficationCreateDTO dto) {
         log.info("更新物料分类，ID: {}, DTO: {}", id, dto);
 
-        PartClassfication existing = partClassficationDao.findById(id);
+        PartClassfication existing = partClassficationDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("物料分类不存在: " + id);
         }
@@ -59,6 +63,7 @@ public class PartClassficationService {
         existing.setClassName(null);
 
         PartClassfication updated = partClassficationDao.update(existing);
+        referenceDataService.partClassfications().markStale();
         return convertToVO(updated);
     }
 
@@ -68,6 +73,7 @@ public class PartClassficationService {
     public void delete(String id) {
         log.info("删除物料分类，ID: {}", id);
         partClassficationDao.delete(id);
+        referenceDataService.partClassfications().markStale();
     }
 
     /**
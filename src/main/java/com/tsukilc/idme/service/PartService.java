@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 物料管理服务（版本对象）
@@ -30,11 +31,15 @@ public class PartService {
     @Autowired
     private IdmeSdkClient sdkClient;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     /**
      * 创建物料（自动创建主对象和第一个版本）
      */
     public PartVO create(PartCreateDTO dto) {
         log.info("创建物料: {}", dto);
+        validateReferences(dto);
 
         Part entity = convertToEntity(dto);
 
@@ -87,8 +92,9 @@ public class PartService {
      */
     public PartVO update(String id, PartCreateDTO dto) {
         log.info("更新物料，ID: {}, 数据: {}", id, dto);
+        validateReferences(dto);
 
-        Part existing = partDao.findById(id);
+        Part existing = partDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("物料不存在: " + id);
         }
@@ -177,13 +183,12 @@ public class PartService {
      */
     public Map<String, Integer> getStockStatistics() {
         log.info("查询物料库存统计");
-        List<Part> entities = partDao.findLatest(1, 1000);  // 只查询最新版本
         Map<String, Integer> stats = new HashMap<>();
 
-        for (Part part : entities) {
-            if (part.getStockQty() != null) {
-                stats.put(part.getId(), part.getStockQty());
-            }
+        // 只查询最新版本，逐页流式统计，不一次性加载全部物料
+        try (Stream<Part> parts = partDao.streamLatest()) {
+            parts.filter(part -> part.getStockQty() != null)
+                    .forEach(part -> stats.put(part.getId(), part.getStockQty()));
         }
 
         log.info("库存统计完成，共 {} 个物料", stats.size());
@@ -210,16 +215,21 @@ public class PartService {
         // 计量单位ID
         if (entity.getUnit() != null) {
             vo.setUnit(entity.getUnit().getId());
+            vo.setUnitDisplayName(ReferenceDataService.displayNameOf(referenceDataService.units(), entity.getUnit()));
         }
 
         // 供应商ID
         if (entity.getSupplierName() != null) {
             vo.setSupplierName(entity.getSupplierName().getId());
+            vo.setSupplierDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.businessPartners(), entity.getSupplierName()));
         }
 
         // 分类ID
         if (entity.getCategory() != null) {
             vo.setCategory(entity.getCategory().getId());
+            vo.setCategoryDisplayName(ReferenceDataService.displayNameOf(
+                    referenceDataService.partClassfications(), entity.getCategory()));
         }
 
         vo.setBusinessVersion(entity.getBusinessVersion());
@@ -233,6 +243,15 @@ public class PartService {
         return vo;
     }
 
+    /**
+     * 校验引用的主数据存在（内存主数据表，不调用上游）
+     */
+    private void validateReferences(PartCreateDTO dto) {
+        referenceDataService.units().requireExists(dto.getUnit());
+        referenceDataService.businessPartners().requireExists(dto.getSupplierName());
+        referenceDataService.partClassfications().requireExists(dto.getCategory());
+    }
+
     /**
      * DTO -> Entity 转换
      */
@@ -49,7 +49,7 @@ public class PartnerContactService {
         log.info("更新联系人，ID: {}, DTO: {}", id, dto);
         
         // 查询现有实体
-        PartnerContact existing = partnerContactDao.findById(id);
+        PartnerContact existing = partnerContactDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("联系人不存在: " + id);
         }
@@ -123,7 +123,7 @@ public class PartnerContactService {
         condition.put("partner", partnerId);
 
         // 执行查询（查询所有，不分页）
-        List<PartnerContact> entities = partnerContactDao.findByCondition(condition, 1, 1000);
+        List<PartnerContact> entities = partnerContactDao.listAll(condition);
 
         return entities.stream()
             .map(this::convertToVO)
@@ -76,7 +76,7 @@ public class PlanProcedureLinkService {
     public List<PlanProcedureLink> getByPlan(String planId) {
         Map<String, Object> condition = new HashMap<>();
         condition.put("plan", planId);
-        return dao.findByCondition(condition, 1, 1000);
+        return dao.listAll(condition);
     }
 
     public void delete(String id) {
@@ -139,7 +139,7 @@ public class PlanProcedureLinkService {
     public void updateSequence(String id, Integer sequenceNo) {
         log.info("更新工序顺序，ID: {}, 新顺序号: {}", id, sequenceNo);
 
-        PlanProcedureLink existing = dao.findById(id);
+        PlanProcedureLink existing = dao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("工序关联不存在: " + id);
         }
@@ -11,9 +11,11 @@ import com.tsukilc.idme.vo.ProcedureEquipmentLinkVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,13 +49,27 @@ public class ProcedureEquipmentLinkService {
     public List<ProcedureEquipmentLink> getByProcedure(String procedureId) {
         Map<String, Object> condition = new HashMap<>();
         condition.put("procedure", procedureId);
-        return dao.findByCondition(condition, 1, 1000);
+        return dao.listAll(condition);
+    }
+
+    /**
+     * 批量查询多个工序的设备关联（一次 in 条件查询，代替逐个工序查询）
+     *
+     * @return 工序ID -> 设备关联列表；没有关联的工序不出现在结果中
+     */
+    public CompletableFuture<Map<String, List<ProcedureEquipmentLinkVO>>> getByProceduresAsync(
+            Collection<String> procedureIds) {
+        return dao.findAllInAsync("procedure.id", procedureIds)
+                .thenApply(links -> links.stream()
+                        .map(this::convertToVO)
+                        .filter(vo -> vo.getProcedure() != null)
+                        .collect(Collectors.groupingBy(ProcedureEquipmentLinkVO::getProcedure)));
     }
 
     public List<ProcedureEquipmentLink> getByEquipment(String equipmentId) {
         Map<String, Object> condition = new HashMap<>();
         condition.put("equipment1", equipmentId);
-        return dao.findByCondition(condition, 1, 1000);
+        return dao.listAll(condition);
     }
 
     public void delete(String id) {
@@ -93,7 +109,7 @@ public class ProcedureEquipmentLinkService {
      * 更新
      */
     public void update(String id, ProcedureEquipmentLinkCreateDTO dto) {
-        ProcedureEquipmentLink existing = dao.findById(id);
+        ProcedureEquipmentLink existing = dao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("工序设备关联不存在: " + id);
         }
@@ -131,7 +147,7 @@ public class ProcedureEquipmentLinkService {
     public void updateActualTime(String id, ProcedureStatusUpdateDTO dto) {
         log.info("更新工序实际时间，ID: {}", id);
 
-        ProcedureEquipmentLink existing = dao.findById(id);
+        ProcedureEquipmentLink existing = dao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("工序设备关联不存在: " + id);
         }
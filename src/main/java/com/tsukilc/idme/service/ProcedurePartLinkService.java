@@ -10,9 +10,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,7 +43,7 @@ public class ProcedurePartLinkService {
     public ProcedurePartLinkVO update(String id, ProcedurePartLinkCreateDTO dto) {
         log.info("更新工序-物料关联，ID: {}, DTO: {}", id, dto);
 
-        ProcedurePartLink existing = dao.findById(id);
+        ProcedurePartLink existing = dao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("工序-物料关联不存在: " + id);
         }
@@ -91,19 +93,33 @@ public class ProcedurePartLinkService {
     public List<ProcedurePartLinkVO> getByProcedure(String procedureId) {
         Map<String, Object> condition = new HashMap<>();
         condition.put("procedure", procedureId);
-        List<ProcedurePartLink> entities = dao.findByCondition(condition, 1, 1000);
+        List<ProcedurePartLink> entities = dao.listAll(condition);
         return entities.stream()
             .map(this::convertToVO)
             .collect(Collectors.toList());
     }
 
+    /**
+     * 批量查询多个工序的物料关联（一次 in 条件查询，代替逐个工序查询）
+     *
+     * @return 工序ID -> 物料关联列表；没有关联的工序不出现在结果中
+     */
+    public CompletableFuture<Map<String, List<ProcedurePartLinkVO>>> getByProceduresAsync(
+            Collection<String> procedureIds) {
+        return dao.findAllInAsync("procedure.id", procedureIds)
+            .thenApply(entities -> entities.stream()
+                .map(this::convertToVO)
+                .filter(vo -> vo.getProcedure() != null)
+                .collect(Collectors.groupingBy(ProcedurePartLinkVO::getProcedure)));
+    }
+
     /**
      * 按物料查询
      */
     public List<ProcedurePartLinkVO> getByPart(String partId) {
         Map<String, Object> condition = new HashMap<>();
         condition.put("part1", partId);
-        List<ProcedurePartLink> entities = dao.findByCondition(condition, 1, 1000);
+        List<ProcedurePartLink> entities = dao.listAll(condition);
         return entities.stream()
             .map(this::convertToVO)
             .collect(Collectors.toList());
@@ -183,12 +199,14 @@ public class ProcedurePartLinkService {
         ProcedurePartLinkVO vo = new ProcedurePartLinkVO();
         vo.setId(entity.getId());
 
-        // 优先从source/target提取ID（SDK标准字段）
-        if (entity.getSource() != null) {
-            vo.setProcedure(entity.getSource().getId());
+        // 优先从source/target提取ID（SDK标准字段），其次取procedure/part1
+        ObjectReference procedureRef = entity.getSource() != null ? entity.getSource() : entity.getProcedure();
+        ObjectReference partRef = entity.getTarget() != null ? entity.getTarget() : entity.getPart1();
+        if (procedureRef != null) {
+            vo.setProcedure(procedureRef.getId());
         }
-        if (entity.getTarget() != null) {
-            vo.setPart(entity.getTarget().getId());
+        if (partRef != null) {
+            vo.setPart(partRef.getId());
         }
 
         vo.setRole(convertEnumField(entity.getRole()));
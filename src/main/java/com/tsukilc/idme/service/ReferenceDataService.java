@@ -0,0 +1,121 @@
+package com.tsukilc.idme.service;
+
+import com.tsukilc.idme.dao.BusinessPartnerDao;
+import com.tsukilc.idme.dao.EquipmentClassficationDao;
+import com.tsukilc.idme.dao.EquipmentModelDao;
+import com.tsukilc.idme.dao.PartClassficationDao;
+import com.tsukilc.idme.dao.UnitDao;
+import com.tsukilc.idme.entity.BusinessPartner;
+import com.tsukilc.idme.entity.EquipmentClassfication;
+import com.tsukilc.idme.entity.EquipmentModel;
+import com.tsukilc.idme.entity.ObjectReference;
+import com.tsukilc.idme.entity.PartClassfication;
+import com.tsukilc.idme.entity.Unit;
+import com.tsukilc.idme.service.reference.ReferenceTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 主数据服务
+ * 计量单位、物料分类、设备分类、设备机型、往来单位数据量小且很少变化，却被几乎每次物料/设备/BOM读取引用；
+ * 启动时全量预加载到内存（按ID、按编码索引），定时刷新，对应服务写入后标记过期。
+ * 其他服务通过本服务解析展示名称、校验引用，不再逐条调用上游。
+ */
+@Service
+@Slf4j
+public class ReferenceDataService {
+
+    private final ReferenceTable<Unit> units;
+    private final ReferenceTable<PartClassfication> partClassfications;
+    private final ReferenceTable<EquipmentClassfication> equipmentClassfications;
+    private final ReferenceTable<EquipmentModel> equipmentModels;
+    private final ReferenceTable<BusinessPartner> businessPartners;
+
+    @Value("${idme.reference.preload:true}")
+    private boolean preload = true;
+
+    public ReferenceDataService(UnitDao unitDao,
+                                PartClassficationDao partClassficationDao,
+                                EquipmentClassficationDao equipmentClassficationDao,
+                                EquipmentModelDao equipmentModelDao,
+                                BusinessPartnerDao businessPartnerDao) {
+        this.units = new ReferenceTable<>("Unit", "计量单位", unitDao::scanAll,
+                Unit::getId, Unit::getUnitName,
+                unit -> unit.getUnitDisplayName() != null ? unit.getUnitDisplayName() : unit.getUnitName());
+        this.partClassfications = new ReferenceTable<>("PartClassfication", "物料分类", partClassficationDao::scanAll,
+                PartClassfication::getId, PartClassfication::getPartClassName, PartClassfication::getPartClassName);
+        this.equipmentClassfications = new ReferenceTable<>("EquipmentClassfication", "设备分类",
+                equipmentClassficationDao::scanAll, EquipmentClassfication::getId,
+                EquipmentClassfication::getEquipmentClassName, EquipmentClassfication::getEquipmentClassName);
+        this.equipmentModels = new ReferenceTable<>("EquipmentModel", "设备机型", equipmentModelDao::scanAll,
+                EquipmentModel::getId, EquipmentModel::getModelCode, EquipmentModel::getModelName);
+        this.businessPartners = new ReferenceTable<>("BusinessPartner", "往来单位", businessPartnerDao::scanAll,
+                BusinessPartner::getId, BusinessPartner::getPartnerCode, BusinessPartner::getPartnerName);
+    }
+
+    public ReferenceTable<Unit> units() {
+        return units;
+    }
+
+    public ReferenceTable<PartClassfication> partClassfications() {
+        return partClassfications;
+    }
+
+    public ReferenceTable<EquipmentClassfication> equipmentClassfications() {
+        return equipmentClassfications;
+    }
+
+    public ReferenceTable<EquipmentModel> equipmentModels() {
+        return equipmentModels;
+    }
+
+    public ReferenceTable<BusinessPartner> businessPartners() {
+        return businessPartners;
+    }
+
+    /**
+     * 引用对象的展示名称：优先取主数据表中的名称，其次取SDK返回的 displayName/name
+     */
+    public static String displayNameOf(ReferenceTable<?> table, ObjectReference ref) {
+        if (ref == null) {
+            return null;
+        }
+        String name = table.nameOf(ref.getId());
+        if (name != null) {
+            return name;
+        }
+        return ref.getDisplayName() != null ? ref.getDisplayName() : ref.getName();
+    }
+
+    /**
+     * 启动完成后预加载；iDME不可用时只记录日志，首次读取时再加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadOnStartup() {
+        if (preload) {
+            refreshAll();
+        }
+    }
+
+    /**
+     * 定时全量刷新，修正其他实例或直接调用SDK的写操作带来的偏差
+     */
+    @Scheduled(initialDelayString = "${idme.reference.refresh-interval-ms:300000}",
+            fixedDelayString = "${idme.reference.refresh-interval-ms:300000}")
+    public void refreshAll() {
+        for (ReferenceTable<?> table : List.of(units, partClassfications, equipmentClassfications,
+                equipmentModels, businessPartners)) {
+            try {
+                table.refresh();
+            } catch (Exception e) {
+                log.error("{} 主数据刷新失败: {}", table.getEntityName(), e.getMessage(), e);
+            }
+        }
+    }
+}
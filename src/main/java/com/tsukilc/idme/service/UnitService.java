@@ -21,6 +21,9 @@ public class UnitService {
     
     @Autowired
     private UnitDao unitDao;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
     
     /**
      * 创建计量单位
@@ -30,6 +33,7 @@ public class UnitService {
         
         Unit entity = convertToEntity(dto);
         Unit created = unitDao.create(entity);
+        referenceDataService.units().markStale();
         
         return convertToVO(created);
     }
@@ -40,7 +44,7 @@ public class UnitService {
     public UnitVO update(String id, UnitCreateDTO dto) {
         log.info("更新计量单位，ID: {}, DTO: {}", id, dto);
         
-        Unit existing = unitDao.findById(id);
+        Unit existing = unitDao.findByIdForUpdate(id);
         if (existing == null) {
             throw new IdmeException("计量单位不存在: " + id);
         }
@@ -58,6 +62,7 @@ public class UnitService {
         existing.setClassName(null);
         
         Unit updated = unitDao.update(existing);
+        referenceDataService.units().markStale();
         return convertToVO(updated);
     }
     
@@ -67,6 +72,7 @@ public class UnitService {
     public void delete(String id) {
         log.info("删除计量单位，ID: {}", id);
         unitDao.delete(id);
+        referenceDataService.units().markStale();
     }
     
     /**
@@ -2,12 +2,20 @@ package com.tsukilc.idme.service;
 
 import com.tsukilc.idme.client.IdmeSdkClient;
 import com.tsukilc.idme.common.PageResult;
+import com.tsukilc.idme.dao.EquipmentDao;
+import com.tsukilc.idme.dao.PartDao;
 import com.tsukilc.idme.dao.WorkingPlanDao;
 import com.tsukilc.idme.dto.PlanProcedureItem;
 import com.tsukilc.idme.dto.WorkingPlanCreateDTO;
+import com.tsukilc.idme.entity.Equipment;
 import com.tsukilc.idme.entity.ObjectReference;
+import com.tsukilc.idme.entity.Part;
 import com.tsukilc.idme.entity.PlanProcedureLink;
 import com.tsukilc.idme.entity.WorkingPlan;
+import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.vo.ProcedureEquipmentLinkVO;
+import com.tsukilc.idme.vo.ProcedurePartLinkVO;
+import com.tsukilc.idme.vo.WorkingPlanRoutingVO;
 import com.tsukilc.idme.vo.WorkingPlanVO;
 import com.tsukilc.idme.vo.WorkingProcedureVO;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +25,16 @@ import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -39,6 +56,21 @@ public class WorkingPlanService {
     @Autowired
     private WorkingProcedureService workingProcedureService;
 
+    @Autowired
+    private ProcedureEquipmentLinkService procedureEquipmentLinkService;
+
+    @Autowired
+    private ProcedurePartLinkService procedurePartLinkService;
+
+    @Autowired
+    private EquipmentDao equipmentDao;
+
+    @Autowired
+    private PartDao partDao;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     public WorkingPlanService(WorkingPlanDao workingPlanDao) {
         this.workingPlanDao = workingPlanDao;
     }
@@ -117,16 +149,103 @@ public class WorkingPlanService {
 
     /**
      * 查询工艺对应所有工序
-     * 返回包含工序详细信息的列表
+     * 返回包含工序详细信息的列表（按上游返回的关联顺序）
      */
     public List<PlanProcedureItem> getProcedures(String planId) {
-        log.info("查询工艺工序列表，planId: {}", planId);
+        return getProcedures(planId, false);
+    }
+
+    /**
+     * 查询工艺对应所有工序
+     * 先取全部关联，再一次批量查询涉及的工序，在内存中拼接，往返次数与工序数无关
+     *
+     * @param orderBySequence 是否按顺序号升序返回（无顺序号的排在最后）
+     */
+    public List<PlanProcedureItem> getProcedures(String planId, boolean orderBySequence) {
+        log.info("查询工艺工序列表，planId: {}, 按顺序号排序: {}", planId, orderBySequence);
 
         // 1. 查询所有关联（PlanProcedureLink）
         List<PlanProcedureLink> links = planProcedureLinkService.getByPlan(planId);
 
-        // 2. 转换为 PlanProcedureItem（包含工序详细信息）
-        List<PlanProcedureItem> items = new ArrayList<>();
+        // 2. 批量查询关联的工序
+        Map<String, WorkingProcedureVO> procedures = workingProcedureService.getByIds(procedureIdsOf(links));
+
+        // 3. 转换为 PlanProcedureItem（包含工序详细信息）
+        List<PlanProcedureItem> items = toProcedureItems(planId, links, procedures, orderBySequence);
+        log.info("查询完成，共 {} 个工序", items.size());
+        return items;
+    }
+
+    /**
+     * 查询工艺完整路线：工艺 → 工序 → 设备/物料，一次请求组装完成
+     * 相互独立的查询并发发出，关联按工序ID集合批量查询，设备与物料去重后批量查询；
+     * 往返轮次固定（工艺/关联 → 工序/设备关联/物料关联 → 设备/物料），与工序数无关
+     */
+    public WorkingPlanRoutingVO getRouting(String planId) {
+        log.info("查询工艺完整路线，planId: {}", planId);
+
+        // 1. 工艺本身与工艺-工序关联相互独立，并发查询
+        CompletableFuture<WorkingPlan> planFuture = workingPlanDao.findByIdAsync(planId);
+        List<PlanProcedureLink> links = planProcedureLinkService.getByPlan(planId);
+        Set<String> procedureIds = procedureIdsOf(links);
+
+        // 2. 工序详情、工序-设备关联、工序-物料关联都只依赖工序ID集合，并发查询；
+        // 3. 每类关联返回后立即批量查询其引用的设备/物料，不等待另一类
+        CompletableFuture<Map<String, WorkingProcedureVO>> proceduresFuture =
+                workingProcedureService.getByIdsAsync(procedureIds);
+        CompletableFuture<Map<String, List<ProcedureEquipmentLinkVO>>> equipmentLinksFuture =
+                procedureEquipmentLinkService.getByProceduresAsync(procedureIds);
+        CompletableFuture<Map<String, List<ProcedurePartLinkVO>>> partLinksFuture =
+                procedurePartLinkService.getByProceduresAsync(procedureIds);
+        CompletableFuture<Map<String, Equipment>> equipmentFuture = equipmentLinksFuture.thenCompose(
+                byProcedure -> equipmentDao.findByIdsAsync(idsOf(byProcedure, ProcedureEquipmentLinkVO::getEquipment1)));
+        CompletableFuture<Map<String, Part>> partsFuture = partLinksFuture.thenCompose(
+                byProcedure -> partDao.findByIdsAsync(idsOf(byProcedure, ProcedurePartLinkVO::getPart)));
+
+        WorkingPlan plan = await(planFuture);
+        if (plan == null) {
+            throw new IdmeException("工艺路线不存在: " + planId);
+        }
+        List<PlanProcedureItem> items = toProcedureItems(planId, links, await(proceduresFuture), true);
+        Map<String, List<ProcedureEquipmentLinkVO>> equipmentLinks = await(equipmentLinksFuture);
+        Map<String, List<ProcedurePartLinkVO>> partLinks = await(partLinksFuture);
+
+        // 4. 组装：工序中只放ID和关联属性，设备/物料摘要进引用表（每个只出现一次）
+        WorkingPlanRoutingVO routing = new WorkingPlanRoutingVO();
+        routing.setPlan(convertToVO(plan));
+        List<WorkingPlanRoutingVO.Step> steps = new ArrayList<>(items.size());
+        for (PlanProcedureItem item : items) {
+            WorkingPlanRoutingVO.Step step = new WorkingPlanRoutingVO.Step();
+            step.setProcedure(item);
+            step.setEquipmentUses(equipmentLinks.getOrDefault(item.getProcedureId(), List.of()).stream()
+                    .map(this::toEquipmentUse)
+                    .collect(Collectors.toList()));
+            step.setPartUses(partLinks.getOrDefault(item.getProcedureId(), List.of()).stream()
+                    .map(this::toPartUse)
+                    .collect(Collectors.toList()));
+            steps.add(step);
+        }
+        routing.setSteps(steps);
+
+        Map<String, WorkingPlanRoutingVO.EquipmentRef> equipment = new LinkedHashMap<>();
+        await(equipmentFuture).forEach((id, entity) -> equipment.put(id, toEquipmentRef(entity)));
+        routing.setEquipment(equipment);
+        Map<String, WorkingPlanRoutingVO.PartRef> parts = new LinkedHashMap<>();
+        await(partsFuture).forEach((id, entity) -> parts.put(id, toPartRef(entity)));
+        routing.setParts(parts);
+
+        log.info("工艺完整路线查询完成，planId: {}，{} 个工序，{} 台设备，{} 种物料",
+                planId, steps.size(), equipment.size(), parts.size());
+        return routing;
+    }
+
+    /**
+     * 关联 + 工序详情 -> PlanProcedureItem
+     */
+    private List<PlanProcedureItem> toProcedureItems(String planId, List<PlanProcedureLink> links,
+                                                     Map<String, WorkingProcedureVO> procedures,
+                                                     boolean orderBySequence) {
+        List<PlanProcedureItem> items = new ArrayList<>(links.size());
         for (PlanProcedureLink link : links) {
             PlanProcedureItem item = new PlanProcedureItem();
 
@@ -143,28 +262,144 @@ public class WorkingPlanService {
             }
 
             // 工序详细信息
-            // link.getProcedure()或link.getTarget()都可以获取工序引用
-            ObjectReference procedureRef = link.getProcedure() != null ? link.getProcedure() : link.getTarget();
+            ObjectReference procedureRef = procedureRefOf(link);
             if (procedureRef != null && procedureRef.getId() != null) {
-                WorkingProcedureVO procedure = workingProcedureService.getById(procedureRef.getId());
-                item.setProcedureId(procedure.getId());
-                item.setProcedureCode(procedure.getProcedureCode());
-                item.setProcedureName(procedure.getProcedureName());
-                item.setSteps(procedure.getSteps());
-                item.setStatus(procedure.getStatus());
-                item.setMainProductionEquipment(procedure.getMainProductionEquipment());
-                item.setMainInspectionEquipment(procedure.getMainInspectionEquipment());
-                item.setOperatorRef(procedure.getOperatorRef());
-                item.setRemarks(procedure.getRemarks());
+                WorkingProcedureVO procedure = procedures.get(procedureRef.getId());
+                if (procedure != null) {
+                    item.setProcedureId(procedure.getId());
+                    item.setProcedureCode(procedure.getProcedureCode());
+                    item.setProcedureName(procedure.getProcedureName());
+                    item.setSteps(procedure.getSteps());
+                    item.setStatus(procedure.getStatus());
+                    item.setMainProductionEquipment(procedure.getMainProductionEquipment());
+                    item.setMainInspectionEquipment(procedure.getMainInspectionEquipment());
+                    item.setOperatorRef(procedure.getOperatorRef());
+                    item.setRemarks(procedure.getRemarks());
+                } else {
+                    item.setProcedureId(procedureRef.getId());
+                    log.warn("工艺 {} 关联的工序不存在: {}", planId, procedureRef.getId());
+                }
             }
 
             items.add(item);
         }
 
-        log.info("查询完成，共 {} 个工序", items.size());
+        if (orderBySequence) {
+            items.sort(Comparator.comparing(PlanProcedureItem::getSequence,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+        }
         return items;
     }
 
+    /**
+     * 关联涉及的工序ID（去重，保持关联顺序）
+     * link.getProcedure()或link.getTarget()都可以获取工序引用
+     */
+    private static Set<String> procedureIdsOf(List<PlanProcedureLink> links) {
+        Set<String> procedureIds = new LinkedHashSet<>();
+        for (PlanProcedureLink link : links) {
+            ObjectReference procedureRef = procedureRefOf(link);
+            if (procedureRef != null && procedureRef.getId() != null) {
+                procedureIds.add(procedureRef.getId());
+            }
+        }
+        return procedureIds;
+    }
+
+    private static ObjectReference procedureRefOf(PlanProcedureLink link) {
+        return link.getProcedure() != null ? link.getProcedure() : link.getTarget();
+    }
+
+    /**
+     * 各工序关联引用的对象ID（跨工序去重）
+     */
+    private static <L> Set<String> idsOf(Map<String, List<L>> linksByProcedure, Function<L, String> idOf) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Collection<L> links : linksByProcedure.values()) {
+            for (L link : links) {
+                String id = idOf.apply(link);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private WorkingPlanRoutingVO.EquipmentUse toEquipmentUse(ProcedureEquipmentLinkVO link) {
+        WorkingPlanRoutingVO.EquipmentUse use = new WorkingPlanRoutingVO.EquipmentUse();
+        use.setLinkId(link.getId());
+        use.setEquipmentId(link.getEquipment1());
+        use.setRole(link.getRole());
+        use.setPlannedStart(link.getPlannedStart());
+        use.setPlannedEnd(link.getPlannedEnd());
+        use.setActualStart(link.getActualStart());
+        use.setActualEnd(link.getActualEnd());
+        use.setRemarks(link.getRemarks());
+        return use;
+    }
+
+    private WorkingPlanRoutingVO.PartUse toPartUse(ProcedurePartLinkVO link) {
+        WorkingPlanRoutingVO.PartUse use = new WorkingPlanRoutingVO.PartUse();
+        use.setLinkId(link.getId());
+        use.setPartId(link.getPart());
+        use.setQuantity(link.getQuantity());
+        use.setUom(link.getUom());
+        use.setUomDisplayName(referenceDataService.units().nameOf(link.getUom()));
+        use.setIsMandatory(link.getIsMandatory());
+        use.setRole(link.getRole());
+        return use;
+    }
+
+    private WorkingPlanRoutingVO.EquipmentRef toEquipmentRef(Equipment entity) {
+        WorkingPlanRoutingVO.EquipmentRef ref = new WorkingPlanRoutingVO.EquipmentRef();
+        ref.setId(entity.getId());
+        ref.setEquipmentCode(entity.getEquipmentCode());
+        ref.setEquipmentName(entity.getEquipmentName());
+        ref.setModelSpec(entity.getModelSpec());
+        ref.setStatus(convertEnumField(entity.getStatus()));
+        ref.setLocationText(entity.getLocationText());
+        return ref;
+    }
+
+    private WorkingPlanRoutingVO.PartRef toPartRef(Part entity) {
+        WorkingPlanRoutingVO.PartRef ref = new WorkingPlanRoutingVO.PartRef();
+        ref.setId(entity.getId());
+        ref.setPartNumber(entity.getPartNumber());
+        ref.setPartName(entity.getPartName());
+        ref.setModelSpec(entity.getModelSpec());
+        ref.setBusinessVersion(entity.getBusinessVersion());
+        if (entity.getUnit() != null) {
+            ref.setUnit(entity.getUnit().getId());
+            ref.setUnitDisplayName(ReferenceDataService.displayNameOf(referenceDataService.units(), entity.getUnit()));
+        }
+        return ref;
+    }
+
+    /**
+     * 转换枚举字段（SDK返回Map结构，提取enName）
+     */
+    private String convertEnumField(Object sdkEnum) {
+        if (sdkEnum == null) {
+            return null;
+        }
+        if (sdkEnum instanceof java.util.Map) {
+            Object enName = ((java.util.Map<?, ?>) sdkEnum).get("enName");
+            if (enName != null) {
+                return enName.toString();
+            }
+        }
+        return sdkEnum.toString();
+    }
+
     /**
      * DTO -> Entity
      */
@@ -13,7 +13,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -80,6 +84,31 @@ public class WorkingProcedureService {
         return convertToVO(entity);
     }
 
+    /**
+     * 按ID批量查询工序（一次批量调用，代替逐个 getById）
+     *
+     * @return 工序ID -> 工序VO；不存在的ID不在结果中
+     */
+    public Map<String, WorkingProcedureVO> getByIds(Collection<String> ids) {
+        Map<String, WorkingProcedure> entities = workingProcedureDao.findByIds(ids);
+        Map<String, WorkingProcedureVO> result = new HashMap<>(entities.size() * 2);
+        entities.forEach((id, entity) -> result.put(id, convertToVO(entity)));
+        return result;
+    }
+
+    /**
+     * 按ID批量查询工序（异步）
+     * 降级标记在调用线程上捕获，上游不可用时返回的陈旧数据同样会标记到当前请求
+     */
+    public CompletableFuture<Map<String, WorkingProcedureVO>> getByIdsAsync(Collection<String> ids) {
+        return workingProcedureDao.findByIdsAsync(ids)
+                .thenApply(entities -> {
+                    Map<String, WorkingProcedureVO> result = new HashMap<>(entities.size() * 2);
+                    entities.forEach((id, entity) -> result.put(id, convertToVO(entity)));
+                    return result;
+                });
+    }
+
     /**
      * 更新工序
      */
@@ -96,7 +125,7 @@ public class WorkingProcedureService {
         log.info("更新工序状态，ID: {}, 新状态: {}", id, dto.getStatus());
         
         // 查询现有工序
-        WorkingProcedure entity = workingProcedureDao.findById(id);
+        WorkingProcedure entity = workingProcedureDao.findByIdForUpdate(id);
         
         // 更新状态相关字段
         entity.setStatus(dto.getStatus());
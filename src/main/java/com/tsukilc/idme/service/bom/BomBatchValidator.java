@@ -0,0 +1,149 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BOM批量导入的整体成环校验
+ *
+ * 把本批次的边叠加到现有BOM图上（不复制原图），做一次强连通分量（Tarjan）计算：
+ * 批次中的边 p -> c 成环，当且仅当 p == c 或 p、c 落在同一个强连通分量中。
+ * 任何经过 p -> c 的环都从 c 出发可达，因此只需遍历从批次子件出发可达的区域。
+ */
+public final class BomBatchValidator {
+
+    private BomBatchValidator() {
+    }
+
+    /**
+     * 找出批次中所有会形成环的BOM行
+     *
+     * @param graph 当前BOM图快照
+     * @param lines 本批次待创建的BOM行（须含父子引用）
+     * @return 成环BOM行在lines中的下标（升序），无环时为空列表
+     */
+    public static List<Integer> findCyclicLines(BomGraph graph, List<BOMItem> lines) {
+        // 1. 批次边叠加层
+        Map<String, List<String>> batchChildren = new HashMap<>();
+        for (BOMItem line : lines) {
+            batchChildren.computeIfAbsent(BomGraph.parentIdOf(line), k -> new ArrayList<>())
+                    .add(BomGraph.childIdOf(line));
+        }
+
+        // 2. 收集从批次子件出发可达的区域，并转为局部整数ID
+        Map<String, Integer> localIds = new HashMap<>();
+        List<int[]> adjacency = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        for (BOMItem line : lines) {
+            String childId = BomGraph.childIdOf(line);
+            if (!localIds.containsKey(childId)) {
+                localIds.put(childId, localIds.size());
+                pending.add(childId);
+            }
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            String partId = pending.get(i);
+            List<String> next = new ArrayList<>(graph.childrenOf(partId));
+            next.addAll(batchChildren.getOrDefault(partId, List.of()));
+            int[] out = new int[next.size()];
+            for (int k = 0; k < out.length; k++) {
+                String childId = next.get(k);
+                Integer id = localIds.get(childId);
+                if (id == null) {
+                    id = localIds.size();
+                    localIds.put(childId, id);
+                    pending.add(childId);
+                }
+                out[k] = id;
+            }
+            adjacency.add(out);
+        }
+
+        // 3. 一次SCC计算
+        int[] component = stronglyConnectedComponents(adjacency);
+
+        // 4. 判定批次中的每条边
+        List<Integer> cyclic = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String parentId = BomGraph.parentIdOf(lines.get(i));
+            String childId = BomGraph.childIdOf(lines.get(i));
+            Integer parent = localIds.get(parentId);
+            if (parentId.equals(childId)
+                    || (parent != null && component[parent] == component[localIds.get(childId)])) {
+                cyclic.add(i);
+            }
+        }
+        return cyclic;
+    }
+
+    /**
+     * 迭代版Tarjan算法（深层BOM不会栈溢出）
+     *
+     * @return 每个节点所属强连通分量编号
+     */
+    private static int[] stronglyConnectedComponents(List<int[]> adjacency) {
+        int n = adjacency.size();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] component = new int[n];
+        int[] edgeCursor = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        Deque<Integer> sccStack = new ArrayDeque<>();
+        Deque<Integer> callStack = new ArrayDeque<>();
+        int nextIndex = 0;
+        int nextComponent = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            callStack.push(root);
+            index[root] = lowLink[root] = nextIndex++;
+            sccStack.push(root);
+            onStack[root] = true;
+
+            while (!callStack.isEmpty()) {
+                int v = callStack.peek();
+                int[] out = adjacency.get(v);
+                if (edgeCursor[v] < out.length) {
+                    int w = out[edgeCursor[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        sccStack.push(w);
+                        onStack[w] = true;
+                        callStack.push(w);
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // v 的所有后继处理完毕
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    int caller = callStack.peek();
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+                }
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = sccStack.pop();
+                        onStack[w] = false;
+                        component[w] = nextComponent;
+                    } while (w != v);
+                    nextComponent++;
+                }
+            }
+        }
+        return component;
+    }
+}
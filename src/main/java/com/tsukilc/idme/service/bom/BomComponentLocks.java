@@ -0,0 +1,138 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BOM写操作的连通分量锁
+ *
+ * 两条并发新增的边只有落在同一个（弱）连通分量里才可能共同成环，
+ * 因此写操作只需按"涉及物料所在分量"串行化，不同装配的写互不阻塞。
+ * 分量用并查集维护（只合并不拆分，删边后分量偏大只会让锁更粗，不影响正确性），
+ * 分量根映射到固定数量的锁分段上。
+ */
+public class BomComponentLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // 并查集：partId -> 父节点partId
+    private final Map<String, String> parent = new HashMap<>();
+
+    public BomComponentLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 锁定给定物料所在的全部分量，并将它们合并为一个分量（写操作即将连接它们）
+     * 使用方式：try (BomComponentLocks.Guard ignored = locks.acquire(ids)) { ... }
+     */
+    public Guard acquire(Collection<String> partIds) {
+        while (true) {
+            TreeSet<Integer> stripeIndexes = new TreeSet<>();
+            Map<String, String> roots = new HashMap<>();
+            for (String partId : partIds) {
+                String root = find(partId);
+                roots.put(partId, root);
+                stripeIndexes.add(stripeOf(root));
+            }
+            // 按分段序号加锁，避免死锁
+            for (int index : stripeIndexes) {
+                stripes[index].lock();
+            }
+            if (rootsUnchanged(roots)) {
+                union(partIds);
+                return () -> stripeIndexes.descendingSet().forEach(index -> stripes[index].unlock());
+            }
+            // 加锁期间分量被其他写操作合并，重试
+            stripeIndexes.descendingSet().forEach(index -> stripes[index].unlock());
+        }
+    }
+
+    /**
+     * 锁定全部分段（全量重建时使用）
+     */
+    public Guard acquireAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+        return () -> {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        };
+    }
+
+    /**
+     * 按全量BOM行重建分量（须在 acquireAll 持有期间调用）
+     */
+    public synchronized void reset(Collection<BOMItem> items) {
+        parent.clear();
+        for (BOMItem item : items) {
+            String parentId = BomGraph.parentIdOf(item);
+            String childId = BomGraph.childIdOf(item);
+            if (parentId != null && childId != null) {
+                union(List.of(parentId, childId));
+            }
+        }
+    }
+
+    private boolean rootsUnchanged(Map<String, String> roots) {
+        for (Map.Entry<String, String> entry : roots.entrySet()) {
+            if (!find(entry.getKey()).equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized String find(String partId) {
+        String root = partId;
+        String next;
+        while ((next = parent.get(root)) != null) {
+            root = next;
+        }
+        // 路径压缩
+        String current = partId;
+        while (!current.equals(root)) {
+            String up = parent.get(current);
+            parent.put(current, root);
+            current = up;
+        }
+        return root;
+    }
+
+    private synchronized void union(Collection<String> partIds) {
+        String first = null;
+        for (String partId : partIds) {
+            String root = find(partId);
+            if (first == null) {
+                first = root;
+            } else if (!root.equals(first)) {
+                parent.put(root, first);
+            }
+        }
+    }
+
+    private static int stripeOf(String root) {
+        return Math.floorMod(root.hashCode(), STRIPES);
+    }
+
+    /**
+     * 锁句柄，close时释放
+     */
+    @FunctionalInterface
+    public interface Guard extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
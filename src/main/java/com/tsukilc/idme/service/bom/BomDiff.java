@@ -0,0 +1,273 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * BOM比较（两个装配，或同一装配的两个有效日期）
+ *
+ * 先为两侧每个子装配计算结构哈希（Merkle哈希：由直接子件、单位、用量及子件哈希决定），
+ * 再从顶层开始逐层比较：同一子件两侧哈希相同说明整棵子树一致，直接跳过不再展开；
+ * 共用子装配在多处出现时只比较一次。
+ */
+public final class BomDiff {
+
+    public static final String ADDED = "ADDED";
+    public static final String REMOVED = "REMOVED";
+    public static final String QUANTITY_CHANGED = "QUANTITY_CHANGED";
+
+    private BomDiff() {
+    }
+
+    /**
+     * 差异行
+     */
+    public static final class Row {
+        private final String changeType;
+        private final int level;
+        private final String parentPartId;
+        private final String childPartId;
+        private final String childPartName;
+        private final String uom;
+        private final BigDecimal oldQuantity;
+        private final BigDecimal newQuantity;
+
+        Row(String changeType, int level, String parentPartId, Entry oldEntry, Entry newEntry) {
+            Entry entry = newEntry != null ? newEntry : oldEntry;
+            this.changeType = changeType;
+            this.level = level;
+            this.parentPartId = parentPartId;
+            this.childPartId = entry.childPartId;
+            this.childPartName = entry.childPartName;
+            this.uom = entry.uom;
+            this.oldQuantity = oldEntry != null ? oldEntry.quantity : null;
+            this.newQuantity = newEntry != null ? newEntry.quantity : null;
+        }
+
+        public String getChangeType() {
+            return changeType;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public String getParentPartId() {
+            return parentPartId;
+        }
+
+        public String getChildPartId() {
+            return childPartId;
+        }
+
+        public String getChildPartName() {
+            return childPartName;
+        }
+
+        public String getUom() {
+            return uom;
+        }
+
+        public BigDecimal getOldQuantity() {
+            return oldQuantity;
+        }
+
+        public BigDecimal getNewQuantity() {
+            return newQuantity;
+        }
+    }
+
+    /**
+     * 比较两个BOM
+     *
+     * @param leftRoot      比较基准的顶层物料ID
+     * @param leftLinesOf   基准侧取父件直接BOM行（可带有效期过滤）
+     * @param rightRoot     比较目标的顶层物料ID
+     * @param rightLinesOf  目标侧取父件直接BOM行
+     * @return 新增/删除/用量变化的行，按层级排列（顶层子件为1）
+     */
+    public static List<Row> diff(String leftRoot, Function<String, List<BOMItem>> leftLinesOf,
+                                 String rightRoot, Function<String, List<BOMItem>> rightLinesOf) {
+        Side left = new Side(leftLinesOf);
+        Side right = new Side(rightLinesOf);
+        List<Row> rows = new ArrayList<>();
+        if (left.hashOf(leftRoot).equals(right.hashOf(rightRoot))) {
+            return rows;
+        }
+
+        // 逐层比较，只展开两侧哈希不同的子装配
+        Deque<Frame> queue = new ArrayDeque<>();
+        Set<String> compared = new HashSet<>();
+        queue.add(new Frame(leftRoot, rightRoot, 1));
+        while (!queue.isEmpty()) {
+            Frame frame = queue.poll();
+            int level = frame.level;
+            Map<String, Entry> oldChildren = left.childrenOf(frame.leftPartId);
+            Map<String, Entry> newChildren = right.childrenOf(frame.rightPartId);
+
+            Set<String> keys = new LinkedHashSet<>(oldChildren.keySet());
+            keys.addAll(newChildren.keySet());
+            for (String key : keys) {
+                Entry oldEntry = oldChildren.get(key);
+                Entry newEntry = newChildren.get(key);
+                if (newEntry == null) {
+                    rows.add(new Row(REMOVED, level, frame.leftPartId, oldEntry, null));
+                } else if (oldEntry == null) {
+                    rows.add(new Row(ADDED, level, frame.rightPartId, null, newEntry));
+                } else {
+                    if (oldEntry.quantity.compareTo(newEntry.quantity) != 0) {
+                        rows.add(new Row(QUANTITY_CHANGED, level, frame.rightPartId, oldEntry, newEntry));
+                    }
+                    String childId = newEntry.childPartId;
+                    if (!left.hashOf(childId).equals(right.hashOf(childId)) && compared.add(childId)) {
+                        queue.add(new Frame(childId, childId, level + 1));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 比较队列帧：两侧对应的父件及其层级
+     */
+    private static final class Frame {
+        final String leftPartId;
+        final String rightPartId;
+        final int level;
+
+        Frame(String leftPartId, String rightPartId, int level) {
+            this.leftPartId = leftPartId;
+            this.rightPartId = rightPartId;
+            this.level = level;
+        }
+    }
+
+    /**
+     * 父件下一个子件+单位的汇总行
+     */
+    private static final class Entry {
+        final String childPartId;
+        final String childPartName;
+        final String uom;
+        BigDecimal quantity = BigDecimal.ZERO;
+
+        Entry(String childPartId, String childPartName, String uom) {
+            this.childPartId = childPartId;
+            this.childPartName = childPartName;
+            this.uom = uom;
+        }
+    }
+
+    /**
+     * 比较的一侧：缓存直接子件汇总和子装配哈希
+     */
+    private static final class Side {
+        private final Function<String, List<BOMItem>> linesOf;
+        private final Map<String, Map<String, Entry>> children = new HashMap<>();
+        private final Map<String, String> hashes = new HashMap<>();
+
+        Side(Function<String, List<BOMItem>> linesOf) {
+            this.linesOf = linesOf;
+        }
+
+        /**
+         * 直接子件按"子件ID|单位"汇总用量（同一子件分多行时合并；用量缺失按1处理，与展开一致）
+         */
+        Map<String, Entry> childrenOf(String partId) {
+            return children.computeIfAbsent(partId, id -> {
+                Map<String, Entry> entries = new LinkedHashMap<>();
+                for (BOMItem line : linesOf.apply(id)) {
+                    String childId = BomGraph.childIdOf(line);
+                    String uom = line.getUom() != null ? line.getUom().getId() : null;
+                    Entry entry = entries.computeIfAbsent(childId + "|" + uom,
+                            k -> new Entry(childId, nameOf(line), uom));
+                    BigDecimal quantity = BomGraph.quantityOf(line);
+                    entry.quantity = entry.quantity.add(quantity != null ? quantity : BigDecimal.ONE);
+                }
+                return entries;
+            });
+        }
+
+        /**
+         * 子装配结构哈希（迭代后序计算，每个物料只算一次；上游数据成环时环上的边只计入物料ID）
+         */
+        String hashOf(String rootPartId) {
+            Deque<String> stack = new ArrayDeque<>();
+            Set<String> inProgress = new HashSet<>();
+            stack.push(rootPartId);
+            while (!stack.isEmpty()) {
+                String partId = stack.peek();
+                if (hashes.containsKey(partId)) {
+                    stack.pop();
+                    continue;
+                }
+                inProgress.add(partId);
+                boolean ready = true;
+                for (Entry entry : childrenOf(partId).values()) {
+                    if (!hashes.containsKey(entry.childPartId) && !inProgress.contains(entry.childPartId)) {
+                        stack.push(entry.childPartId);
+                        ready = false;
+                    }
+                }
+                if (ready) {
+                    hashes.put(partId, digest(partId));
+                    inProgress.remove(partId);
+                    stack.pop();
+                }
+            }
+            return hashes.get(rootPartId);
+        }
+
+        private String digest(String partId) {
+            // 按键排序，哈希与BOM行顺序无关
+            Map<String, Entry> sorted = new TreeMap<>(childrenOf(partId));
+            MessageDigest md = sha256();
+            for (Map.Entry<String, Entry> item : sorted.entrySet()) {
+                Entry entry = item.getValue();
+                String childHash = hashes.getOrDefault(entry.childPartId, "cycle:" + entry.childPartId);
+                String record = item.getKey() + "|" + entry.quantity.stripTrailingZeros().toPlainString()
+                        + "|" + childHash + "\n";
+                md.update(record.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(md.digest());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 取子件名称（displayName优先，fallback到name）
+     */
+    private static String nameOf(BOMItem line) {
+        ObjectReference ref = line.getSource() != null ? line.getSource() : line.getChildPart();
+        if (ref == null) {
+            return null;
+        }
+        return ref.getDisplayName() != null ? ref.getDisplayName() : ref.getName();
+    }
+}
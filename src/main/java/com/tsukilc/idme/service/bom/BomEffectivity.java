@@ -0,0 +1,76 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * BOM行有效期判定
+ *
+ * 有效期按闭区间 [effectiveFrom, effectiveTo] 计算，任一端缺失视为无界。
+ * SDK写入时日期统一转为UTC毫秒时间戳（见 IdmeSdkClient），读回时可能是时间戳、
+ * ISO字符串或 LocalDateTime，这里统一换算为UTC毫秒，无法解析的值按无界处理。
+ */
+public final class BomEffectivity {
+
+    // 不按日期过滤
+    public static final long ANY_TIME = Long.MIN_VALUE;
+
+    private BomEffectivity() {
+    }
+
+    /**
+     * 查询日期 -> UTC毫秒（当天零点，与创建时 LocalDate.atStartOfDay() 一致）；null表示不过滤
+     */
+    public static long asOfMillis(LocalDate asOf) {
+        return asOf != null ? asOf.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() : ANY_TIME;
+    }
+
+    public static long fromMillis(BOMItem item) {
+        return toMillis(item.getEffectiveFrom(), Long.MIN_VALUE);
+    }
+
+    public static long toMillis(BOMItem item) {
+        return toMillis(item.getEffectiveTo(), Long.MAX_VALUE);
+    }
+
+    /**
+     * 判断BOM行在 asOf 时刻是否有效
+     */
+    public static boolean isEffective(BOMItem item, long asOf) {
+        return asOf == ANY_TIME || (fromMillis(item) <= asOf && asOf <= toMillis(item));
+    }
+
+    private static long toMillis(Object value, long unbounded) {
+        if (value == null) {
+            return unbounded;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof LocalDate) {
+            return asOfMillis((LocalDate) value);
+        }
+        String text = value.toString().trim().replace(' ', 'T');
+        try {
+            if (text.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(text);
+            }
+            if (text.length() == 10) {
+                return asOfMillis(LocalDate.parse(text));
+            }
+            if (text.endsWith("Z") || text.matches(".*[+-]\\d{2}:?\\d{2}$")) {
+                return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (RuntimeException e) {
+            return unbounded;
+        }
+    }
+}
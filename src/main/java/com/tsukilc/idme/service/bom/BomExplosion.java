@@ -0,0 +1,170 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 多层BOM展开与用量汇总
+ *
+ * 在顶层装配的可达子图上按拓扑序传播用量：
+ * total[child] += total[parent] * quantity(line)。
+ * 每个物料只在其所有父件处理完后处理一次，共用子装配只计算一次（而非每次出现都计算一遍）。
+ */
+public final class BomExplosion {
+
+    private BomExplosion() {
+    }
+
+    /**
+     * 展开结果行：一个物料 + 计量单位一行
+     */
+    public static final class Row {
+        private final String partId;
+        private final String partName;
+        private final String uom;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private int level = Integer.MAX_VALUE;  // 最浅出现层级（顶层子件为1）
+        private int maxLevel = 0;               // 最深出现层级
+        private boolean leaf = true;
+
+        Row(String partId, String partName, String uom) {
+            this.partId = partId;
+            this.partName = partName;
+            this.uom = uom;
+        }
+
+        public String getPartId() {
+            return partId;
+        }
+
+        public String getPartName() {
+            return partName;
+        }
+
+        public String getUom() {
+            return uom;
+        }
+
+        public BigDecimal getQuantity() {
+            return quantity;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getMaxLevel() {
+            return maxLevel;
+        }
+
+        public boolean isLeaf() {
+            return leaf;
+        }
+    }
+
+    /**
+     * 展开顶层装配下的所有物料并汇总用量
+     *
+     * @param rootPartId 顶层装配物料ID
+     * @param linesOf    取父件直接BOM行
+     * @return 按层级排序的展开行（不含顶层自身）；可达子图中成环的部分不参与汇总
+     */
+    public static List<Row> explode(String rootPartId, Function<String, List<BOMItem>> linesOf) {
+        // 1. 收集可达子图，统计子图内入度
+        Map<String, List<BOMItem>> adjacency = new HashMap<>();
+        Map<String, Integer> indegree = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        stack.push(rootPartId);
+        seen.add(rootPartId);
+        while (!stack.isEmpty()) {
+            String partId = stack.pop();
+            List<BOMItem> lines = linesOf.apply(partId);
+            adjacency.put(partId, lines);
+            for (BOMItem line : lines) {
+                String childId = BomGraph.childIdOf(line);
+                indegree.merge(childId, 1, Integer::sum);
+                if (seen.add(childId)) {
+                    stack.push(childId);
+                }
+            }
+        }
+
+        // 2. 按拓扑序传播用量（Kahn）
+        Map<String, BigDecimal> total = new HashMap<>();
+        Map<String, Integer> minDepth = new HashMap<>();
+        Map<String, Integer> maxDepth = new HashMap<>();
+        Map<String, Row> rows = new LinkedHashMap<>();
+        total.put(rootPartId, BigDecimal.ONE);
+        minDepth.put(rootPartId, 0);
+        maxDepth.put(rootPartId, 0);
+
+        Deque<String> ready = new ArrayDeque<>();
+        if (!indegree.containsKey(rootPartId)) {
+            ready.add(rootPartId);
+        }
+        while (!ready.isEmpty()) {
+            String partId = ready.poll();
+            BigDecimal parentTotal = total.getOrDefault(partId, BigDecimal.ZERO);
+            int parentMin = minDepth.get(partId);
+            int parentMax = maxDepth.get(partId);
+
+            for (BOMItem line : adjacency.get(partId)) {
+                String childId = BomGraph.childIdOf(line);
+                BigDecimal quantity = BomGraph.quantityOf(line);
+                // 用量缺失的历史数据按1处理，保证该行仍出现在展开结果中
+                BigDecimal contribution = parentTotal.multiply(quantity != null ? quantity : BigDecimal.ONE);
+                total.merge(childId, contribution, BigDecimal::add);
+                minDepth.merge(childId, parentMin + 1, Math::min);
+                maxDepth.merge(childId, parentMax + 1, Math::max);
+
+                String uom = line.getUom() != null ? line.getUom().getId() : null;
+                Row row = rows.computeIfAbsent(childId + "|" + uom,
+                        k -> new Row(childId, nameOf(line), uom));
+                row.quantity = row.quantity.add(contribution);
+
+                if (indegree.merge(childId, -1, Integer::sum) == 0) {
+                    ready.add(childId);
+                }
+            }
+        }
+
+        // 3. 回填层级与叶子标记
+        List<Row> result = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (!minDepth.containsKey(row.partId) || indegree.get(row.partId) > 0) {
+                continue;  // 成环部分未完成传播，不输出
+            }
+            row.level = minDepth.get(row.partId);
+            row.maxLevel = maxDepth.get(row.partId);
+            row.leaf = adjacency.getOrDefault(row.partId, List.of()).isEmpty();
+            result.add(row);
+        }
+        result.sort(Comparator.comparingInt(Row::getLevel));
+        return result;
+    }
+
+    /**
+     * 取子件名称（displayName优先，fallback到name）
+     */
+    private static String nameOf(BOMItem line) {
+        ObjectReference ref = line.getSource() != null ? line.getSource() : line.getChildPart();
+        if (ref == null) {
+            return null;
+        }
+        return ref.getDisplayName() != null ? ref.getDisplayName() : ref.getName();
+    }
+}
@@ -0,0 +1,485 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BOM图快照（不可变，增量维护）
+ *
+ * 以BOM行（BOMItem）为单位维护 parentPartId -> childPartId 的邻接关系及反向索引：
+ * 每次写操作只应用自身的增量（加边/删边/移边），返回新快照，旧快照保持不变，
+ * 因此读线程拿到快照后无需加锁。
+ *
+ * 结构上分为基础层和增量层：
+ * - 基础层：物料ID经字典映射为紧凑整数，正/反向邻接以CSR（压缩稀疏行）整数数组存储，
+ *   全量构建或合并后不再修改，所有快照共享
+ * - 增量层：最近的加边/删边，每次写只复制增量层，超过阈值后合并进基础层
+ * 同时维护可达性索引（动态拓扑序），成环判定无需复制整图。
+ */
+public final class BomGraph {
+
+    // 增量层合并阈值：取 max(256, sqrt(基础层边数))，平衡每次写的增量层复制与合并开销
+    private static final int COMPACT_MIN = 256;
+
+    private final PartIdDictionary dictionary;
+    private final Csr base;
+
+    // 增量层：新增（含替换后）的行，以及基础层中已删除/被替换的行槽位；邻接按整数物料ID索引
+    private final Map<String, BOMItem> addedLines;
+    private final Set<Integer> removedSlots;
+    private final Map<Integer, List<BOMItem>> addedChildren;
+    private final Map<Integer, List<BOMItem>> addedParents;
+
+    private final int edgeCount;
+    private final BomReachabilityIndex reachability;
+
+    private BomGraph(PartIdDictionary dictionary,
+                     Csr base,
+                     Map<String, BOMItem> addedLines,
+                     Set<Integer> removedSlots,
+                     Map<Integer, List<BOMItem>> addedChildren,
+                     Map<Integer, List<BOMItem>> addedParents,
+                     int edgeCount,
+                     BomReachabilityIndex reachability) {
+        this.dictionary = dictionary;
+        this.base = base;
+        this.addedLines = addedLines;
+        this.removedSlots = removedSlots;
+        this.addedChildren = addedChildren;
+        this.addedParents = addedParents;
+        this.edgeCount = edgeCount;
+        this.reachability = reachability;
+    }
+
+    public static BomGraph empty() {
+        return of(Collections.emptyList());
+    }
+
+    /**
+     * 用全量BOM行构建图（初始化/后台对账时使用）
+     */
+    public static BomGraph of(Collection<BOMItem> items) {
+        Map<String, BOMItem> lines = new LinkedHashMap<>();
+        for (BOMItem item : items) {
+            if (item.getId() != null && parentIdOf(item) != null && childIdOf(item) != null) {
+                lines.put(item.getId(), item);
+            }
+        }
+        return build(new PartIdDictionary(), lines.values(), null);
+    }
+
+    /**
+     * 加边/移边：新增BOM行，或替换同ID的BOM行（从旧父子移到新父子）
+     */
+    public BomGraph withLine(BOMItem item) {
+        String parentId = parentIdOf(item);
+        String childId = childIdOf(item);
+        if (item.getId() == null || parentId == null || childId == null) {
+            return this;
+        }
+        BomGraph prev = getLine(item.getId()) != null ? withoutLine(item.getId()) : this;
+
+        int parent = dictionary.intern(parentId);
+        int child = dictionary.intern(childId);
+        Map<String, BOMItem> added = new HashMap<>(prev.addedLines);
+        added.put(item.getId(), item);
+        Map<Integer, List<BOMItem>> children = copyAndAppend(prev.addedChildren, parent, item);
+        Map<Integer, List<BOMItem>> parents = copyAndAppend(prev.addedParents, child, item);
+
+        BomGraph next = new BomGraph(dictionary, base, added, prev.removedSlots, children, parents,
+                prev.edgeCount + 1, prev.reachability);
+        return next.withReachability(next.reachability.withEdge(parent, child, next.neighbors())).compactIfNeeded();
+    }
+
+    /**
+     * 删边：按BOM行ID移除（删边不会破坏拓扑序）
+     */
+    public BomGraph withoutLine(String lineId) {
+        BOMItem old = getLine(lineId);
+        if (old == null) {
+            return this;
+        }
+        Map<String, BOMItem> added = addedLines;
+        Set<Integer> removed = removedSlots;
+        Map<Integer, List<BOMItem>> children = addedChildren;
+        Map<Integer, List<BOMItem>> parents = addedParents;
+        if (addedLines.containsKey(lineId)) {
+            added = new HashMap<>(addedLines);
+            added.remove(lineId);
+            children = copyAndRemove(addedChildren, dictionary.idOf(parentIdOf(old)), old);
+            parents = copyAndRemove(addedParents, dictionary.idOf(childIdOf(old)), old);
+        } else {
+            removed = new HashSet<>(removedSlots);
+            removed.add(base.slots.get(lineId));
+        }
+        return new BomGraph(dictionary, base, added, removed, children, parents,
+                edgeCount - 1, reachability).compactIfNeeded();
+    }
+
+    /**
+     * 判断新增边 parent -> child 是否会形成环
+     */
+    public boolean wouldCreateCycle(String parentPartId, String childPartId) {
+        if (parentPartId.equals(childPartId)) {
+            return true;
+        }
+        int parent = dictionary.idOf(parentPartId);
+        int child = dictionary.idOf(childPartId);
+        if (parent < 0 || child < 0) {
+            return false;  // 任一端尚未出现在BOM中，不可能成环
+        }
+        return reachability.wouldCreateCycle(parent, child, neighbors());
+    }
+
+    /**
+     * 查询直接子件ID列表
+     */
+    public List<String> childrenOf(String parentPartId) {
+        int node = dictionary.idOf(parentPartId);
+        if (node < 0) {
+            return Collections.emptyList();
+        }
+        int[] ids = neighbors().out(node);
+        List<String> children = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            children.add(dictionary.nameOf(id));
+        }
+        return children;
+    }
+
+    /**
+     * 查询父件的直接BOM行（只读）
+     */
+    public List<BOMItem> linesOf(String parentPartId) {
+        return linesOf(parentPartId, null);
+    }
+
+    /**
+     * 查询父件在 asOf 日期有效的直接BOM行（只读）；asOf为null时不过滤
+     */
+    public List<BOMItem> linesOf(String parentPartId, LocalDate asOf) {
+        int node = dictionary.idOf(parentPartId);
+        return node < 0 ? Collections.emptyList()
+                : collectLines(base.outOffsets, base.outSlots, node, addedChildren.get(node),
+                BomEffectivity.asOfMillis(asOf));
+    }
+
+    /**
+     * 查询子件被哪些BOM行使用（反向索引，只读）
+     */
+    public List<BOMItem> usagesOf(String childPartId) {
+        return usagesOf(childPartId, null);
+    }
+
+    /**
+     * 查询子件在 asOf 日期被哪些有效BOM行使用（只读）；asOf为null时不过滤
+     */
+    public List<BOMItem> usagesOf(String childPartId, LocalDate asOf) {
+        int node = dictionary.idOf(childPartId);
+        return node < 0 ? Collections.emptyList()
+                : collectLines(base.inOffsets, base.inSlots, node, addedParents.get(node),
+                BomEffectivity.asOfMillis(asOf));
+    }
+
+    /**
+     * 查询BOM行
+     */
+    public BOMItem getLine(String lineId) {
+        BOMItem added = addedLines.get(lineId);
+        if (added != null) {
+            return added;
+        }
+        Integer slot = base.slots.get(lineId);
+        return slot == null || removedSlots.contains(slot) ? null : base.lines[slot];
+    }
+
+    public int partCount() {
+        return reachability.size();
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public boolean isAcyclic() {
+        return reachability.isAcyclic();
+    }
+
+    /**
+     * 合并基础层CSR区间（跳过已删除槽位和不在有效期内的行）与增量层的BOM行
+     * 基础层有效期只比较槽位上的时间戳数组，不触碰BOMItem对象；
+     * asOf 落在全部基础层行的公共有效区间内时（常见的"当前BOM"查询）整段跳过比较
+     */
+    private List<BOMItem> collectLines(int[] offsets, int[] slots, int node, List<BOMItem> added, long asOf) {
+        int from = node < base.nodeCount ? offsets[node] : 0;
+        int to = node < base.nodeCount ? offsets[node + 1] : 0;
+        if (from == to && added == null) {
+            return Collections.emptyList();
+        }
+        boolean checkDates = asOf != BomEffectivity.ANY_TIME
+                && (asOf < base.latestFrom || asOf > base.earliestTo);
+        List<BOMItem> result = new ArrayList<>(to - from + (added != null ? added.size() : 0));
+        for (int i = from; i < to; i++) {
+            int slot = slots[i];
+            if (checkDates && (asOf < base.effectiveFrom[slot] || asOf > base.effectiveTo[slot])) {
+                continue;
+            }
+            if (removedSlots.isEmpty() || !removedSlots.contains(slot)) {
+                result.add(base.lines[slot]);
+            }
+        }
+        if (added != null) {
+            for (BOMItem item : added) {
+                if (BomEffectivity.isEffective(item, asOf)) {
+                    result.add(item);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 合并基础层CSR区间与增量层的相邻物料整数ID
+     */
+    private int[] collectIds(int[] offsets, int[] slots, int[] ends, int node,
+                             List<BOMItem> added, boolean child) {
+        int from = node < base.nodeCount ? offsets[node] : 0;
+        int to = node < base.nodeCount ? offsets[node + 1] : 0;
+        if (removedSlots.isEmpty() && added == null) {
+            return Arrays.copyOfRange(ends, from, to);
+        }
+        int[] ids = new int[to - from + (added != null ? added.size() : 0)];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            if (!removedSlots.contains(slots[i])) {
+                ids[k++] = ends[i];
+            }
+        }
+        if (added != null) {
+            for (BOMItem item : added) {
+                ids[k++] = dictionary.idOf(child ? childIdOf(item) : parentIdOf(item));
+            }
+        }
+        return k == ids.length ? ids : Arrays.copyOf(ids, k);
+    }
+
+    private BomGraph withReachability(BomReachabilityIndex index) {
+        return new BomGraph(dictionary, base, addedLines, removedSlots, addedChildren, addedParents,
+                edgeCount, index);
+    }
+
+    /**
+     * 增量层过大时合并进基础层
+     */
+    private BomGraph compactIfNeeded() {
+        int threshold = Math.max(COMPACT_MIN, (int) Math.sqrt(base.lines.length));
+        if (addedLines.size() + removedSlots.size() <= threshold) {
+            return this;
+        }
+        List<BOMItem> lines = new ArrayList<>(edgeCount);
+        for (int slot = 0; slot < base.lines.length; slot++) {
+            if (!removedSlots.contains(slot)) {
+                lines.add(base.lines[slot]);
+            }
+        }
+        lines.addAll(addedLines.values());
+        return build(dictionary, lines, reachability);
+    }
+
+    /**
+     * 构建只有基础层的快照；reachability为null时全量计算拓扑序
+     */
+    private static BomGraph build(PartIdDictionary dictionary, Collection<BOMItem> lines,
+                                  BomReachabilityIndex reachability) {
+        Csr csr = Csr.of(dictionary, lines);
+        BomGraph graph = new BomGraph(dictionary, csr, Collections.emptyMap(), Collections.emptySet(),
+                Collections.emptyMap(), Collections.emptyMap(), csr.lines.length, BomReachabilityIndex.empty());
+        return graph.withReachability(reachability != null
+                ? reachability
+                : BomReachabilityIndex.build(dictionary.size(), graph.neighbors()));
+    }
+
+    /**
+     * 整数ID邻接访问（供可达性索引使用）
+     */
+    private BomReachabilityIndex.Neighbors neighbors() {
+        return new BomReachabilityIndex.Neighbors() {
+            @Override
+            public int[] out(int node) {
+                return collectIds(base.outOffsets, base.outSlots, base.outTargets, node,
+                        addedChildren.get(node), true);
+            }
+
+            @Override
+            public int[] in(int node) {
+                return collectIds(base.inOffsets, base.inSlots, base.inSources, node,
+                        addedParents.get(node), false);
+            }
+        };
+    }
+
+    private static Map<Integer, List<BOMItem>> copyAndAppend(Map<Integer, List<BOMItem>> source,
+                                                             int key, BOMItem item) {
+        Map<Integer, List<BOMItem>> copy = new HashMap<>(source);
+        List<BOMItem> list = new ArrayList<>(source.getOrDefault(key, Collections.emptyList()));
+        list.add(item);
+        copy.put(key, list);
+        return copy;
+    }
+
+    private static Map<Integer, List<BOMItem>> copyAndRemove(Map<Integer, List<BOMItem>> source,
+                                                             int key, BOMItem item) {
+        Map<Integer, List<BOMItem>> copy = new HashMap<>(source);
+        List<BOMItem> list = new ArrayList<>(source.getOrDefault(key, Collections.emptyList()));
+        list.removeIf(line -> line == item);
+        if (list.isEmpty()) {
+            copy.remove(key);
+        } else {
+            copy.put(key, list);
+        }
+        return copy;
+    }
+
+    /**
+     * 基础层：CSR（压缩稀疏行）邻接
+     *
+     * BOM行按槽位（0..E-1）存放；物料 v 的出边为 outSlots[outOffsets[v] .. outOffsets[v+1])，
+     * 对应子件整数ID在 outTargets 的同一区间，遍历时顺序访问连续内存。反向邻接同理。
+     * 有效期按槽位存为UTC毫秒（区间索引），并记录全部行的公共有效区间 [latestFrom, earliestTo]。
+     */
+    private static final class Csr {
+        final int nodeCount;
+        final BOMItem[] lines;
+        final Map<String, Integer> slots;   // bomItemId -> 槽位
+        final int[] outOffsets;
+        final int[] outSlots;
+        final int[] outTargets;
+        final int[] inOffsets;
+        final int[] inSlots;
+        final int[] inSources;
+        final long[] effectiveFrom;
+        final long[] effectiveTo;
+        final long latestFrom;
+        final long earliestTo;
+
+        private Csr(int nodeCount, BOMItem[] lines, Map<String, Integer> slots,
+                    int[] outOffsets, int[] outSlots, int[] outTargets,
+                    int[] inOffsets, int[] inSlots, int[] inSources,
+                    long[] effectiveFrom, long[] effectiveTo) {
+            this.nodeCount = nodeCount;
+            this.lines = lines;
+            this.slots = slots;
+            this.outOffsets = outOffsets;
+            this.outSlots = outSlots;
+            this.outTargets = outTargets;
+            this.inOffsets = inOffsets;
+            this.inSlots = inSlots;
+            this.inSources = inSources;
+            this.effectiveFrom = effectiveFrom;
+            this.effectiveTo = effectiveTo;
+            this.latestFrom = Arrays.stream(effectiveFrom).max().orElse(Long.MIN_VALUE);
+            this.earliestTo = Arrays.stream(effectiveTo).min().orElse(Long.MAX_VALUE);
+        }
+
+        static Csr of(PartIdDictionary dictionary, Collection<BOMItem> items) {
+            BOMItem[] lines = items.toArray(new BOMItem[0]);
+            int[] parentOf = new int[lines.length];
+            int[] childOf = new int[lines.length];
+            long[] effectiveFrom = new long[lines.length];
+            long[] effectiveTo = new long[lines.length];
+            Map<String, Integer> slots = new HashMap<>(lines.length * 4 / 3 + 1);
+            for (int slot = 0; slot < lines.length; slot++) {
+                parentOf[slot] = dictionary.intern(parentIdOf(lines[slot]));
+                childOf[slot] = dictionary.intern(childIdOf(lines[slot]));
+                effectiveFrom[slot] = BomEffectivity.fromMillis(lines[slot]);
+                effectiveTo[slot] = BomEffectivity.toMillis(lines[slot]);
+                slots.put(lines[slot].getId(), slot);
+            }
+            int nodeCount = dictionary.size();
+
+            int[] outOffsets = offsets(parentOf, nodeCount);
+            int[] inOffsets = offsets(childOf, nodeCount);
+            int[] outSlots = bucket(parentOf, outOffsets);
+            int[] inSlots = bucket(childOf, inOffsets);
+            int[] outTargets = new int[lines.length];
+            int[] inSources = new int[lines.length];
+            for (int i = 0; i < lines.length; i++) {
+                outTargets[i] = childOf[outSlots[i]];
+                inSources[i] = parentOf[inSlots[i]];
+            }
+            return new Csr(nodeCount, lines, slots, outOffsets, outSlots, outTargets,
+                    inOffsets, inSlots, inSources, effectiveFrom, effectiveTo);
+        }
+
+        /**
+         * 计数得到每个节点的区间起点（前缀和）
+         */
+        private static int[] offsets(int[] keyOf, int nodeCount) {
+            int[] offsets = new int[nodeCount + 1];
+            for (int key : keyOf) {
+                offsets[key + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            return offsets;
+        }
+
+        /**
+         * 按节点分桶放置槽位（稳定，保持行的原有顺序）
+         */
+        private static int[] bucket(int[] keyOf, int[] offsets) {
+            int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+            int[] result = new int[keyOf.length];
+            for (int slot = 0; slot < keyOf.length; slot++) {
+                result[cursor[keyOf[slot]]++] = slot;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 提取父件ID（优先target，fallback到parentPart）
+     */
+    public static String parentIdOf(BOMItem item) {
+        ObjectReference ref = item.getTarget() != null ? item.getTarget() : item.getParentPart();
+        return ref != null ? ref.getId() : null;
+    }
+
+    /**
+     * 提取子件ID（优先source，fallback到childPart）
+     */
+    public static String childIdOf(BOMItem item) {
+        ObjectReference ref = item.getSource() != null ? item.getSource() : item.getChildPart();
+        return ref != null ? ref.getId() : null;
+    }
+
+    /**
+     * 提取用量：SDK返回 {value: "1.000000"}，也兼容数值格式
+     * @return 用量，缺失时返回null
+     */
+    public static BigDecimal quantityOf(BOMItem item) {
+        Object quantity = item.getQuantity();
+        if (quantity instanceof Map) {
+            Object value = ((Map<?, ?>) quantity).get("value");
+            return value != null ? new BigDecimal(value.toString()) : null;
+        }
+        if (quantity instanceof Number) {
+            return new BigDecimal(quantity.toString());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,282 @@
+package com.tsukilc.idme.service.bom;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * BOM可达性索引（动态拓扑序，Pearce-Kelly算法）
+ *
+ * 为DAG中每个物料维护拓扑序号ord：对任意边 p -> c 恒有 ord[p] < ord[c]。
+ * 判断"新增 parent -> child 是否成环"：
+ * - ord[parent] < ord[child]：拓扑序不变，O(1)判定无环（绝大多数情况）
+ * - 否则只在 ord 区间 [ord[child], ord[parent]] 内做迭代DFS，无需复制整图，也不会栈溢出
+ *
+ * 不可变对象：ord按1024个一组分块存储，重排时只复制被改动的分块（写时复制），
+ * 旧快照上的并发读取不受影响。
+ * 上游历史数据本身含环时拓扑序无法维持，退化为无界DFS，直到下次全量重建。
+ */
+public final class BomReachabilityIndex {
+
+    /**
+     * 图的邻接访问（整数ID）
+     */
+    public interface Neighbors {
+        int[] out(int node);
+
+        int[] in(int node);
+    }
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final BomReachabilityIndex EMPTY = new BomReachabilityIndex(new int[0][], 0, true);
+
+    // 拓扑序：ord[node]，为 0..size-1 的一个排列
+    private final int[][] chunks;
+    private final int size;
+    private final boolean acyclic;
+
+    private BomReachabilityIndex(int[][] chunks, int size, boolean acyclic) {
+        this.chunks = chunks;
+        this.size = size;
+        this.acyclic = acyclic;
+    }
+
+    public static BomReachabilityIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 全量计算拓扑序（Kahn算法），用于全量重建
+     */
+    public static BomReachabilityIndex build(int nodeCount, Neighbors graph) {
+        int[] indegree = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            for (int w : graph.out(v)) {
+                indegree[w]++;
+            }
+        }
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            if (indegree[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        int[] ord = new int[nodeCount];
+        Arrays.fill(ord, -1);
+        int next = 0;
+        while (head < tail) {
+            int v = queue[head++];
+            ord[v] = next++;
+            for (int w : graph.out(v)) {
+                if (--indegree[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        boolean acyclic = next == nodeCount;
+        // 环上的节点无法排序，按出现顺序补齐序号
+        for (int v = 0; v < nodeCount && next < nodeCount; v++) {
+            if (ord[v] < 0) {
+                ord[v] = next++;
+            }
+        }
+
+        int[][] chunks = new int[(nodeCount + CHUNK_MASK) >> CHUNK_BITS][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(ord, i << CHUNK_BITS, (i + 1) << CHUNK_BITS);
+        }
+        return new BomReachabilityIndex(chunks, nodeCount, acyclic);
+    }
+
+    /**
+     * 判断新增边 parent -> child 是否会形成环
+     */
+    public boolean wouldCreateCycle(int parent, int child, Neighbors graph) {
+        if (parent == child) {
+            return true;
+        }
+        if (parent >= size || child >= size) {
+            return false;  // 新物料尚无任何边，不可能成环
+        }
+        if (acyclic && ord(parent) < ord(child)) {
+            return false;
+        }
+        int upperBound = acyclic ? ord(parent) : Integer.MAX_VALUE;
+        return forwardReach(child, parent, upperBound, graph, null);
+    }
+
+    /**
+     * 返回加入边 parent -> child 后的索引（graph 须已包含该边）
+     */
+    public BomReachabilityIndex withEdge(int parent, int child, Neighbors graph) {
+        BomReachabilityIndex index = ensureSize(Math.max(parent, child) + 1);
+        if (!index.acyclic || index.ord(parent) < index.ord(child)) {
+            return index;
+        }
+        if (parent == child) {
+            return new BomReachabilityIndex(index.chunks, index.size, false);
+        }
+        return index.reorder(parent, child, graph);
+    }
+
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int ord(int node) {
+        return chunks[node >> CHUNK_BITS][node & CHUNK_MASK];
+    }
+
+    /**
+     * 扩容到 nodeCount 个节点，新节点排在最后（序号等于节点ID）
+     */
+    private BomReachabilityIndex ensureSize(int nodeCount) {
+        if (nodeCount <= size) {
+            return this;
+        }
+        int chunkCount = (nodeCount + CHUNK_MASK) >> CHUNK_BITS;
+        int[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+        boolean tailCopied = false;
+        for (int v = size; v < nodeCount; v++) {
+            int c = v >> CHUNK_BITS;
+            if (c < chunks.length) {
+                if (!tailCopied) {
+                    newChunks[c] = newChunks[c].clone();  // 旧快照仍在使用最后一个分块，先复制
+                    tailCopied = true;
+                }
+            } else if (newChunks[c] == null) {
+                newChunks[c] = new int[CHUNK_SIZE];
+            }
+            newChunks[c][v & CHUNK_MASK] = v;
+        }
+        return new BomReachabilityIndex(newChunks, nodeCount, acyclic);
+    }
+
+    /**
+     * Pearce-Kelly重排：parent 的祖先区间与 child 的后代区间交换序号
+     */
+    private BomReachabilityIndex reorder(int parent, int child, Neighbors graph) {
+        int lowerBound = ord(child);
+        int upperBound = ord(parent);
+
+        IntBuffer deltaF = new IntBuffer();
+        if (forwardReach(child, parent, upperBound, graph, deltaF)) {
+            // 上游数据已成环，放弃维护拓扑序
+            return new BomReachabilityIndex(chunks, size, false);
+        }
+        IntBuffer deltaB = new IntBuffer();
+        backwardCollect(parent, lowerBound, graph, deltaB);
+
+        int[] f = deltaF.sortedBy(this);
+        int[] b = deltaB.sortedBy(this);
+
+        // 回收两组节点占用的序号，按"祖先在前、后代在后"重新分配
+        int[] nodes = new int[f.length + b.length];
+        int[] pool = new int[nodes.length];
+        int k = 0;
+        for (int v : b) {
+            nodes[k] = v;
+            pool[k++] = ord(v);
+        }
+        for (int v : f) {
+            nodes[k] = v;
+            pool[k++] = ord(v);
+        }
+        Arrays.sort(pool);
+
+        // 写时复制：只复制被改动的分块
+        int[][] newChunks = chunks.clone();
+        boolean[] copied = new boolean[newChunks.length];
+        for (int i = 0; i < nodes.length; i++) {
+            int c = nodes[i] >> CHUNK_BITS;
+            if (!copied[c]) {
+                newChunks[c] = newChunks[c].clone();
+                copied[c] = true;
+            }
+            newChunks[c][nodes[i] & CHUNK_MASK] = pool[i];
+        }
+        return new BomReachabilityIndex(newChunks, size, acyclic);
+    }
+
+    /**
+     * 从start正向迭代DFS，只访问 ord <= upperBound 的节点
+     * @return 是否到达target
+     */
+    private boolean forwardReach(int start, int target, int upperBound, Neighbors graph, IntBuffer visitedOut) {
+        BitSet visited = new BitSet();
+        IntBuffer stack = new IntBuffer();
+        stack.add(start);
+        visited.set(start);
+        while (stack.size > 0) {
+            int v = stack.pop();
+            if (v == target) {
+                return true;
+            }
+            if (visitedOut != null) {
+                visitedOut.add(v);
+            }
+            for (int w : graph.out(v)) {
+                if (!visited.get(w) && w < size && ord(w) <= upperBound) {
+                    visited.set(w);
+                    stack.add(w);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从start反向迭代DFS，收集 ord >= lowerBound 的祖先节点
+     */
+    private void backwardCollect(int start, int lowerBound, Neighbors graph, IntBuffer visitedOut) {
+        BitSet visited = new BitSet();
+        IntBuffer stack = new IntBuffer();
+        stack.add(start);
+        visited.set(start);
+        while (stack.size > 0) {
+            int v = stack.pop();
+            visitedOut.add(v);
+            for (int w : graph.in(v)) {
+                if (!visited.get(w) && w < size && ord(w) >= lowerBound) {
+                    visited.set(w);
+                    stack.add(w);
+                }
+            }
+        }
+    }
+
+    /**
+     * 简单的可增长int数组（兼作栈）
+     */
+    private static final class IntBuffer {
+        private int[] data = new int[8];
+        private int size = 0;
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = v;
+        }
+
+        int pop() {
+            return data[--size];
+        }
+
+        int[] sortedBy(BomReachabilityIndex index) {
+            return Arrays.stream(data, 0, size)
+                    .boxed()
+                    .sorted((a, b) -> Integer.compare(index.ord(a), index.ord(b)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.tsukilc.idme.service.bom;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 物料ID字典：iDME ID字符串 <-> 紧凑整数ID（0,1,2...）
+ * 图算法内部只使用整数ID，避免反复对长字符串做哈希
+ *
+ * 只追加不删除，可在多个图快照之间共享：查询无锁，分配新ID时加锁
+ */
+public class PartIdDictionary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size = 0;
+
+    /**
+     * 获取整数ID，不存在时分配新ID
+     */
+    public int intern(String partId) {
+        Integer id = ids.get(partId);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(partId);
+            if (id != null) {
+                return id;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = partId;
+            names = current;  // 先发布名称，再发布映射
+            ids.put(partId, size);
+            return size++;
+        }
+    }
+
+    /**
+     * 获取整数ID，不存在时返回-1
+     */
+    public int idOf(String partId) {
+        Integer id = ids.get(partId);
+        return id != null ? id : -1;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,210 @@
+package com.tsukilc.idme.service.reference;
+
+import com.tsukilc.idme.exception.IdmeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 主数据内存表：全量加载后按ID与编码建立不可变索引
+ * 读取只访问当前快照，不发起上游调用；快照被标记过期后由下一次读取重新加载（同一时刻只有一个线程加载）
+ * 引用校验未命中时的重新加载按间隔限流，大量无效ID不会反复全量加载
+ *
+ * @param <T> 实体类型
+ */
+@Slf4j
+public class ReferenceTable<T> {
+
+    /** 未命中触发重新加载的默认最小间隔 */
+    public static final Duration DEFAULT_MISS_RELOAD_INTERVAL = Duration.ofSeconds(5);
+
+    private final String entityName;
+    private final String label;
+    private final Supplier<List<T>> loader;
+    private final Function<T, String> idOf;
+    private final Function<T, String> codeOf;
+    private final Function<T, String> nameOf;
+    private final long missReloadIntervalNanos;
+
+    /** 加载期间有上游I/O，使用 ReentrantLock 以免虚拟线程占住载体线程 */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Snapshot<T> snapshot;
+    private volatile boolean stale = true;
+
+    /** 下一次允许未命中触发重新加载的时间（System.nanoTime） */
+    private final AtomicLong nextMissReloadNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param entityName iDME实体名称
+     * @param label      中文名称，用于日志与校验失败提示
+     * @param loader     全量加载函数
+     * @param idOf       取ID
+     * @param codeOf     取业务编码（编码索引的键）
+     * @param nameOf     取展示名称
+     */
+    public ReferenceTable(String entityName, String label, Supplier<List<T>> loader,
+                          Function<T, String> idOf, Function<T, String> codeOf, Function<T, String> nameOf) {
+        this(entityName, label, loader, idOf, codeOf, nameOf, DEFAULT_MISS_RELOAD_INTERVAL);
+    }
+
+    /**
+     * @param missReloadInterval 引用校验未命中时重新加载的最小间隔
+     */
+    public ReferenceTable(String entityName, String label, Supplier<List<T>> loader,
+                          Function<T, String> idOf, Function<T, String> codeOf, Function<T, String> nameOf,
+                          Duration missReloadInterval) {
+        this.entityName = entityName;
+        this.label = label;
+        this.loader = loader;
+        this.idOf = idOf;
+        this.codeOf = codeOf;
+        this.nameOf = nameOf;
+        this.missReloadIntervalNanos = missReloadInterval.toNanos();
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * 按ID查询，不存在返回 null
+     */
+    public T get(String id) {
+        return id != null ? current().byId.get(id) : null;
+    }
+
+    /**
+     * 按业务编码查询，不存在返回 null
+     */
+    public T getByCode(String code) {
+        return code != null ? current().byCode.get(code) : null;
+    }
+
+    /**
+     * ID对应的展示名称，不存在返回 null
+     */
+    public String nameOf(String id) {
+        T entity = get(id);
+        return entity != null ? nameOf.apply(entity) : null;
+    }
+
+    public Collection<T> all() {
+        return current().byId.values();
+    }
+
+    public int size() {
+        return current().byId.size();
+    }
+
+    /**
+     * 校验引用的ID存在（空值不校验），不存在时抛出 IdmeException
+     * 快照中找不到时先重新加载一次，避免其他实例刚写入的数据被误判为不存在；
+     * 重新加载是全量同步加载，每个间隔内最多一次，其余未命中直接按当前快照判定
+     */
+    public void requireExists(String id) {
+        if (id == null || id.isBlank() || get(id) != null) {
+            return;
+        }
+        if (tryClaimMissReload()) {
+            refresh();
+        }
+        if (get(id) == null) {
+            throw new IdmeException(label + "不存在: " + id);
+        }
+    }
+
+    private boolean tryClaimMissReload() {
+        long next = nextMissReloadNanos.get();
+        long now = System.nanoTime();
+        return now - next >= 0 && nextMissReloadNanos.compareAndSet(next, now + missReloadIntervalNanos);
+    }
+
+    /**
+     * 标记快照过期（本实体发生写操作后调用），下一次读取时重新加载
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    /**
+     * 立即重新加载
+     */
+    public void refresh() {
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Snapshot<T> current() {
+        Snapshot<T> current = snapshot;
+        if (current != null && !stale) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            if (snapshot == null || stale) {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    if (snapshot == null) {
+                        throw e;
+                    }
+                    // 重新加载失败时继续使用旧快照，下一次读取再重试
+                    log.warn("{}主数据重新加载失败，继续使用旧数据: {}", label, e.getMessage());
+                }
+            }
+            return snapshot;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
+        // 先清除过期标记：加载期间发生的写操作会重新标记，下一次读取再加载
+        stale = false;
+        List<T> rows;
+        try {
+            rows = loader.get();
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        Map<String, T> byId = new HashMap<>();
+        Map<String, T> byCode = new HashMap<>();
+        for (T row : rows) {
+            String id = idOf.apply(row);
+            if (id == null) {
+                continue;
+            }
+            byId.put(id, row);
+            String code = codeOf.apply(row);
+            if (code != null) {
+                byCode.putIfAbsent(code, row);
+            }
+        }
+        snapshot = new Snapshot<>(Map.copyOf(byId), Map.copyOf(byCode));
+        log.info("{}主数据加载完成，共 {} 条", label, byId.size());
+    }
+
+    private static final class Snapshot<T> {
+        private final Map<String, T> byId;
+        private final Map<String, T> byCode;
+
+        private Snapshot(Map<String, T> byId, Map<String, T> byCode) {
+            this.byId = byId;
+            this.byCode = byCode;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.tsukilc.idme.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * BOM比较差异 VO（每个发生变化的父件+子件+单位一行）
+ */
+@Data
+public class BOMDiffVO {
+    private String changeType;              // 变化类型：ADDED / REMOVED / QUANTITY_CHANGED
+    private Integer level;                  // 变化所在层级（顶层直接子件为1）
+    private String parentPartId;            // 变化所在的父件ID
+    private String childPartId;             // 子件ID
+    private String childPartName;           // 子件名称（展示用）
+    private String uom;                     // 单位
+    private BigDecimal oldQuantity;         // 基准侧用量（新增时为空）
+    private BigDecimal newQuantity;         // 目标侧用量（删除时为空）
+}
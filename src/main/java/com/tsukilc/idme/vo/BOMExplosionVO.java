@@ -0,0 +1,19 @@
+package com.tsukilc.idme.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * BOM展开汇总 VO（多层用量汇总，每个物料+单位一行）
+ */
+@Data
+public class BOMExplosionVO {
+    private String partId;                  // 物料ID
+    private String partName;                // 物料名称（展示用）
+    private BigDecimal quantity;            // 汇总用量（沿路径相乘后跨路径求和）
+    private String uom;                     // 单位
+    private Integer level;                  // 最浅出现层级（顶层直接子件为1）
+    private Integer maxLevel;               // 最深出现层级
+    private Boolean leaf;                   // 是否叶子物料（无下层BOM）
+}
@@ -22,6 +22,7 @@ public class BOMItemVO {
     
     private BigDecimal quantity;            // 用量
     private String uom;                     // 单位
+    private String uomDisplayName;          // 单位名称（展示用）
     private Integer findNumber;             // 项次
     private Object effectiveFrom;           // 生效时间（SDK可能返回不同格式）
     private Object effectiveTo;             // 失效时间（SDK可能返回不同格式）
@@ -0,0 +1,24 @@
+package com.tsukilc.idme.vo;
+
+import lombok.Data;
+
+/**
+ * 实体本地缓存统计 VO
+ */
+@Data
+public class EntityCacheStatsVO {
+    // 配置
+    private String entity;                  // 实体名称
+    private Integer maxSize;                // 最大缓存条目数
+    private Long ttlSeconds;                // 条目有效期（秒）
+
+    // 当前状态
+    private Integer size;                   // 当前缓存条目数
+
+    // 累计值（自启动以来）
+    private Long hits;                      // 命中次数
+    private Long misses;                    // 未命中次数（含过期）
+    private Long evictions;                 // 因容量被淘汰的条目数（过期条目保留用于兜底）
+    private Long staleServed;               // iDME不可用时返回过期结果的次数
+    private Double hitRate;                 // 命中率：hits / (hits + misses)
+}
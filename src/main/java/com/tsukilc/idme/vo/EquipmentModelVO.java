@@ -13,9 +13,11 @@ public class EquipmentModelVO {
     private String modelCode;               // 机型编码
     private String modelName;               // 机型名称
     private String manufacturer;            // 默认厂家ID
+    private String manufacturerDisplayName; // 默认厂家名称（展示用）
     private String brand;                   // 默认品牌
     private String modelSpec;               // 默认规格型号
     private String category;                // 设备分类ID
+    private String categoryDisplayName;     // 设备分类名称（展示用）
     private Map<String, Object> defaultTechParams;  // 默认技术参数模板
     private String remarks;                 // 备注
 }
@@ -13,9 +13,11 @@ public class EquipmentVO {
     private String equipmentCode;        // 设备编码
     private String equipmentName;        // 设备名称
     private String manufacturerName;     // 生产厂家ID
+    private String manufacturerDisplayName; // 生产厂家名称（展示用）
     private String brand;                // 品牌
     private String modelSpec;            // 规格型号
     private String supplierName;         // 供应商ID
+    private String supplierDisplayName;  // 供应商名称（展示用）
     private LocalDateTime productionDate;// 生产日期
     private Integer serviceLifeYears;    // 使用年限
     private String depreciationMethod;   // 折旧方式
@@ -24,6 +26,7 @@ public class EquipmentVO {
     private String status;               // 设备状态
     private String serialNumber;         // 序列号
     private String category;             // 设备分类ID
+    private String categoryDisplayName;  // 设备分类名称（展示用）
     private Object techParams;           // 技术参数JSON
     private String remarks;              // 备注
     private LocalDateTime createTime;
@@ -0,0 +1,55 @@
+package com.tsukilc.idme.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * iDME HTTP 客户端连接池/并发统计 VO
+ */
+@Data
+public class IdmeClientStatsVO {
+    // 配置
+    private String protocol;                // 协议模式：auto / http1 / h2c
+    private Integer maxRequests;            // 最大并发请求数
+    private Integer maxRequestsPerHost;     // 单host最大并发请求数
+    private Integer maxIdleConnections;     // 最大空闲连接数
+    private Integer keepAliveMs;            // 空闲连接保活时间（毫秒）
+
+    // 当前状态
+    private Integer runningCalls;           // Dispatcher中正在执行的异步调用数
+    private Integer queuedCalls;            // Dispatcher中排队等待的异步调用数
+    private Integer connectionCount;        // 连接池中的连接总数
+    private Integer idleConnectionCount;    // 连接池中的空闲连接数
+    private Integer inFlightCalls;          // 未完成的调用数（同步+异步，含Dispatcher排队）
+    private Double dispatcherUtilization;   // 单host并发占用率：runningCalls / maxRequestsPerHost（不限制时为0）
+
+    // 累计值（自启动以来）
+    private Long totalCalls;                // 调用总数
+    private Long failedCalls;               // 网络层失败的调用数
+    private Long peakInFlightCalls;         // 未完成调用数峰值
+    private Long newConnections;            // 新建连接数
+    private Long connectFailures;           // 建连失败次数
+    private Long connectionAcquisitions;    // 连接获取次数（远大于新建连接数说明复用良好）
+    private Long queuedEnqueues;            // 入队时需要排队的异步调用数（持续增长说明并发上限饱和）
+    private Long peakQueuedCalls;           // 排队长度峰值
+    private Long coalescedReads;            // 合并到在途调用、未实际发出的读请求数
+    private Integer inFlightReads;          // 当前可被合并的在途读请求数
+
+    // 并发限制（读写舱壁 + 自适应上限）
+    private Integer readLimit;              // 读请求当前并发上限
+    private Integer readInFlight;           // 占用读名额的调用数
+    private Long rejectedReads;             // 名额用满被快速拒绝的读请求数
+    private Integer writeLimit;             // 写请求当前并发上限
+    private Integer writeInFlight;          // 占用写名额的调用数
+    private Long rejectedWrites;            // 名额用满被快速拒绝的写请求数
+    private Long limitDecreases;            // 因超时/慢响应收缩上限的次数（读写合计）
+
+    // 熔断（按 实体/操作）
+    private List<String> openCircuits;      // 当前打开或半开的 实体/操作
+    private Long circuitRejections;         // 熔断期间被直接拒绝的调用数
+
+    // 重试（瞬时故障，指数退避 + 预算）
+    private Long retries;                   // 已发出的重试次数
+    private Long retryBudgetExhausted;      // 因重试预算用尽而放弃重试的次数
+}
@@ -21,8 +21,11 @@ public class PartVO {
     private String modelSpec;  // 规格型号
     private Integer stockQty;  // 库存数量
     private String unit;  // 计量单位ID
+    private String unitDisplayName;  // 计量单位名称（展示用）
     private String supplierName;  // 供应商ID
+    private String supplierDisplayName;  // 供应商名称（展示用）
     private String category;  // 物料分类ID
+    private String categoryDisplayName;  // 物料分类名称（展示用）
     private String businessVersion;  // 业务版本号
     private String versionNumber;  // 系统版本号（对应SDK的version字段，如"A.1"）
     private String description;  // 描述
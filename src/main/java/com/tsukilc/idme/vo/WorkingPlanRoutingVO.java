@@ -0,0 +1,86 @@
+package com.tsukilc.idme.vo;
+
+import com.tsukilc.idme.dto.PlanProcedureItem;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工艺完整路线 VO（工艺 → 工序 → 设备/物料，一次请求返回）
+ * 工序中只记录设备/物料ID及关联属性，设备与物料摘要统一放在去重后的引用表中
+ */
+@Data
+public class WorkingPlanRoutingVO {
+    private WorkingPlanVO plan;                     // 工艺路线
+    private List<Step> steps;                       // 工序步骤（按顺序号升序，无顺序号的排在最后）
+    private Map<String, EquipmentRef> equipment;    // 设备引用表：设备ID -> 设备摘要
+    private Map<String, PartRef> parts;             // 物料引用表：物料ID -> 物料摘要
+
+    /**
+     * 工序步骤
+     */
+    @Data
+    public static class Step {
+        private PlanProcedureItem procedure;        // 工序（含工艺-工序关联信息）
+        private List<EquipmentUse> equipmentUses;   // 使用的设备
+        private List<PartUse> partUses;             // 使用的物料
+    }
+
+    /**
+     * 工序使用设备（来自ProcedureEquipmentLink）
+     */
+    @Data
+    public static class EquipmentUse {
+        private String linkId;                      // 关联ID
+        private String equipmentId;                 // 设备ID（引用表的键）
+        private String role;                        // 角色
+        private LocalDateTime plannedStart;         // 计划开始
+        private LocalDateTime plannedEnd;           // 计划结束
+        private LocalDateTime actualStart;          // 实际开始
+        private LocalDateTime actualEnd;            // 实际结束
+        private String remarks;                     // 备注
+    }
+
+    /**
+     * 工序使用物料（来自ProcedurePartLink）
+     */
+    @Data
+    public static class PartUse {
+        private String linkId;                      // 关联ID
+        private String partId;                      // 物料ID（引用表的键）
+        private Integer quantity;                   // 数量
+        private String uom;                         // 计量单位ID
+        private String uomDisplayName;              // 计量单位名称（展示用）
+        private Boolean isMandatory;                // 是否必需
+        private String role;                        // 角色
+    }
+
+    /**
+     * 设备摘要
+     */
+    @Data
+    public static class EquipmentRef {
+        private String id;
+        private String equipmentCode;               // 设备编码
+        private String equipmentName;               // 设备名称
+        private String modelSpec;                   // 规格型号
+        private String status;                      // 设备状态
+        private String locationText;                // 位置文本
+    }
+
+    /**
+     * 物料摘要
+     */
+    @Data
+    public static class PartRef {
+        private String id;
+        private String partNumber;                  // 物料编号
+        private String partName;                    // 物料名称
+        private String modelSpec;                   // 规格型号
+        private String businessVersion;             // 业务版本号
+        private String unit;                        // 计量单位ID
+        private String unitDisplayName;             // 计量单位名称（展示用）
+    }
+}
@@ -0,0 +1,54 @@
+package com.tsukilc.idme.client;
+
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IdmeCircuitBreaker 单元测试
+ */
+public class IdmeCircuitBreakerTest {
+
+    private final IdmeCircuitBreaker breaker = new IdmeCircuitBreaker(true, 2, 50);
+
+    @Test
+    void testLateResultOfEarlierCallDoesNotCloseOrAdmitSecondProbe() throws InterruptedException {
+        IdmeCircuitBreaker.Permit slow = breaker.acquire("Unit/get");
+        breaker.acquire("Unit/get").onFailure();
+        breaker.acquire("Unit/get").onFailure();
+        assertEquals(List.of("Unit/get"), breaker.getOpenCircuits());
+
+        // 打开前放行的调用晚到的成功不关闭熔断
+        slow.onSuccess();
+        assertThrows(IdmeUnavailableException.class, () -> breaker.acquire("Unit/get"));
+
+        Thread.sleep(60);
+        IdmeCircuitBreaker.Permit probe = breaker.acquire("Unit/get");
+        // 半开期间只有一个探测调用
+        assertThrows(IdmeUnavailableException.class, () -> breaker.acquire("Unit/get"));
+
+        probe.onSuccess();
+        assertTrue(breaker.getOpenCircuits().isEmpty());
+        assertEquals(2, breaker.getRejected());
+    }
+
+    @Test
+    void testLateFailureDuringHalfOpenDoesNotReleaseProbeSlot() throws InterruptedException {
+        IdmeCircuitBreaker.Permit slow = breaker.acquire("Unit/get");
+        breaker.acquire("Unit/get").onFailure();
+        breaker.acquire("Unit/get").onFailure();
+
+        Thread.sleep(60);
+        IdmeCircuitBreaker.Permit probe = breaker.acquire("Unit/get");
+        // 旧调用晚到的失败既不重新打开熔断，也不归还探测名额
+        slow.onFailure();
+        assertThrows(IdmeUnavailableException.class, () -> breaker.acquire("Unit/get"));
+
+        probe.onFailure();
+        assertEquals(List.of("Unit/get"), breaker.getOpenCircuits());
+        assertThrows(IdmeUnavailableException.class, () -> breaker.acquire("Unit/get"));
+    }
+}
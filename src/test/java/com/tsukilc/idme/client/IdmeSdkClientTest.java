@@ -0,0 +1,626 @@
+package com.tsukilc.idme.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tsukilc.idme.config.IdmeConfig;
+import com.tsukilc.idme.config.JacksonConfig;
+import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import com.tsukilc.idme.vo.IdmeClientStatsVO;
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IdmeSdkClient 单元测试（本地桩服务器模拟iDME SDK，不依赖真实服务）
+ */
+public class IdmeSdkClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private IdmeSdkClient client;
+    private final List<IdmeSdkClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(5000);
+        client = new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+        clients.add(client);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.forEach(IdmeSdkClient::close);
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testAsyncCallsRunConcurrently() {
+        // 每个请求延迟200ms，20个异步请求并发完成
+        stub("/dynamic/api/Unit/get", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 200);
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Row>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.getAsync("Unit", "U1", Row.class));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("U1", futures.get(0).join().getId());
+        assertTrue(elapsed < 2000, "异步请求应并发执行，实际耗时 " + elapsed + "ms");
+    }
+
+    @Test
+    void testAsyncFailureCompletesExceptionally() {
+        stub("/dynamic/api/Unit/list", 200, "{\"result\":\"FAIL\",\"errors\":[\"bad condition\"]}", 0);
+        stub("/dynamic/api/Unit/get", 500, "boom", 0);
+
+        CompletionException listError = assertThrows(CompletionException.class,
+                () -> client.listAsync("Unit", null, 1, 10, Row.class).join());
+        assertInstanceOf(IdmeException.class, listError.getCause());
+        assertTrue(listError.getCause().getMessage().contains("bad condition"));
+
+        CompletionException getError = assertThrows(CompletionException.class,
+                () -> client.getAsync("Unit", "U1", Row.class).join());
+        assertTrue(getError.getCause().getMessage().contains("500"));
+    }
+
+    @Test
+    void testSyncAndAsyncReturnSameResult() {
+        stub("/dynamic/api/Unit/find/10/1", 200,
+                "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"},{\"id\":\"U2\"}]}", 0);
+
+        List<Row> sync = client.find("Unit", null, null, 1, 10, Row.class);
+        List<Row> async = client.findAsync("Unit", null, null, 1, 10, Row.class).join();
+        assertEquals(2, sync.size());
+        assertEquals(sync, async);
+    }
+
+    @Test
+    void testStreamingParseHandlesFieldOrderAndErrorDetails() {
+        // data 在 result 之前、含未知字段；get 只取第一个元素
+        stub("/dynamic/api/Unit/get", 200,
+                "{\"data\":[{\"id\":\"U1\",\"extra\":{\"a\":[1,2]}},{\"id\":\"U2\"}],\"meta\":{\"x\":1},\"result\":\"SUCCESS\"}", 0);
+        assertEquals("U1", client.get("Unit", "U1", Row.class).getId());
+
+        // 错误详情在同一遍解析中提取
+        stub("/dynamic/api/Unit/create", 200,
+                "{\"result\":\"FAIL\",\"data\":null,\"errors\":[\"e1\",\"e2\"],\"error_code\":\"IDME.001\",\"error_msg\":\"字段缺失\"}", 0);
+        IdmeException error = assertThrows(IdmeException.class, () -> client.create("Unit", Map.of(), Row.class));
+        assertEquals("SDK 调用失败: e1, e2 - 字段缺失 (错误码: IDME.001)", error.getMessage());
+
+        // FAIL 响应的 data 不是数组（在 result 前后均可）时，仍报告上游的错误详情
+        stub("/dynamic/api/Unit/update", 200,
+                "{\"data\":{\"reason\":\"x\"},\"result\":\"FAIL\",\"error_msg\":\"版本冲突\"}", 0);
+        error = assertThrows(IdmeException.class, () -> client.update("Unit", Map.of("id", "U1"), Row.class));
+        assertEquals("SDK 调用失败 - 版本冲突", error.getMessage());
+        stub("/dynamic/api/Part/get", 200, "{\"result\":\"FAIL\",\"data\":{},\"error_msg\":\"不存在\"}", 0);
+        error = assertThrows(IdmeException.class, () -> client.get("Part", "P1", Row.class));
+        assertEquals("SDK 调用失败 - 不存在", error.getMessage());
+        stub("/dynamic/api/Part/list", 200, "{\"result\":\"SUCCESS\",\"data\":{}}", 0);
+        error = assertThrows(IdmeException.class, () -> client.list("Part", null, 1, 10, Row.class));
+        assertTrue(error.getMessage().contains("data 不是数组"));
+
+        // 大列表逐个元素反序列化
+        StringBuilder body = new StringBuilder("{\"result\":\"SUCCESS\",\"data\":[");
+        for (int i = 0; i < 1000; i++) {
+            body.append(i > 0 ? "," : "").append("{\"id\":\"U").append(i).append("\"}");
+        }
+        stub("/dynamic/api/Unit/list", 200, body.append("]}").toString(), 0);
+        List<Row> units = client.list("Unit", null, 1, 1000, Row.class);
+        assertEquals(1000, units.size());
+        assertEquals("U999", units.get(999).getId());
+    }
+
+    @Test
+    void testListStreamPaginatesWithPrefetch() {
+        // 共25行，每页10行：第1、2页满页，第3页5行后结束
+        List<Integer> requestedPages = stubPages(25, 0);
+
+        try (Stream<Row> rows = client.listStream("Unit", null, 10, Row.class)) {
+            List<String> ids = rows.map(Row::getId).collect(Collectors.toList());
+            assertEquals(25, ids.size());
+            assertEquals("U0", ids.get(0));
+            assertEquals("U24", ids.get(24));
+        }
+        assertEquals(List.of(1, 2, 3), requestedPages);
+
+        // 提前结束：只消费第1页的3行，最多预取到第2页
+        requestedPages.clear();
+        try (Stream<Row> rows = client.listStream("Unit", null, 10, Row.class)) {
+            assertEquals(3, rows.limit(3).count());
+        }
+        assertTrue(requestedPages.size() <= 2, "提前结束不应继续翻页: " + requestedPages);
+    }
+
+    @Test
+    void testListAllParallelFetchesPagesConcurrentlyInOrder() {
+        // 45行，每页10行共5页，每页延迟300ms；并发4时约2个往返
+        List<Integer> requestedPages = stubPages(45, 300);
+        stub("/dynamic/api/Unit/find/1/1", 200,
+                "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U0\"}],\"pageInfo\":{\"curPage\":1,\"pageSize\":1,\"totalRows\":45,\"totalPages\":45}}", 0);
+        IdmeSdkClient scanner = newClient(config -> config.setStreamPageSize(10));
+
+        long start = System.currentTimeMillis();
+        List<Row> rows = scanner.listAllParallel("Unit", null, null, Row.class);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(45, rows.size());
+        for (int i = 0; i < 45; i++) {
+            assertEquals("U" + i, rows.get(i).getId());
+        }
+        assertEquals(5, requestedPages.size());
+        assertTrue(elapsed < 1200, "5页应并行拉取，实际耗时 " + elapsed + "ms");
+    }
+
+    @Test
+    void testListAllParallelContinuesWhenRowsGrowDuringScan() {
+        // 总数返回20，实际有25行：第2页仍是满页，继续翻到第3页
+        List<Integer> requestedPages = stubPages(25, 0);
+        stub("/dynamic/api/Unit/find/1/1", 200,
+                "{\"result\":\"SUCCESS\",\"data\":[],\"pageInfo\":{\"totalRows\":20}}", 0);
+        IdmeSdkClient scanner = newClient(config -> config.setStreamPageSize(10));
+
+        assertEquals(25, scanner.listAllParallel("Unit", null, null, Row.class).size());
+        assertEquals(3, requestedPages.size());
+        assertEquals(20, scanner.count("Unit", null));
+    }
+
+    @Test
+    void testStatsTrackConnectionReuseAndQueueing() {
+        stub("/dynamic/api/Unit/get", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 100);
+
+        // 顺序调用复用同一条连接
+        for (int i = 0; i < 5; i++) {
+            client.get("Unit", "U1", Row.class);
+        }
+        IdmeClientStatsVO stats = client.getStats();
+        assertEquals(5, stats.getTotalCalls());
+        assertEquals(1, stats.getNewConnections());
+        assertEquals(5, stats.getConnectionAcquisitions());
+        assertEquals(1, stats.getIdleConnectionCount());
+        assertEquals(0, stats.getInFlightCalls());
+
+        // 单host上限2，8个不同的异步请求需要排队
+        IdmeSdkClient limited = newClient(config -> config.setMaxRequestsPerHost(2));
+        List<CompletableFuture<Row>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(limited.getAsync("Unit", "U" + i, Row.class));
+        }
+        IdmeClientStatsVO running = limited.getStats();
+        assertEquals(2, running.getRunningCalls());
+        assertEquals(6, running.getQueuedCalls());
+        assertEquals(1.0, running.getDispatcherUtilization());
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        IdmeClientStatsVO done = limited.getStats();
+        assertEquals(6, done.getPeakQueuedCalls());
+        assertEquals(8, done.getPeakInFlightCalls());   // 异步调用入队即计入（含排队）
+        assertTrue(done.getNewConnections() <= 2);
+    }
+
+    @Test
+    void testConcurrentIdenticalReadsShareOneCall() throws Exception {
+        java.util.concurrent.atomic.AtomicInteger hits = new java.util.concurrent.atomic.AtomicInteger();
+        server.createContext("/dynamic/api/Unit/get", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+
+        // 异步与同步调用方混合：10个相同的请求只发出1次
+        List<CompletableFuture<Row>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(client.getAsync("Unit", "U1", Row.class));
+            futures.add(CompletableFuture.supplyAsync(() -> client.get("Unit", "U1", Row.class)));
+        }
+        // 取消其中一个调用方不影响其他调用方
+        futures.get(0).cancel(true);
+        for (int i = 1; i < futures.size(); i++) {
+            assertEquals("U1", futures.get(i).join().getId());
+        }
+        assertEquals(1, hits.get());
+        assertEquals(9, client.getStats().getCoalescedReads());
+        assertEquals(0, client.getStats().getInFlightReads());
+
+        // 完成后不缓存，下一次请求重新发出；读-改-写不参与合并
+        client.get("Unit", "U1", Row.class);
+        CompletableFuture<Row> shared = client.getAsync("Unit", "U1", Row.class);
+        client.getForUpdate("Unit", "U1", Row.class);
+        shared.join();
+        assertEquals(4, hits.get());
+    }
+
+    @Test
+    void testWriteStopsCoalescingWithEarlierReads() {
+        stub("/dynamic/api/Unit/get", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 300);
+        stub("/dynamic/api/Unit/update", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 0);
+
+        CompletableFuture<Row> beforeWrite = client.getAsync("Unit", "U1", Row.class);
+        client.update("Unit", Map.of("id", "U1"), Row.class);
+        CompletableFuture<Row> afterWrite = client.getAsync("Unit", "U1", Row.class);
+        CompletableFuture.allOf(beforeWrite, afterWrite).join();
+        assertEquals(0, client.getStats().getCoalescedReads());
+    }
+
+    @Test
+    void testGetByIdsChunksConcurrently() {
+        List<List<String>> requestedChunks = java.util.Collections.synchronizedList(new ArrayList<>());
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new JacksonConfig().objectMapper();
+        server.createContext("/dynamic/api/Unit/find", exchange -> {
+            Map<?, ?> request = mapper.readValue(exchange.getRequestBody(), Map.class);
+            // findRequest 的 params 外层还有一层 RdmRequest.params
+            Map<?, ?> params = (Map<?, ?>) ((Map<?, ?>) request.get("params")).get("params");
+            Map<?, ?> filter = (Map<?, ?>) params.get("filter");
+            Map<?, ?> condition = (Map<?, ?>) ((List<?>) filter.get("conditions")).get(0);
+            assertEquals("in", condition.get("operator"));
+            @SuppressWarnings("unchecked")
+            List<String> ids = (List<String>) condition.get("conditionValues");
+            requestedChunks.add(ids);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // U4 不存在
+            String rows = ids.stream().filter(id -> !id.equals("U4"))
+                    .map(id -> "{\"id\":\"" + id + "\"}").collect(Collectors.joining(","));
+            byte[] bytes = ("{\"result\":\"SUCCESS\",\"data\":[" + rows + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+
+        IdmeSdkClient batched = newClient(config -> config.setBatchGetSize(2));
+        long start = System.currentTimeMillis();
+        Map<String, Row> result = batched.getByIds("Unit",
+                java.util.Arrays.asList("U1", "U2", "U3", "U1", null, "U4", "U5"),
+                Row.class, Row::getId);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(java.util.Set.of("U1", "U2", "U3", "U5"), result.keySet());
+        assertEquals(3, requestedChunks.size());
+        assertTrue(requestedChunks.stream().allMatch(chunk -> chunk.size() <= 2));
+        assertTrue(elapsed < 550, "各块应并发发出，实际耗时 " + elapsed + "ms");
+        assertTrue(batched.getByIds("Unit", List.of(), Row.class, Row::getId).isEmpty());
+    }
+
+    @Test
+    void testFindAllInPagesWithinEachChunk() {
+        List<String> requests = java.util.Collections.synchronizedList(new ArrayList<>());
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new JacksonConfig().objectMapper();
+        server.createContext("/dynamic/api/ProcedurePartLink/find", exchange -> {
+            // 路径为 /find/{pageSize}/{curPage}
+            String[] segments = exchange.getRequestURI().getPath().split("/");
+            int pageSize = Integer.parseInt(segments[segments.length - 2]);
+            int curPage = Integer.parseInt(segments[segments.length - 1]);
+            Map<?, ?> request = mapper.readValue(exchange.getRequestBody(), Map.class);
+            Map<?, ?> params = (Map<?, ?>) ((Map<?, ?>) request.get("params")).get("params");
+            Map<?, ?> condition = (Map<?, ?>) ((List<?>) ((Map<?, ?>) params.get("filter")).get("conditions")).get(0);
+            assertEquals("procedure.id", condition.get("conditionName"));
+            @SuppressWarnings("unchecked")
+            List<String> values = (List<String>) condition.get("conditionValues");
+            requests.add(values + "#" + curPage);
+
+            // 每个工序一条关联，按页切分
+            List<String> rows = values.stream().map(value -> "{\"id\":\"L-" + value + "\"}")
+                    .collect(Collectors.toList());
+            int from = Math.min((curPage - 1) * pageSize, rows.size());
+            String page = String.join(",", rows.subList(from, Math.min(from + pageSize, rows.size())));
+            byte[] bytes = ("{\"result\":\"SUCCESS\",\"data\":[" + page + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+
+        IdmeSdkClient batched = newClient(config -> {
+            config.setBatchGetSize(3);
+            config.setStreamPageSize(2);
+        });
+        List<Row> rows = batched.findAllIn("ProcedurePartLink", "procedure.id",
+                java.util.Arrays.asList("P1", "P2", "P3", "P2", "P4"), Row.class);
+
+        assertEquals(java.util.Set.of("L-P1", "L-P2", "L-P3", "L-P4"),
+                rows.stream().map(Row::getId).collect(Collectors.toSet()));
+        // 第一块3个取值需要两页，第二块一页
+        assertEquals(3, requests.size());
+        assertTrue(requests.contains("[P1, P2, P3]#2"));
+        assertTrue(batched.findAllIn("ProcedurePartLink", "procedure.id", List.of(), Row.class).isEmpty());
+    }
+
+    @Test
+    void testReadBulkheadFailsFastAndShrinksOnSlowUpstream() {
+        stub("/dynamic/api/Unit/get", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 300);
+        stub("/dynamic/api/Unit/delete", 200, "{\"result\":\"SUCCESS\",\"data\":[]}", 0);
+        IdmeSdkClient limited = newClient(config -> {
+            config.setCoalesceReads(false);
+            config.setLimiterMaxReads(4);
+            config.setLimiterMinLimit(1);
+            config.setLimiterLatencyThresholdMs(100);
+            config.setLimiterBackoffRatio(0.5);
+        });
+
+        List<CompletableFuture<Row>> inFlight = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inFlight.add(limited.getAsync("Unit", "U" + i, Row.class));
+        }
+
+        // 读名额用满：立即失败，不等上游
+        long start = System.currentTimeMillis();
+        IdmeException e = assertThrows(IdmeException.class, () -> limited.get("Unit", "U9", Row.class));
+        assertTrue(e.getMessage().contains("并发已达上限"));
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertTrue(limited.getAsync("Unit", "U9", Row.class).isCompletedExceptionally());
+
+        // 写请求走独立舱壁，不受影响
+        limited.delete("Unit", "U1");
+
+        inFlight.forEach(CompletableFuture::join);
+        IdmeClientStatsVO stats = limited.getStats();
+        assertEquals(0, stats.getReadInFlight());
+        assertEquals(2, stats.getRejectedReads());
+        assertEquals(0, stats.getRejectedWrites());
+        // 4次慢响应：4 -> 2 -> 1 -> 1
+        assertEquals(1, stats.getReadLimit());
+        assertEquals(16, stats.getWriteLimit());
+    }
+
+    @Test
+    void testCircuitOpensPerOperationAndProbesAfterOpenPeriod() throws InterruptedException {
+        java.util.concurrent.atomic.AtomicInteger status = new java.util.concurrent.atomic.AtomicInteger(500);
+        java.util.concurrent.atomic.AtomicInteger hits = new java.util.concurrent.atomic.AtomicInteger();
+        server.createContext("/dynamic/api/Unit/get", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub("/dynamic/api/Unit/delete", 200, "{\"result\":\"SUCCESS\",\"data\":[]}", 0);
+        IdmeSdkClient breaking = newClient(config -> {
+            config.setCoalesceReads(false);
+            config.setCircuitFailureThreshold(2);
+            config.setCircuitOpenMs(200);
+            config.setRetryEnabled(false);
+        });
+
+        assertThrows(IdmeException.class, () -> breaking.get("Unit", "U1", Row.class));
+        assertThrows(IdmeException.class, () -> breaking.get("Unit", "U1", Row.class));
+        assertEquals(List.of("Unit/get"), breaking.getStats().getOpenCircuits());
+
+        // 打开期间不再请求上游；异步调用返回失败的 future
+        assertThrows(IdmeUnavailableException.class, () -> breaking.get("Unit", "U1", Row.class));
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> breaking.getAsync("Unit", "U1", Row.class).join());
+        assertInstanceOf(IdmeUnavailableException.class, async.getCause());
+        assertEquals(2, hits.get());
+        assertEquals(2, breaking.getStats().getCircuitRejections());
+
+        // 其他 实体/操作 不受影响
+        breaking.delete("Unit", "U1");
+
+        // 打开期满后放行一个探测调用，成功则关闭
+        Thread.sleep(250);
+        status.set(200);
+        assertNotNull(breaking.get("Unit", "U1", Row.class));
+        assertTrue(breaking.getStats().getOpenCircuits().isEmpty());
+        assertEquals("Unit/find", IdmeSdkClient.circuitKeyOf("http://h/s/dynamic/api/Unit/find/500/1"));
+        assertEquals("Part/list", IdmeSdkClient.circuitKeyOf("http://h/s/dynamic/api/Part/list?curPage=1&pageSize=10"));
+    }
+
+    @Test
+    void testIdempotentReadsRetryTransientFailures() {
+        List<String> getHits = stubFaults("/dynamic/api/Unit/get", "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}",
+                "503", "504");
+        List<String> asyncHits = stubFaults("/dynamic/api/Part/get", "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"P1\"}]}",
+                "502");
+        stubFaults("/dynamic/api/Unit/delete", "{\"result\":\"SUCCESS\",\"data\":[]}", "503");
+        IdmeSdkClient retrying = newClient(config -> config.setRetryBaseDelayMs(10));
+
+        assertEquals("U1", retrying.get("Unit", "U1", Row.class).getId());
+        assertEquals(3, getHits.size());
+        assertEquals("P1", retrying.getAsync("Part", "P1", Row.class).join().getId());
+        assertEquals(2, asyncHits.size());
+
+        // 删除不幂等，不重试
+        assertThrows(IdmeException.class, () -> retrying.delete("Unit", "U1"));
+        assertEquals(3, retrying.getStats().getRetries());
+    }
+
+    @Test
+    void testDroppedPooledConnectionRecoveredForWrites() {
+        stub("/dynamic/api/Unit/get", 200, "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", 0);
+        String updated = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"X1\"}]}";
+        Map<String, List<String>> hitsByEntity = Map.of(
+                "Part", stubFaults("/dynamic/api/Part/update", updated, "reset"),
+                "Employee", stubFaults("/dynamic/api/Employee/update", updated, "reset"));
+
+        // 重试策略开启与关闭两种情况：先建立复用连接，上游随后在该连接上直接断开，
+        // 由 OkHttp 自动重发（更新不在重试策略范围内，也不计入重试次数）
+        for (boolean retryEnabled : List.of(true, false)) {
+            String entity = retryEnabled ? "Part" : "Employee";
+            IdmeSdkClient writer = newClient(config -> config.setRetryEnabled(retryEnabled));
+            writer.get("Unit", "U1", Row.class);
+            Row result = writer.update(entity, Map.of("id", "X1"), Row.class);
+            assertEquals("X1", result.getId());
+            assertEquals(2, hitsByEntity.get(entity).size());
+            assertEquals(0, writer.getStats().getRetries());
+        }
+    }
+
+    @Test
+    void testCreateRetriedOnlyWithIdempotencyKey() {
+        String created = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}";
+        List<String> plainHits = stubFaults("/dynamic/api/Unit/create", created, "503");
+        List<String> keyedHits = stubFaults("/dynamic/api/Part/create", created, "503", "reset");
+        IdmeSdkClient retrying = newClient(config -> config.setRetryBaseDelayMs(10));
+
+        assertThrows(IdmeException.class, () -> retrying.create("Unit", Map.of("unitName", "kg"), Row.class));
+        assertEquals(List.of(""), plainHits);
+
+        // 所有尝试携带同一个幂等键，上游据此去重
+        Row part = retrying.createAsync("Part", Map.of("partName", "p"), Row.class, "req-42").join();
+        assertEquals("U1", part.getId());
+        assertEquals(List.of("req-42", "req-42", "req-42"), keyedHits);
+    }
+
+    @Test
+    void testRetryBudgetStopsRetryStorm() {
+        stub("/dynamic/api/Unit/get", 503, "down", 0);
+        IdmeSdkClient retrying = newClient(config -> {
+            config.setCoalesceReads(false);
+            config.setCircuitBreakerEnabled(false);
+            config.setRetryMaxAttempts(5);
+            config.setRetryBaseDelayMs(1);
+            config.setRetryBudgetRatio(0.0);
+            config.setRetryBudgetBurst(2);
+        });
+
+        for (int i = 0; i < 3; i++) {
+            IdmeException e = assertThrows(IdmeException.class, () -> retrying.get("Unit", "U1", Row.class));
+            assertTrue(e.getMessage().contains("503"));
+        }
+        IdmeClientStatsVO stats = retrying.getStats();
+        assertEquals(2, stats.getRetries());
+        assertEquals(3, stats.getRetryBudgetExhausted());
+    }
+
+    @Test
+    void testUnknownProtocolRejected() {
+        IdmeConfig config = new IdmeConfig();
+        config.setProtocol("spdy");
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdmeSdkClient(config, new JacksonConfig().objectMapper()));
+    }
+
+    private IdmeSdkClient newClient(java.util.function.Consumer<IdmeConfig> customizer) {
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(5000);
+        customizer.accept(config);
+        IdmeSdkClient created = new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+        clients.add(created);
+        return created;
+    }
+
+    /**
+     * list接口桩：共 totalRows 行（id 为 U0..Un），按 curPage/pageSize 返回，记录请求的页码
+     */
+    private List<Integer> stubPages(int totalRows, long delayMs) {
+        List<Integer> requestedPages = java.util.Collections.synchronizedList(new ArrayList<>());
+        server.createContext("/dynamic/api/Unit/list", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            String query = exchange.getRequestURI().getQuery();
+            int page = Integer.parseInt(query.replaceAll(".*curPage=(\\d+).*", "$1"));
+            int pageSize = Integer.parseInt(query.replaceAll(".*pageSize=(\\d+).*", "$1"));
+            requestedPages.add(page);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder body = new StringBuilder("{\"result\":\"SUCCESS\",\"data\":[");
+            int from = (page - 1) * pageSize;
+            for (int i = from; i < Math.min(from + pageSize, totalRows); i++) {
+                body.append(i > from ? "," : "").append("{\"id\":\"U").append(i).append("\"}");
+            }
+            byte[] bytes = body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        return requestedPages;
+    }
+
+    /**
+     * 故障注入桩：前几次请求依次按 faults 处理（"reset" 为不返回响应直接断开连接，其他为HTTP状态码），之后返回200
+     *
+     * @return 每次请求携带的 Idempotency-Key 请求头（未携带为空串）
+     */
+    private List<String> stubFaults(String path, String body, String... faults) {
+        List<String> idempotencyKeys = java.util.Collections.synchronizedList(new ArrayList<>());
+        server.createContext(path, exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            int hit;
+            synchronized (idempotencyKeys) {
+                idempotencyKeys.add(key != null ? key : "");
+                hit = idempotencyKeys.size();
+            }
+            String fault = hit <= faults.length ? faults[hit - 1] : null;
+            if ("reset".equals(fault)) {
+                exchange.close();
+                return;
+            }
+            byte[] bytes = (fault != null ? "injected" : body).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(fault != null ? Integer.parseInt(fault) : 200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        return idempotencyKeys;
+    }
+
+    private void stub(String path, int status, String body, long delayMs) {
+        server.createContext(path, exchange -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+
+    /**
+     * 桩服务器返回的行（只取ID）
+     */
+    @Data
+    static class Row {
+        private String id;
+    }
+}
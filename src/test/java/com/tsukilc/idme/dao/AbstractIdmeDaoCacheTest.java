@@ -0,0 +1,218 @@
+package com.tsukilc.idme.dao;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tsukilc.idme.client.IdmeSdkClient;
+import com.tsukilc.idme.config.IdmeConfig;
+import com.tsukilc.idme.config.JacksonConfig;
+import com.tsukilc.idme.common.StaleData;
+import com.tsukilc.idme.entity.Unit;
+import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.exception.IdmeUnavailableException;
+import com.tsukilc.idme.vo.EntityCacheStatsVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AbstractIdmeDao 实体缓存单元测试（本地桩服务器模拟iDME SDK）
+ */
+public class AbstractIdmeDaoCacheTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private UnitDao unitDao;
+    private final AtomicInteger getHits = new AtomicInteger();
+    private final List<IdmeSdkClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        stub("/dynamic/api/Unit/get", "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\",\"unitName\":\"千克\"}]}", getHits);
+        stub("/dynamic/api/Unit/update", "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}", new AtomicInteger());
+        stub("/dynamic/api/Unit/delete", "{\"result\":\"SUCCESS\",\"data\":[]}", new AtomicInteger());
+
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(5000);
+        unitDao = new UnitDao();
+        unitDao.sdkClient = new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+        clients.add(unitDao.sdkClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.forEach(IdmeSdkClient::close);
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testFindByIdServedFromCacheUntilWrite() {
+        Unit first = unitDao.findById("U1");
+        Unit second = unitDao.findById("U1");
+        assertSame(first, second);
+        assertSame(first, unitDao.findByIdAsync("U1").join());
+        assertEquals(1, getHits.get());
+
+        // 读-改-写不经过缓存
+        assertNotSame(first, unitDao.findByIdForUpdate("U1"));
+        assertEquals(2, getHits.get());
+
+        Unit changed = new Unit();
+        changed.setId("U1");
+        unitDao.update(changed);
+        unitDao.findById("U1");
+        assertEquals(3, getHits.get());
+
+        unitDao.delete("U1");
+        unitDao.findByIdAsync("U1").join();
+        assertEquals(4, getHits.get());
+
+        EntityCacheStatsVO stats = unitDao.getCacheStats();
+        assertEquals("Unit", stats.getEntity());
+        assertEquals(2, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void testFindByIdsServesCachedAndFetchesRest() {
+        AtomicInteger findHits = new AtomicInteger();
+        stub("/dynamic/api/Unit/find", "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U2\"},{\"id\":\"U3\"}]}", findHits);
+
+        Unit cached = unitDao.findById("U1");
+        Map<String, Unit> result = unitDao.findByIds(List.of("U1", "U2", "U3", "U9"));
+        assertSame(cached, result.get("U1"));
+        assertEquals(java.util.Set.of("U1", "U2", "U3"), result.keySet());
+        assertEquals(1, findHits.get());
+
+        // 批量查到的结果回填缓存
+        unitDao.findByIds(List.of("U2", "U3"));
+        unitDao.findById("U2");
+        assertEquals(1, findHits.get());
+        assertEquals(1, getHits.get());
+    }
+
+    @Test
+    void testSizeAndTtlEviction() throws InterruptedException {
+        EntityCache<String, String> cache = new EntityCache<>("Test", 2, Duration.ofMillis(100));
+        cache.putIfNotInvalidated("a", "A", cache.stamp());
+        cache.putIfNotInvalidated("b", "B", cache.stamp());
+        assertEquals("A", cache.get("a"));
+        // 容量满时淘汰最久未访问的 b
+        cache.putIfNotInvalidated("c", "C", cache.stamp());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+
+        Thread.sleep(150);
+        assertNull(cache.get("a"));
+        // 过期条目保留，作为上游不可用时的兜底
+        assertEquals("A", cache.getStale("a"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(1, cache.getStats().getStaleServed());
+    }
+
+    @Test
+    void testServesStaleWhileCircuitOpen() throws InterruptedException {
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicInteger upstreamHits = new AtomicInteger();
+        server.removeContext("/dynamic/api/Unit/get");
+        for (String operation : List.of("get", "list")) {
+            server.createContext("/dynamic/api/Unit/" + operation, exchange -> {
+                upstreamHits.incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+                byte[] bytes = "{\"result\":\"SUCCESS\",\"data\":[{\"id\":\"U1\"}]}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status.get(), bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            });
+        }
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(5000);
+        config.setCircuitFailureThreshold(1);
+        config.setRetryEnabled(false);
+        UnitDao shortLived = new UnitDao() {
+            @Override
+            protected EntityCache<String, Unit> createCache() {
+                return new EntityCache<>("Unit", 10, Duration.ofMillis(20));
+            }
+        };
+        shortLived.sdkClient = new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+        clients.add(shortLived.sdkClient);
+
+        Unit fresh = shortLived.findById("U1");
+        List<Unit> freshList = shortLived.findAll(1, 10);
+        Thread.sleep(40);
+
+        // 上游故障：每个 实体/操作 第一次调用真实失败并打开熔断
+        status.set(503);
+        assertThrows(IdmeException.class, () -> shortLived.findById("U1"));
+        assertThrows(IdmeException.class, () -> shortLived.findAll(1, 10));
+        int hitsWhenOpened = upstreamHits.get();
+
+        // 熔断期间：返回最近一次成功的结果，标记响应为过期数据，不再请求上游
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertSame(fresh, shortLived.findById("U1"));
+            assertTrue(StaleData.isMarked());
+            assertSame(fresh, shortLived.findByIdAsync("U1").join());
+            assertSame(freshList, shortLived.findAll(1, 10));
+            assertSame(freshList, shortLived.findAllAsync(1, 10).join());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        assertEquals(hitsWhenOpened, upstreamHits.get());
+        assertEquals(2, shortLived.getCacheStats().getStaleServed());
+
+        // 从未成功查询过的没有兜底，快速失败
+        assertThrows(IdmeUnavailableException.class, () -> shortLived.findAll(2, 10));
+        CompletionException async = assertThrows(CompletionException.class, () -> shortLived.findAllAsync(2, 10).join());
+        assertInstanceOf(IdmeUnavailableException.class, async.getCause());
+        assertThrows(IdmeUnavailableException.class, () -> shortLived.findById("U2"));
+    }
+
+    @Test
+    void testReadStartedBeforeInvalidationNotBackfilled() {
+        EntityCache<String, String> cache = new EntityCache<>("Test", 10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        cache.invalidate("a");
+        cache.putIfNotInvalidated("a", "stale", stamp);
+        assertNull(cache.get("a"));
+    }
+
+    private void stub(String path, String body, AtomicInteger hits) {
+        server.createContext(path, exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+}
@@ -0,0 +1,261 @@
+package com.tsukilc.idme.service;
+
+import com.tsukilc.idme.dao.BOMItemDao;
+import com.tsukilc.idme.dao.BusinessPartnerDao;
+import com.tsukilc.idme.dao.EquipmentClassficationDao;
+import com.tsukilc.idme.dao.EquipmentModelDao;
+import com.tsukilc.idme.dao.PartClassficationDao;
+import com.tsukilc.idme.dao.UnitDao;
+import com.tsukilc.idme.dto.BOMItemBatchCreateDTO;
+import com.tsukilc.idme.dto.BOMItemCreateDTO;
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.service.bom.BomGraph;
+import com.tsukilc.idme.vo.BOMItemVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BOMItemService 单元测试（内存桩DAO模拟iDME）
+ * - 写操作增量维护的BOM图与按上游全量重建的图一致
+ * - 迭代展开的BOM树与原先逐层递归展开的结果一致
+ */
+public class BOMItemServiceTest {
+
+    private static final List<String> PARTS = List.of("A", "B", "C", "D", "E", "F");
+
+    private final MemoryBomItemDao dao = new MemoryBomItemDao();
+    private final BOMItemService service = new BOMItemService(dao, new ReferenceDataService(new UnitDao(),
+            new PartClassficationDao(), new EquipmentClassficationDao(), new EquipmentModelDao(),
+            new BusinessPartnerDao()));
+
+    @Test
+    void testWritesKeepGraphEqualToRebuild() {
+        dao.put(line("L1", "A", "B"));
+        dao.put(line("L2", "B", "C"));
+
+        String created = service.create(dto("A", "D")).getId();
+        assertGraphMatchesUpstream();
+
+        // 移边：从 A->D 移到 C->D，旧父件 A 不再使用 D
+        service.update(created, dto("C", "D"));
+        assertGraphMatchesUpstream();
+        assertEquals(List.of("B"), graph().childrenOf("A"));
+
+        // 其他实例直接写入上游、尚未进入缓存的行
+        dao.put(line("L9", "E", "F"));
+        service.update("L9", dto("D", "F"));
+        assertGraphMatchesUpstream();
+
+        service.delete("L2");
+        service.delete("L9");
+        assertGraphMatchesUpstream();
+    }
+
+    @Test
+    void testRejectedWritesLeaveGraphUnchanged() {
+        dao.put(line("L1", "A", "B"));
+        dao.put(line("L2", "B", "C"));
+        service.getTreeByParent("A");
+
+        assertThrows(IdmeException.class, () -> service.create(dto("C", "A")));
+        assertThrows(IdmeException.class, () -> service.update("L1", dto("C", "A")));
+        assertGraphMatchesUpstream();
+        assertEquals(List.of("B"), graph().childrenOf("A"));
+    }
+
+    @Test
+    void testBatchCreateKeepsGraphEqualToRebuild() {
+        dao.put(line("L1", "A", "B"));
+
+        service.batchCreate(batch(dto("B", "C"), dto("B", "D"), dto("D", "E")));
+        assertGraphMatchesUpstream();
+
+        // 成环批次整体拒绝，不写上游
+        assertThrows(IdmeException.class, () -> service.batchCreate(batch(dto("E", "F"), dto("F", "A"))));
+        assertGraphMatchesUpstream();
+
+        // 中途失败：已创建的行回滚，图不变
+        dao.failOnCreate.set(2);
+        assertThrows(IdmeException.class, () -> service.batchCreate(batch(dto("C", "E"), dto("C", "F"))));
+        assertGraphMatchesUpstream();
+        assertEquals(4, graph().edgeCount());
+    }
+
+    @Test
+    void testIterativeTreeMatchesRecursiveExpansion() {
+        // 共用子装配（D 被 B、C 共用），兄弟子树互不影响
+        dao.put(line("L1", "A", "B"));
+        dao.put(line("L2", "A", "C"));
+        dao.put(line("L3", "B", "D"));
+        dao.put(line("L4", "C", "D"));
+        dao.put(line("L5", "D", "E"));
+        dao.put(line("L6", "D", "F"));
+        // 上游已存在的环（如其他实例绕过校验写入）：展开到路径上已出现的物料时停止
+        dao.put(line("L7", "E", "B"));
+
+        for (String part : PARTS) {
+            assertEquals(recursiveTree(dao.scanAll(), part, new HashSet<>(), 0),
+                    render(service.getTreeByParent(part)), "起始物料 " + part);
+        }
+    }
+
+    @Test
+    void testIterativeTreeMatchesRecursiveExpansionBeyondDepthLimit() {
+        for (int i = 0; i < 105; i++) {
+            dao.put(line("L" + i, "P" + i, "P" + (i + 1)));
+        }
+        assertEquals(recursiveTree(dao.scanAll(), "P0", new HashSet<>(), 0),
+                render(service.getTreeByParent("P0")));
+    }
+
+    private BomGraph graph() {
+        @SuppressWarnings("unchecked")
+        AtomicReference<BomGraph> graphRef = (AtomicReference<BomGraph>) ReflectionTestUtils.getField(service, "graphRef");
+        return graphRef.get();
+    }
+
+    private void assertGraphMatchesUpstream() {
+        BomGraph rebuilt = BomGraph.of(dao.scanAll());
+        BomGraph cached = graph();
+        assertEquals(rebuilt.edgeCount(), cached.edgeCount());
+        assertEquals(adjacencyOf(rebuilt), adjacencyOf(cached));
+        assertEquals(rebuilt.isAcyclic(), cached.isAcyclic());
+    }
+
+    /**
+     * 每个物料的下层/上层BOM行ID（排序后比较，与插入顺序无关）
+     */
+    private static Map<String, String> adjacencyOf(BomGraph graph) {
+        Map<String, String> adjacency = new TreeMap<>();
+        for (String part : PARTS) {
+            Set<String> down = graph.linesOf(part).stream()
+                    .map(BOMItem::getId).collect(Collectors.toCollection(TreeSet::new));
+            Set<String> up = graph.usagesOf(part).stream()
+                    .map(BOMItem::getId).collect(Collectors.toCollection(TreeSet::new));
+            adjacency.put(part, down + " / " + up);
+        }
+        return adjacency;
+    }
+
+    /**
+     * 原先的逐层递归展开（每层按上游返回顺序过滤直接子项，向各子树传递已访问集合的副本）
+     */
+    private static String recursiveTree(List<BOMItem> allItems, String parentPartId, Set<String> visited, int depth) {
+        if (depth >= 100 || visited.contains(parentPartId)) {
+            return "";
+        }
+        visited.add(parentPartId);
+        List<String> nodes = new ArrayList<>();
+        for (BOMItem item : allItems) {
+            if (!parentPartId.equals(BomGraph.parentIdOf(item))) {
+                continue;
+            }
+            String childPartId = BomGraph.childIdOf(item);
+            nodes.add(childPartId != null
+                    ? item.getId() + "[" + recursiveTree(allItems, childPartId, new HashSet<>(visited), depth + 1) + "]"
+                    : item.getId());
+        }
+        return String.join(",", nodes);
+    }
+
+    private static String render(List<BOMItemVO> tree) {
+        return tree.stream()
+                .map(vo -> vo.getChildren() != null ? vo.getId() + "[" + render(vo.getChildren()) + "]" : vo.getId())
+                .collect(Collectors.joining(","));
+    }
+
+    private static BOMItemCreateDTO dto(String parent, String child) {
+        BOMItemCreateDTO dto = new BOMItemCreateDTO();
+        dto.setParentPart(parent);
+        dto.setChildPart(child);
+        dto.setQuantity(BigDecimal.ONE);
+        return dto;
+    }
+
+    private static BOMItemBatchCreateDTO batch(BOMItemCreateDTO... items) {
+        BOMItemBatchCreateDTO dto = new BOMItemBatchCreateDTO();
+        dto.setItems(List.of(items));
+        return dto;
+    }
+
+    private static BOMItem line(String id, String parent, String child) {
+        BOMItem item = new BOMItem();
+        item.setId(id);
+        item.setTarget(new ObjectReference(parent, "Part"));
+        item.setSource(new ObjectReference(child, "Part"));
+        return item;
+    }
+
+    /**
+     * 内存中的上游BOM项：按写入顺序返回，每次读取返回副本
+     */
+    private static class MemoryBomItemDao extends BOMItemDao {
+
+        private final Map<String, BOMItem> rows = new LinkedHashMap<>();
+        private final AtomicInteger sequence = new AtomicInteger();
+        /** 大于0时，第N次创建失败 */
+        private final AtomicInteger failOnCreate = new AtomicInteger();
+
+        synchronized void put(BOMItem item) {
+            rows.put(item.getId(), item);
+        }
+
+        @Override
+        public synchronized BOMItem create(BOMItem entity) {
+            if (failOnCreate.get() > 0 && failOnCreate.decrementAndGet() == 0) {
+                throw new IdmeException("upstream down");
+            }
+            BOMItem created = line("N" + sequence.incrementAndGet(),
+                    BomGraph.parentIdOf(entity), BomGraph.childIdOf(entity));
+            rows.put(created.getId(), created);
+            return copy(created);
+        }
+
+        @Override
+        public synchronized BOMItem update(BOMItem entity) {
+            if (!rows.containsKey(entity.getId())) {
+                throw new IdmeException("BOM项不存在: " + entity.getId());
+            }
+            BOMItem updated = line(entity.getId(), BomGraph.parentIdOf(entity), BomGraph.childIdOf(entity));
+            rows.put(updated.getId(), updated);
+            return copy(updated);
+        }
+
+        @Override
+        public synchronized void delete(String id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public synchronized BOMItem findById(String id) {
+            BOMItem row = rows.get(id);
+            return row != null ? copy(row) : null;
+        }
+
+        @Override
+        public synchronized List<BOMItem> scanAll() {
+            return rows.values().stream().map(MemoryBomItemDao::copy).collect(Collectors.toList());
+        }
+
+        private static BOMItem copy(BOMItem row) {
+            return line(row.getId(), BomGraph.parentIdOf(row), BomGraph.childIdOf(row));
+        }
+    }
+}
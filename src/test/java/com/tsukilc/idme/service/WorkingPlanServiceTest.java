@@ -0,0 +1,150 @@
+package com.tsukilc.idme.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tsukilc.idme.client.IdmeSdkClient;
+import com.tsukilc.idme.common.StaleData;
+import com.tsukilc.idme.config.IdmeConfig;
+import com.tsukilc.idme.config.JacksonConfig;
+import com.tsukilc.idme.dao.EntityCache;
+import com.tsukilc.idme.dao.EquipmentDao;
+import com.tsukilc.idme.dao.PartDao;
+import com.tsukilc.idme.dao.PlanProcedureLinkDao;
+import com.tsukilc.idme.dao.ProcedureEquipmentLinkDao;
+import com.tsukilc.idme.dao.ProcedurePartLinkDao;
+import com.tsukilc.idme.dao.WorkingPlanDao;
+import com.tsukilc.idme.dao.WorkingProcedureDao;
+import com.tsukilc.idme.dto.PlanProcedureItem;
+import com.tsukilc.idme.entity.WorkingProcedure;
+import com.tsukilc.idme.exception.IdmeException;
+import com.tsukilc.idme.vo.WorkingPlanRoutingVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WorkingPlanService 工艺完整路线单元测试（本地桩服务器模拟iDME SDK）
+ */
+public class WorkingPlanServiceTest {
+
+    private static final Map<String, String> ROWS = Map.of(
+            "WorkingPlan", "[{\"id\":\"P1\",\"planCode\":\"GY-01\"}]",
+            "PlanProcedureLink", "[{\"id\":\"L2\",\"procedure\":{\"id\":\"W2\"},\"sequenceNo\":20},"
+                    + "{\"id\":\"L1\",\"procedure\":{\"id\":\"W1\"},\"sequenceNo\":10}]",
+            "WorkingProcedure", "[{\"id\":\"W1\",\"procedureName\":\"下料\"},{\"id\":\"W2\",\"procedureName\":\"焊接\"}]");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private IdmeSdkClient client;
+    private WorkingPlanService service;
+    private final AtomicInteger procedureStatus = new AtomicInteger(200);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.createContext("/dynamic/api/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath().substring("/dynamic/api/".length());
+            String entity = path.substring(0, path.indexOf('/'));
+            int status = "WorkingProcedure".equals(entity) ? procedureStatus.get() : 200;
+            byte[] bytes = ("{\"result\":\"SUCCESS\",\"data\":" + ROWS.getOrDefault(entity, "[]") + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        IdmeConfig config = new IdmeConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setTimeout(5000);
+        config.setCircuitFailureThreshold(1);
+        config.setRetryEnabled(false);
+        client = new IdmeSdkClient(config, new JacksonConfig().objectMapper());
+
+        WorkingProcedureDao procedureDao = new WorkingProcedureDao() {
+            @Override
+            protected EntityCache<String, WorkingProcedure> createCache() {
+                return new EntityCache<>(getEntityName(), 10, Duration.ofMillis(20));
+            }
+        };
+        service = new WorkingPlanService(withClient(new WorkingPlanDao()));
+        ReflectionTestUtils.setField(service, "sdkClient", client);
+        ReflectionTestUtils.setField(service, "planProcedureLinkService",
+                new PlanProcedureLinkService(withClient(new PlanProcedureLinkDao())));
+        ReflectionTestUtils.setField(service, "workingProcedureService",
+                new WorkingProcedureService(withClient(procedureDao)));
+        ReflectionTestUtils.setField(service, "procedureEquipmentLinkService",
+                new ProcedureEquipmentLinkService(withClient(new ProcedureEquipmentLinkDao())));
+        ReflectionTestUtils.setField(service, "procedurePartLinkService",
+                new ProcedurePartLinkService(withClient(new ProcedurePartLinkDao())));
+        ReflectionTestUtils.setField(service, "equipmentDao", withClient(new EquipmentDao()));
+        ReflectionTestUtils.setField(service, "partDao", withClient(new PartDao()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testRoutingOrdersStepsBySequence() {
+        WorkingPlanRoutingVO routing = service.getRouting("P1");
+
+        assertEquals("P1", routing.getPlan().getId());
+        assertEquals(List.of("下料", "焊接"), procedureNamesOf(routing));
+        assertTrue(routing.getEquipment().isEmpty());
+        assertTrue(routing.getParts().isEmpty());
+    }
+
+    @Test
+    void testRoutingMarksStaleProceduresOnRequest() throws InterruptedException {
+        service.getRouting("P1");
+        Thread.sleep(40);
+
+        // 工序查询故障：第一次调用真实失败并打开熔断
+        procedureStatus.set(503);
+        assertThrows(IdmeException.class, () -> service.getRouting("P1"));
+
+        // 熔断期间：工序取过期缓存，降级标记落在发起请求的线程上
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        WorkingPlanRoutingVO routing = service.getRouting("P1");
+        assertEquals(List.of("下料", "焊接"), procedureNamesOf(routing));
+        assertTrue(StaleData.isMarked());
+    }
+
+    private <D> D withClient(D dao) {
+        ReflectionTestUtils.setField(dao, "sdkClient", client);
+        return dao;
+    }
+
+    private static List<String> procedureNamesOf(WorkingPlanRoutingVO routing) {
+        return routing.getSteps().stream()
+                .map(WorkingPlanRoutingVO.Step::getProcedure)
+                .map(PlanProcedureItem::getProcedureName)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tsukilc.idme.service.bom.BomGraphTest.line;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BomBatchValidator 单元测试（纯内存，不依赖iDME服务）
+ */
+public class BomBatchValidatorTest {
+
+    @Test
+    void testReportsAllCyclicLines() {
+        BomGraph graph = BomGraph.of(List.of(line("L1", "X", "Y")));
+        List<BOMItem> batch = List.of(
+                line(null, "A", "B"),
+                line(null, "B", "C"),
+                line(null, "C", "A"),   // 批次内部成环：A -> B -> C -> A
+                line(null, "Y", "X"),   // 与现有边 X -> Y 成环
+                line(null, "D", "D"),   // 自环
+                line(null, "A", "E"));  // 合法
+
+        assertEquals(List.of(0, 1, 2, 3, 4), BomBatchValidator.findCyclicLines(graph, batch));
+    }
+
+    @Test
+    void testSharedSubassemblyIsNotCycle() {
+        BomGraph graph = BomGraph.of(List.of(line("L1", "A", "B"), line("L2", "B", "C")));
+        List<BOMItem> batch = List.of(line(null, "A", "C"), line(null, "D", "B"), line(null, "D", "A"));
+
+        assertTrue(BomBatchValidator.findCyclicLines(graph, batch).isEmpty());
+    }
+
+    @Test
+    void testLargeImport() {
+        BomGraph graph = BomGraph.empty();
+        List<BOMItem> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(line(null, "P" + i, "P" + (i + 1)));
+        }
+        assertTrue(BomBatchValidator.findCyclicLines(graph, batch).isEmpty());
+
+        batch.add(line(null, "P5000", "P0"));
+        assertEquals(5001, BomBatchValidator.findCyclicLines(graph, batch).size());
+    }
+}
@@ -0,0 +1,84 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.tsukilc.idme.service.bom.BomExplosionTest.line;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BomDiff 单元测试（BOM比较）
+ */
+public class BomDiffTest {
+
+    @Test
+    void testDiffTwoVersions() {
+        // V1 与 V2 共用子装配 GEAR（内容一致），HOUSING 下螺栓用量变化、垫片替换为卡簧
+        BomGraph graph = BomGraph.of(List.of(
+                line("L1", "V1", "GEAR", "2"),
+                line("L2", "V1", "HOUSING", "1"),
+                line("L3", "V1", "COVER", "1"),
+                line("L4", "V2", "GEAR", "2"),
+                line("L5", "V2", "HOUSING2", "1"),
+                line("L6", "GEAR", "SHAFT", "1"),
+                line("L7", "HOUSING", "BOLT", "4"),
+                line("L8", "HOUSING", "WASHER", "4"),
+                line("L9", "HOUSING2", "BOLT", "6"),
+                line("L10", "HOUSING2", "CIRCLIP", "1")));
+
+        // 统计每个物料被展开的次数
+        Map<String, Integer> visits = new HashMap<>();
+        List<BomDiff.Row> rows = BomDiff.diff(
+                "V1", id -> count(visits, id, graph.linesOf(id)),
+                "V2", id -> count(visits, id, graph.linesOf(id)));
+        Map<String, String> changes = rows.stream()
+                .collect(Collectors.toMap(r -> r.getParentPartId() + ">" + r.getChildPartId(), BomDiff.Row::getChangeType));
+
+        assertEquals(Map.of(
+                "V1>HOUSING", BomDiff.REMOVED,
+                "V1>COVER", BomDiff.REMOVED,
+                "V2>HOUSING2", BomDiff.ADDED), changes);
+        assertTrue(rows.stream().allMatch(r -> r.getLevel() == 1));
+        // 一致的子装配只在两侧各计算一次哈希时读取，比较阶段不再展开
+        assertEquals(2, visits.get("SHAFT"));
+    }
+
+    @Test
+    void testDiffSameAssemblyAtTwoDates() {
+        BOMItem oldBolt = line("L2", "SUB", "BOLT", "4");
+        oldBolt.setEffectiveTo(LocalDateTime.of(2025, 12, 31, 0, 0));
+        BOMItem newBolt = line("L3", "SUB", "BOLT", "6");
+        newBolt.setEffectiveFrom(LocalDateTime.of(2026, 1, 1, 0, 0));
+        BomGraph graph = BomGraph.of(List.of(
+                line("L1", "TOP", "SUB", "1"), oldBolt, newBolt, line("L4", "TOP", "NUT", "2")));
+
+        LocalDate before = LocalDate.of(2025, 6, 1);
+        LocalDate after = LocalDate.of(2026, 6, 1);
+        List<BomDiff.Row> rows = BomDiff.diff(
+                "TOP", id -> graph.linesOf(id, before),
+                "TOP", id -> graph.linesOf(id, after));
+
+        assertEquals(1, rows.size());
+        BomDiff.Row row = rows.get(0);
+        assertEquals(BomDiff.QUANTITY_CHANGED, row.getChangeType());
+        assertEquals(2, row.getLevel());
+        assertEquals("SUB", row.getParentPartId());
+        assertEquals(0, new BigDecimal("4").compareTo(row.getOldQuantity()));
+        assertEquals(0, new BigDecimal("6").compareTo(row.getNewQuantity()));
+
+        assertTrue(BomDiff.diff("TOP", graph::linesOf, "TOP", graph::linesOf).isEmpty());
+    }
+
+    private static List<BOMItem> count(Map<String, Integer> visits, String partId, List<BOMItem> lines) {
+        visits.merge(partId, 1, Integer::sum);
+        return lines;
+    }
+}
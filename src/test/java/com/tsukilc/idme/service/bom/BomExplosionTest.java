@@ -0,0 +1,48 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BomExplosion 单元测试（多层用量汇总）
+ */
+public class BomExplosionTest {
+
+    @Test
+    void testSharedSubassemblyRollup() {
+        // TOP -> 2 x SUB1, TOP -> 1 x SUB2, SUB1 -> 3 x BOLT, SUB2 -> 4 x BOLT, SUB2 -> 1 x SUB1
+        BomGraph graph = BomGraph.of(List.of(
+                line("L1", "TOP", "SUB1", "2"),
+                line("L2", "TOP", "SUB2", "1"),
+                line("L3", "SUB1", "BOLT", "3"),
+                line("L4", "SUB2", "BOLT", "4"),
+                line("L5", "SUB2", "SUB1", "1")));
+
+        Map<String, BomExplosion.Row> rows = BomExplosion.explode("TOP", graph::linesOf).stream()
+                .collect(Collectors.toMap(BomExplosion.Row::getPartId, r -> r));
+
+        // SUB1 = 2 + 1*1 = 3；BOLT = 3*3 + 1*4 = 13
+        assertEquals(0, new BigDecimal("3").compareTo(rows.get("SUB1").getQuantity()));
+        assertEquals(0, new BigDecimal("13").compareTo(rows.get("BOLT").getQuantity()));
+        assertEquals(1, rows.get("SUB1").getLevel());
+        assertEquals(2, rows.get("SUB1").getMaxLevel());
+        assertEquals(3, rows.get("BOLT").getMaxLevel());
+        assertTrue(rows.get("BOLT").isLeaf());
+        assertFalse(rows.get("SUB2").isLeaf());
+    }
+
+    static BOMItem line(String id, String parent, String child, String quantity) {
+        BOMItem item = BomGraphTest.line(id, parent, child);
+        item.setQuantity(Map.of("value", quantity));
+        item.setUom(new ObjectReference("PCS"));
+        return item;
+    }
+}
@@ -0,0 +1,157 @@
+package com.tsukilc.idme.service.bom;
+
+import com.tsukilc.idme.entity.BOMItem;
+import com.tsukilc.idme.entity.ObjectReference;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BomGraph 单元测试（纯内存，不依赖iDME服务）
+ */
+public class BomGraphTest {
+
+    @Test
+    void testIncrementalAddRemoveReplace() {
+        BomGraph graph = BomGraph.of(List.of(line("L1", "A", "B"), line("L2", "A", "C")));
+        assertEquals(2, graph.edgeCount());
+
+        graph = graph.withLine(line("L3", "B", "D"));
+        assertEquals(List.of("D"), graph.childrenOf("B"));
+
+        // 移边：L3 从 B->D 改为 C->D
+        graph = graph.withLine(line("L3", "C", "D"));
+        assertTrue(graph.childrenOf("B").isEmpty());
+        assertEquals(List.of("D"), graph.childrenOf("C"));
+
+        graph = graph.withoutLine("L1");
+        assertNull(graph.getLine("L1"));
+        assertSame(graph, graph.withoutLine("L1"));
+        assertEquals(2, graph.edgeCount());
+    }
+
+    @Test
+    void testSnapshotsAreImmutable() {
+        BomGraph before = BomGraph.of(List.of(line("L1", "A", "B")));
+        BomGraph after = before.withLine(line("L2", "A", "C")).withoutLine("L1");
+
+        assertEquals(List.of("B"), before.childrenOf("A"));
+        assertEquals(List.of("C"), after.childrenOf("A"));
+        assertFalse(before.wouldCreateCycle("C", "A"));
+        assertTrue(after.wouldCreateCycle("C", "A"));
+    }
+
+    @Test
+    void testCompactionKeepsContent() {
+        BomGraph graph = BomGraph.empty();
+        for (int i = 0; i < 1000; i++) {
+            graph = graph.withLine(line("L" + i, "P" + (i % 10), "C" + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            graph = graph.withoutLine("L" + i);
+        }
+        assertEquals(500, graph.edgeCount());
+        assertEquals(100, graph.linesOf("P1").size());
+        assertTrue(graph.linesOf("P0").isEmpty());
+        assertEquals(1, graph.usagesOf("C999").size());
+    }
+
+    @Test
+    void testAdjacencyKeepsLineOrder() {
+        // 父件交错出现，CSR分桶后仍保持各父件下BOM行的原有顺序
+        BomGraph graph = BomGraph.of(List.of(
+                line("L1", "A", "C3"), line("L2", "B", "C1"), line("L3", "A", "C1"), line("L4", "A", "C2")));
+        assertEquals(List.of("C3", "C1", "C2"), graph.childrenOf("A"));
+        assertEquals(List.of("L2", "L3"), graph.usagesOf("C1").stream().map(BOMItem::getId).toList());
+
+        graph = graph.withoutLine("L3").withLine(line("L5", "A", "C4"));
+        assertEquals(List.of("C3", "C2", "C4"), graph.childrenOf("A"));
+        assertTrue(graph.childrenOf("unknown").isEmpty());
+    }
+
+    @Test
+    void testEffectivityFilter() {
+        BOMItem expired = line("L1", "A", "B");
+        expired.setEffectiveTo("2025-12-31T00:00:00.000+00:00");
+        BOMItem current = line("L2", "A", "C");
+        current.setEffectiveFrom(BomEffectivity.asOfMillis(LocalDate.of(2026, 1, 1)));
+        BomGraph graph = BomGraph.of(List.of(expired, current, line("L3", "B", "D")));
+
+        LocalDate asOf = LocalDate.of(2026, 6, 1);
+        assertEquals(List.of("L2"), graph.linesOf("A", asOf).stream().map(BOMItem::getId).toList());
+        assertEquals(List.of("L1"), graph.linesOf("A", LocalDate.of(2025, 12, 31)).stream()
+                .map(BOMItem::getId).toList());
+        assertEquals(2, graph.linesOf("A").size());
+        assertTrue(graph.usagesOf("B", asOf).isEmpty());
+
+        // 增量层的行同样按有效期过滤
+        BOMItem future = line("L4", "A", "E");
+        future.setEffectiveFrom(LocalDateTime.of(2027, 1, 1, 0, 0));
+        graph = graph.withLine(future);
+        assertEquals(List.of("L2"), graph.linesOf("A", asOf).stream().map(BOMItem::getId).toList());
+        assertEquals(List.of("L2", "L4"), graph.linesOf("A", LocalDate.of(2027, 1, 1)).stream()
+                .map(BOMItem::getId).toList());
+    }
+
+    @Test
+    void testWhereUsedIndex() {
+        BomGraph graph = BomGraph.of(List.of(line("L1", "A", "C"), line("L2", "B", "C"), line("L3", "A", "B")));
+        assertEquals(2, graph.usagesOf("C").size());
+
+        graph = graph.withoutLine("L2");
+        assertEquals(1, graph.usagesOf("C").size());
+        assertEquals("A", BomGraph.parentIdOf(graph.usagesOf("C").get(0)));
+        assertTrue(graph.usagesOf("A").isEmpty());
+    }
+
+    @Test
+    void testCycleDetection() {
+        BomGraph graph = BomGraph.of(List.of(line("L1", "A", "B"), line("L2", "B", "C")));
+
+        assertTrue(graph.wouldCreateCycle("C", "A"));
+        assertTrue(graph.wouldCreateCycle("A", "A"));
+        assertFalse(graph.wouldCreateCycle("A", "C"));
+        assertFalse(graph.wouldCreateCycle("X", "A"));
+
+        // 插入逆序边后拓扑序需要重排：D -> A 合法，之后 C -> D 成环
+        assertFalse(graph.wouldCreateCycle("D", "A"));
+        graph = graph.withLine(line("L3", "D", "A"));
+        assertTrue(graph.wouldCreateCycle("C", "D"));
+
+        // 删边后原本成环的边变为合法
+        graph = graph.withoutLine("L2");
+        assertFalse(graph.wouldCreateCycle("C", "D"));
+    }
+
+    @Test
+    void testDeepChainDoesNotOverflow() {
+        BomGraph graph = BomGraph.empty();
+        int depth = 10_000;
+        for (int i = 1; i <= depth; i++) {
+            graph = graph.withLine(line("L" + i, "P" + (i - 1), "P" + i));
+        }
+        // 逆向边需沿整条链做DFS
+        assertTrue(graph.wouldCreateCycle("P" + depth, "P0"));
+        assertFalse(graph.wouldCreateCycle("P0", "P" + depth));
+
+        // 逆序插入的短链：每次都触发拓扑序重排
+        BomGraph reversed = BomGraph.empty();
+        for (int i = 500; i > 0; i--) {
+            reversed = reversed.withLine(line("R" + i, "Q" + (i - 1), "Q" + i));
+        }
+        assertTrue(reversed.wouldCreateCycle("Q500", "Q0"));
+        assertTrue(reversed.isAcyclic());
+    }
+
+    static BOMItem line(String id, String parent, String child) {
+        BOMItem item = new BOMItem();
+        item.setId(id);
+        item.setTarget(new ObjectReference(parent, "Part"));
+        item.setSource(new ObjectReference(child, "Part"));
+        return item;
+    }
+}
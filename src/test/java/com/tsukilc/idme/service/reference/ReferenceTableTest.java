@@ -0,0 +1,116 @@
+package com.tsukilc.idme.service.reference;
+
+import com.tsukilc.idme.entity.Unit;
+import com.tsukilc.idme.exception.IdmeException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReferenceTable 单元测试
+ */
+public class ReferenceTableTest {
+
+    private final List<Unit> upstream = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ReferenceTable<Unit> table = new ReferenceTable<>("Unit", "计量单位",
+            () -> {
+                loads.incrementAndGet();
+                return new ArrayList<>(upstream);
+            },
+            Unit::getId, Unit::getUnitName, Unit::getUnitDisplayName);
+
+    @Test
+    void testLoadedOnceAndIndexedByIdAndCode() {
+        upstream.add(unit("U1", "kg", "千克"));
+        upstream.add(unit("U2", "m", "米"));
+
+        assertEquals("千克", table.nameOf("U1"));
+        assertSame(table.get("U2"), table.getByCode("m"));
+        assertNull(table.get("U3"));
+        assertEquals(2, table.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testMarkStaleReloadsOnNextRead() {
+        upstream.add(unit("U1", "kg", "千克"));
+        assertEquals("千克", table.nameOf("U1"));
+
+        upstream.set(0, unit("U1", "kg", "公斤"));
+        assertEquals("千克", table.nameOf("U1"));
+        table.markStale();
+        assertEquals("公斤", table.nameOf("U1"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testRequireExistsReloadsOnceBeforeRejecting() {
+        upstream.add(unit("U1", "kg", "千克"));
+        table.requireExists("U1");
+        table.requireExists(null);
+        assertEquals(1, loads.get());
+
+        // 其他实例刚创建的单位：快照未命中时重新加载一次即可找到
+        upstream.add(unit("U2", "m", "米"));
+        table.requireExists("U2");
+        assertEquals(2, loads.get());
+
+        IdmeException e = assertThrows(IdmeException.class, () -> table.requireExists("U9"));
+        assertTrue(e.getMessage().contains("计量单位不存在"));
+        // 间隔内的未命中不再重新加载
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMissReloadRateLimited() throws InterruptedException {
+        ReferenceTable<Unit> limited = new ReferenceTable<>("Unit", "计量单位",
+                () -> {
+                    loads.incrementAndGet();
+                    return new ArrayList<>(upstream);
+                },
+                Unit::getId, Unit::getUnitName, Unit::getUnitDisplayName, Duration.ofMillis(100));
+        upstream.add(unit("U1", "kg", "千克"));
+        assertThrows(IdmeException.class, () -> limited.requireExists("U9"));
+        assertEquals(2, loads.get());
+
+        // 间隔内：即使上游已有也按当前快照判定，不阻塞读取
+        upstream.add(unit("U2", "m", "米"));
+        assertThrows(IdmeException.class, () -> limited.requireExists("U2"));
+        assertEquals(2, loads.get());
+
+        Thread.sleep(150);
+        limited.requireExists("U2");
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testFailedReloadKeepsPreviousSnapshot() {
+        ReferenceTable<Unit> flaky = new ReferenceTable<>("Unit", "计量单位",
+                () -> {
+                    if (loads.incrementAndGet() > 1) {
+                        throw new IdmeException("upstream down");
+                    }
+                    return List.of(unit("U1", "kg", "千克"));
+                },
+                Unit::getId, Unit::getUnitName, Unit::getUnitDisplayName);
+
+        assertEquals("千克", flaky.nameOf("U1"));
+        flaky.markStale();
+        assertEquals("千克", flaky.nameOf("U1"));
+        assertThrows(IdmeException.class, flaky::refresh);
+    }
+
+    private static Unit unit(String id, String name, String displayName) {
+        Unit unit = new Unit();
+        unit.setId(id);
+        unit.setUnitName(name);
+        unit.setUnitDisplayName(displayName);
+        return unit;
+    }
+}